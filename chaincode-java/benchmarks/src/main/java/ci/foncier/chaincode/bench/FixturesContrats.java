@@ -0,0 +1,239 @@
+package ci.foncier.chaincode.bench;
+
+import ci.foncier.chaincode.model.ContractApprobation;
+import ci.foncier.chaincode.model.ContractSignatory;
+import ci.foncier.chaincode.model.ContractValidation;
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.model.PartySignature;
+import ci.foncier.chaincode.model.Person;
+import ci.foncier.chaincode.model.Terrain;
+import ci.foncier.chaincode.util.DeterministicMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Contrats agraires réalistes et reproductibles (graine fixe): parties complètes, terrain, clauses de loyer
+ * et d'obligations, images de signature de la taille de celles des tablettes.
+ */
+final class FixturesContrats {
+
+    /** Octets d'une image de signature avant encodage base64 (PNG capturé sur tablette) */
+    static final int TAILLE_IMAGE_SIGNATURE = 48 * 1024;
+
+    private static final String[] NOMS = {
+        "Kouassi", "Koné", "Yao", "Traoré", "Kouadio", "Ouattara", "Coulibaly", "Konan", "Bamba", "Diabaté",
+        "N'Guessan", "Touré", "Aka", "Soro", "Dosso", "Kouamé", "Diallo", "Fofana", "Tanoh", "Brou"
+    };
+    private static final String[] PRENOMS = {
+        "Adjoua", "Ibrahim", "Aya", "Koffi", "Mariam", "Yao", "Affoué", "Seydou", "Amenan", "Drissa", "Akissi", "Moussa"
+    };
+    private static final String[][] LOCALITES = {
+        {"Gbêkê", "Bouaké", "Brobo", "Brobo"},
+        {"Gbêkê", "Sakassou", "Sakassou", "Toumodi-Sakassou"},
+        {"Poro", "Korhogo", "Korhogo", "Natiokobadara"},
+        {"Hambol", "Katiola", "Niakaramandougou", "Tafiré"},
+        {"Bélier", "Yamoussoukro", "Attiégouakro", "Lolobo"},
+        {"Marahoué", "Bouaflé", "Bouaflé", "Bégbessou"},
+        {"Haut-Sassandra", "Daloa", "Gboguhé", "Zaïbo"},
+        {"Tonkpi", "Man", "Logoualé", "Gbangbégouiné"},
+        {"Indénié-Djuablin", "Abengourou", "Niablé", "Ebilassokro"},
+        {"Cavally", "Guiglo", "Bloléquin", "Diboké"}
+    };
+    private static final String[] TYPES = {"LOCATION", "METAYAGE", "PLANTER_PARTAGER", "PRET", "VENTE"};
+
+    /** Nombre de propriétaires distincts: une recherche par nom retourne environ taille / NOMBRE_PROPRIETAIRES contrats */
+    static final int NOMBRE_PROPRIETAIRES = NOMS.length * PRENOMS.length;
+
+    private static final LocalDateTime DEBUT = LocalDateTime.of(2025, 1, 6, 8, 0);
+
+    private FixturesContrats() {
+    }
+
+    static String proprietaire(int i) {
+        int n = Math.floorMod(i, NOMBRE_PROPRIETAIRES);
+        return NOMS[n % NOMS.length] + " " + PRENOMS[n / NOMS.length];
+    }
+
+    /**
+     * Contrat sans signature ni workflow, tel qu'envoyé par l'application mobile à la création.
+     */
+    static ContratAgraire contrat(String id, int i) {
+        Random aleatoire = new Random(i);
+        String[] localite = LOCALITES[Math.floorMod(i, LOCALITES.length)];
+        LocalDateTime creation = DEBUT.plusMinutes(i);
+
+        ContratAgraire contrat = new ContratAgraire();
+        contrat.setId(id);
+        contrat.setUuid(new UUID(0x466f6e6369657200L, i).toString());
+        contrat.setCreationDate(creation);
+        contrat.setType(TYPES[Math.floorMod(i, TYPES.length)]);
+        contrat.setVersion("2");
+        contrat.setRegion(localite[0]);
+        contrat.setDepartment(localite[1]);
+        contrat.setSousPrefecture(localite[2]);
+        contrat.setVillage(localite[3]);
+
+        int proprietaireId = Math.floorMod(i, NOMBRE_PROPRIETAIRES) + 1;
+        contrat.setOwner(personne(proprietaireId, proprietaire(i), "PROPRIETAIRE", aleatoire));
+        contrat.setOwnerId(proprietaireId);
+        int beneficiaireId = 100_000 + i;
+        contrat.setBeneficiary(personne(beneficiaireId, proprietaire(i * 7 + 3), "EXPLOITANT", aleatoire));
+        contrat.setBeneficiaryId(beneficiaireId);
+
+        Terrain terrain = new Terrain();
+        terrain.setId(i + 1);
+        terrain.setLocalisation(localite[3] + ", parcelle " + (1 + aleatoire.nextInt(400)));
+        terrain.setSurface(Math.round((0.5 + aleatoire.nextDouble() * 19.5) * 100) / 100.0);
+        terrain.setCvgfr("CVGFR " + localite[3]);
+        terrain.setCertificatFoncier(aleatoire.nextBoolean() ? "CF-" + (10_000 + i) : null);
+        terrain.setCertificatFoncierType("INDIVIDUEL");
+        terrain.setStatut("COUTUMIER");
+        terrain.setIdufci(String.format("UFCI-%s-%07d", localite[1].substring(0, 3).toUpperCase(), i));
+        terrain.setNatureServitude("Passage vers le bas-fond");
+        terrain.setSurfaceMethod("GPS");
+        terrain.setSurfaceMeasurment("HECTARE");
+        terrain.setCroquisDisponible("OUI");
+        contrat.setTerrain(terrain);
+        contrat.setTerrainId(terrain.getId());
+
+        contrat.setHasRent(1);
+        contrat.setRent(String.valueOf(25_000 + aleatoire.nextInt(20) * 5_000));
+        contrat.setRentTimeUnit("ANNEE");
+        contrat.setRentDate("Après la récolte principale");
+        contrat.setRentPeriod("ANNUELLE");
+        contrat.setRentPayedBy("BENEFICIAIRE");
+        contrat.setRentRevision("Révision tous les trois ans d'un commun accord");
+        contrat.setRentIsEspece(1);
+        contrat.setRentIsEspeceDetails("Versement en francs CFA devant deux témoins");
+        contrat.setHasObligationVivriere(1);
+        contrat.setHasObligationVivriereDetails("Igname et maïs en association la première année");
+        contrat.setHasObligationPerenne(aleatoire.nextInt(2));
+        contrat.setHasObligationPerenneDetails("Cacao et anacarde interdits sans accord écrit du propriétaire");
+        contrat.setHasFamilyAuthorization(1);
+        contrat.setHasFamilyAuthorizationVente(1);
+        contrat.setIsOwnerDetenteurDroitFoncier(1);
+        contrat.setDuration(String.valueOf(3 + aleatoire.nextInt(10)));
+        contrat.setDurationUnit("ANNEE");
+        contrat.setUsagesAutorises("Cultures vivrières, maraîchage");
+        contrat.setOwnerObligations("Garantir la jouissance paisible de la parcelle pendant toute la durée du contrat");
+        contrat.setBeneficiaryObligations("Entretenir la parcelle, respecter les limites et les lieux sacrés du village");
+        return contrat;
+    }
+
+    private static Person personne(int id, String nom, String type, Random aleatoire) {
+        Person personne = new Person();
+        personne.setId(id);
+        personne.setName(nom);
+        personne.setBirthDate(LocalDateTime.of(1950 + aleatoire.nextInt(50), 1 + aleatoire.nextInt(12), 1 + aleatoire.nextInt(28), 0, 0));
+        personne.setFatherName(NOMS[aleatoire.nextInt(NOMS.length)] + " " + PRENOMS[aleatoire.nextInt(PRENOMS.length)]);
+        personne.setMotherName(NOMS[aleatoire.nextInt(NOMS.length)] + " " + PRENOMS[aleatoire.nextInt(PRENOMS.length)]);
+        personne.setIdType("CNI");
+        personne.setIdNumber(String.format("CI%09d", aleatoire.nextInt(1_000_000_000)));
+        personne.setIdDate(LocalDateTime.of(2015 + aleatoire.nextInt(9), 1 + aleatoire.nextInt(12), 1, 0, 0));
+        personne.setPhoneNumber(String.format("+225 07 %02d %02d %02d %02d", aleatoire.nextInt(100),
+            aleatoire.nextInt(100), aleatoire.nextInt(100), aleatoire.nextInt(100)));
+        personne.setType(type);
+        personne.setAddress("Quartier Commerce, BP " + aleatoire.nextInt(2000));
+        personne.setBirthPlace(LOCALITES[aleatoire.nextInt(LOCALITES.length)][1]);
+        personne.setGenre(aleatoire.nextBoolean() ? "M" : "F");
+        return personne;
+    }
+
+    /**
+     * Contrat dont le corps porte les images de signature du procès-verbal (propriétaire, bénéficiaire, témoins, président CVGFR).
+     */
+    static ContratAgraire contratAvecSignataires(String id, int i) {
+        ContratAgraire contrat = contrat(id, i);
+        ContractSignatory signataires = new ContractSignatory();
+        signataires.setId(i + 1);
+        signataires.setOwnerName(contrat.getOwner().getName());
+        signataires.setOwnerSignature(imageSignature(i * 10 + 1));
+        signataires.setBeneficiaryName(contrat.getBeneficiary().getName());
+        signataires.setBeneficiarySignature(imageSignature(i * 10 + 2));
+        signataires.setOwnerWitnessName(proprietaire(i + 11));
+        signataires.setOwnerWitnessSignature(imageSignature(i * 10 + 3));
+        signataires.setBeneficiaryWitnessName(proprietaire(i + 13));
+        signataires.setBeneficiaryWitnessSignature(imageSignature(i * 10 + 4));
+        signataires.setCvgfrPresidentName(proprietaire(i + 17));
+        signataires.setCvgfrPresidentSignature(imageSignature(i * 10 + 5));
+        signataires.setCreationDate(contrat.getCreationDate());
+        List<ContractSignatory> liste = new ArrayList<>();
+        liste.add(signataires);
+        contrat.setContractSignatory(liste);
+        return contrat;
+    }
+
+    static PartySignature signature(String partyType, String nom, int graine) {
+        PartySignature signature = new PartySignature();
+        signature.setPartyType(partyType);
+        signature.setPartyName(nom);
+        signature.setPartyId(partyType + "-" + graine);
+        signature.setSignatureData(imageSignature(graine));
+        signature.setSignedAt(DEBUT.plusDays(1).plusMinutes(graine % 1000));
+        signature.setIpAddress("10.20." + (graine % 250) + ".17");
+        signature.setDeviceInfo("Samsung Galaxy Tab A8, Android 13, application AFOR 3.4.1");
+        signature.setGeoLocation("7.6906,-5.0303");
+        return signature;
+    }
+
+    static ContractApprobation approbation(int i) {
+        ContractApprobation approbation = new ContractApprobation();
+        approbation.setApprovedBy("cvgfr-" + (i % 40));
+        approbation.setApproverName(proprietaire(i + 5));
+        approbation.setApproverRole("CHEF_CVGFR");
+        approbation.setApproverOrganization("CVGFR");
+        approbation.setApprovedAt(DEBUT.plusDays(3).plusMinutes(i));
+        approbation.setComment("Limites vérifiées sur le terrain en présence des voisins");
+        approbation.setDigitalSignature(hex(i * 31L, 144));
+        approbation.setPublicKeyFingerprint(hex(i * 17L, 64));
+        return approbation;
+    }
+
+    static ContractValidation validation(int i) {
+        ContractValidation validation = new ContractValidation();
+        validation.setValidatedBy("admin-cvgfr-" + (i % 10));
+        validation.setValidatorName(proprietaire(i + 9));
+        validation.setValidatorRole("ADMIN_CVGFR");
+        validation.setValidatorOrganization("CVGFR");
+        validation.setValidatedAt(DEBUT.plusDays(5).plusMinutes(i));
+        validation.setDigitalSignature(hex(i * 37L, 144));
+        validation.setDocumentHash(hex(i * 41L, 64));
+        validation.setHashAlgorithm("SHA-256");
+        validation.setSignatureAlgorithm("ECDSA-SHA256");
+        validation.setPublicKeyFingerprint(hex(i * 43L, 64));
+        validation.setPdfUrl("https://contrats.afor.ci/pdf/" + i);
+        validation.setVerificationUrl("https://contrats.afor.ci/verifier/" + i);
+        return validation;
+    }
+
+    static String json(Object valeur) {
+        try {
+            return DeterministicMapper.writeValueAsString(valeur);
+        } catch (Exception e) {
+            throw new IllegalStateException("Sérialisation de la fixture impossible", e);
+        }
+    }
+
+    /** Image PNG en base64: en-tête PNG puis octets pseudo-aléatoires (incompressibles, comme une capture réelle) */
+    static String imageSignature(int graine) {
+        byte[] image = new byte[TAILLE_IMAGE_SIGNATURE];
+        new Random(graine).nextBytes(image);
+        byte[] entete = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+        System.arraycopy(entete, 0, image, 0, entete.length);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(image);
+    }
+
+    private static String hex(long graine, int longueur) {
+        Random aleatoire = new Random(graine);
+        StringBuilder hex = new StringBuilder(longueur);
+        while (hex.length() < longueur) {
+            hex.append(Character.forDigit(aleatoire.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package ci.foncier.chaincode.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point d'entrée de benchmarks.jar: deux passes avec le profileur GC (gc.alloc.rate.norm = octets alloués par opération),
+ * résultats JSON comparables d'un build à l'autre.
+ *
+ *   debit.json   - ops/s (Mode.Throughput)
+ *   latence.json - distribution des latences en µs, dont p0.99 (Mode.SampleTime)
+ *
+ * Les options JMH habituelles restent acceptées (filtre de benchmarks, -p tailleRegistre=1000,10000, -f, -wi, -i...).
+ * Dossier de sortie: propriété foncier.bench.resultats, target/jmh par défaut.
+ */
+public final class Lanceur {
+
+    private Lanceur() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions ligne = new CommandLineOptions(args);
+        if (ligne.shouldHelp() || ligne.shouldList() || ligne.shouldListWithParams() || ligne.shouldListProfilers()
+                || ligne.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        Path resultats = Paths.get(System.getProperty("foncier.bench.resultats", "target/jmh"));
+        Files.createDirectories(resultats);
+        new Runner(passe(ligne, Mode.Throughput, TimeUnit.SECONDS, resultats.resolve("debit.json"))).run();
+        new Runner(passe(ligne, Mode.SampleTime, TimeUnit.MICROSECONDS, resultats.resolve("latence.json"))).run();
+    }
+
+    private static Options passe(CommandLineOptions ligne, Mode mode, TimeUnit unite, Path fichier) {
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(ligne);
+        if (ligne.getIncludes().isEmpty()) {
+            options.include(TransactionsBenchmark.class.getSimpleName());
+        }
+        return options
+            .mode(mode)
+            .timeUnit(unite)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(fichier.toString())
+            .build();
+    }
+}
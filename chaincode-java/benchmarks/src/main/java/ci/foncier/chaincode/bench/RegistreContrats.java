@@ -0,0 +1,126 @@
+package ci.foncier.chaincode.bench;
+
+import ci.foncier.chaincode.FoncierChaincode;
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.StubMemoire;
+import org.hyperledger.fabric.contract.Context;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Registre chargé une fois par essai, par les transactions du chaincode lui-même: tailleRegistre contrats,
+ * dont CONTRATS_LOURDS approuvés et CONTRATS_LOURDS en brouillon qui portent les images de signature et un long
+ * historique d'actions (création, MODIFICATIONS modifications, signatures, approbation).
+ *
+ * Les transactions mesurées sont endossées sur ce registre sans être validées: il reste identique d'une
+ * invocation à l'autre.
+ */
+@State(Scope.Benchmark)
+public class RegistreContrats {
+
+    static final int CONTRATS_LOURDS = 8;
+    static final int MODIFICATIONS = 200;
+    static final int TAILLE_LOT = 250;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tailleRegistre;
+
+    RegistreMemoire registre;
+    FoncierChaincode chaincode;
+    final Instant horodatage = Instant.parse("2026-06-01T09:00:00Z");
+
+    String[] approuves;
+    String[] brouillons;
+    String[] lourds;
+    String proprietaireRecherche;
+
+    private long chargements;
+
+    @Setup(Level.Trial)
+    public void charger() {
+        registre = new RegistreMemoire();
+        chaincode = new FoncierChaincode();
+        int legers = Math.max(0, tailleRegistre - 2 * CONTRATS_LOURDS);
+        for (int debut = 0; debut < legers; debut += TAILLE_LOT) {
+            StringBuilder lot = new StringBuilder("[");
+            for (int i = debut; i < Math.min(legers, debut + TAILLE_LOT); i++) {
+                lot.append(i == debut ? "" : ",").append(FixturesContrats.json(FixturesContrats.contrat(identifiant(i), i)));
+            }
+            String contrats = lot.append(']').toString();
+            soumettre(ctx -> chaincode.creerContratsBatch(ctx, contrats, "ALL_OR_NOTHING"));
+        }
+
+        approuves = new String[CONTRATS_LOURDS];
+        brouillons = new String[CONTRATS_LOURDS];
+        lourds = new String[2 * CONTRATS_LOURDS];
+        for (int n = 0; n < CONTRATS_LOURDS; n++) {
+            approuves[n] = chargerContratLourd("LOURD-APPROUVE-" + n, legers + n, true);
+            brouillons[n] = chargerContratLourd("LOURD-BROUILLON-" + n, legers + CONTRATS_LOURDS + n, false);
+            lourds[2 * n] = approuves[n];
+            lourds[2 * n + 1] = brouillons[n];
+        }
+        proprietaireRecherche = FixturesContrats.proprietaire(0);
+        registre.reinitialiserCompteurs();
+    }
+
+    static String identifiant(int i) {
+        return String.format("CA%07d", i);
+    }
+
+    /**
+     * Contrat modifié MODIFICATIONS fois (la dernière ajoute les images du procès-verbal), puis signé par le
+     * propriétaire et les deux témoins; le bénéficiaire et l'approbation complètent le contrat approuvé.
+     */
+    private String chargerContratLourd(String id, int i, boolean approuver) {
+        String creation = FixturesContrats.json(FixturesContrats.contrat(id, i));
+        soumettre(ctx -> chaincode.creerContrat(ctx, creation));
+        for (int m = 1; m <= MODIFICATIONS; m++) {
+            ContratAgraire version = m == MODIFICATIONS
+                ? FixturesContrats.contratAvecSignataires(id, i) : FixturesContrats.contrat(id, i);
+            version.setRent(String.valueOf(25_000 + m * 500));
+            String modification = FixturesContrats.json(version);
+            soumettre(ctx -> chaincode.modifierContrat(ctx, id, modification));
+        }
+
+        signer(id, "OWNER", i * 10 + 6);
+        signer(id, "OWNER_WITNESS", i * 10 + 7);
+        signer(id, "BENEFICIARY_WITNESS", i * 10 + 8);
+        if (approuver) {
+            signer(id, "BENEFICIARY", i * 10 + 9);
+            String approbation = FixturesContrats.json(FixturesContrats.approbation(i));
+            soumettre(ctx -> chaincode.approuverContrat(ctx, id, approbation));
+        } else {
+            soumettre(ctx -> chaincode.compacterContrat(ctx, id));
+        }
+        return id;
+    }
+
+    private void signer(String id, String partie, int graine) {
+        String signature = FixturesContrats.json(FixturesContrats.signature(partie, FixturesContrats.proprietaire(graine), graine));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, id, signature));
+    }
+
+    /**
+     * Chargement par le même chemin que sur le pair: createContext, beforeTransaction, la transaction, puis
+     * afterTransaction qui envoie les écritures; la transaction est ensuite validée.
+     */
+    private void soumettre(Consumer<Context> transaction) {
+        long numero = ++chargements;
+        StubMemoire stub = registre.endosser("chargement-" + numero, horodatage.minusSeconds(1_000_000 - numero));
+        Context ctx = chaincode.createContext(stub);
+        chaincode.beforeTransaction(ctx);
+        transaction.accept(ctx);
+        chaincode.afterTransaction(ctx, null);
+        RegistreMemoire.CodeValidation code = stub.valider();
+        if (code != RegistreMemoire.CodeValidation.VALID) {
+            throw new IllegalStateException("Chargement du registre: transaction " + stub.getTxId() + " rejetée (" + code + ")");
+        }
+    }
+}
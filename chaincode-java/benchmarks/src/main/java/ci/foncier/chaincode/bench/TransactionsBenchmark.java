@@ -0,0 +1,104 @@
+package ci.foncier.chaincode.bench;
+
+import ci.foncier.chaincode.model.ContratAgraire;
+import org.hyperledger.fabric.contract.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Chemins chauds du chaincode, mesurés comme un endossement: chaque invocation est une nouvelle transaction
+ * (nouveau stub, txId distinct) sur le registre chargé, jamais validée.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx12g"})
+public class TransactionsBenchmark {
+
+    /**
+     * Transaction de la thread de mesure et données d'entrée, sérialisées une fois par essai.
+     */
+    @State(Scope.Thread)
+    public static class Transaction {
+        private long numero;
+        private int suivant;
+
+        String nouveauContrat;
+        String signatureBeneficiaire;
+        String validation;
+
+        @Setup(Level.Trial)
+        public void preparer(RegistreContrats registre) {
+            nouveauContrat = FixturesContrats.json(FixturesContrats.contrat("BENCH-NOUVEAU", registre.tailleRegistre + 1));
+            signatureBeneficiaire = FixturesContrats.json(
+                FixturesContrats.signature("BENEFICIARY", FixturesContrats.proprietaire(3), 4242));
+            validation = FixturesContrats.json(FixturesContrats.validation(7));
+        }
+
+        /**
+         * Exécute l'appel comme le routeur du shim: nouvelle transaction, Context de createContext,
+         * beforeTransaction, puis afterTransaction, qui envoie les écritures.
+         */
+        <T> T executer(RegistreContrats registre, Function<Context, T> appel) {
+            Context transaction = registre.chaincode.createContext(
+                registre.registre.endosser("bench-" + (++numero), registre.horodatage));
+            registre.chaincode.beforeTransaction(transaction);
+            T resultat = appel.apply(transaction);
+            registre.chaincode.afterTransaction(transaction, resultat);
+            return resultat;
+        }
+
+        String prochain(String[] ids) {
+            suivant = (suivant + 1) % ids.length;
+            return ids[suivant];
+        }
+    }
+
+    @Benchmark
+    public ContratAgraire creerContrat(RegistreContrats registre, Transaction transaction) {
+        return transaction.executer(registre, contexte ->
+            registre.chaincode.creerContrat(contexte, transaction.nouveauContrat));
+    }
+
+    @Benchmark
+    public ContratAgraire lireContrat(RegistreContrats registre, Transaction transaction) {
+        return transaction.executer(registre, contexte ->
+            registre.chaincode.lireContrat(contexte, transaction.prochain(registre.lourds)));
+    }
+
+    @Benchmark
+    public ContratAgraire ajouterSignature(RegistreContrats registre, Transaction transaction) {
+        return transaction.executer(registre, contexte -> registre.chaincode.ajouterSignature(contexte,
+            transaction.prochain(registre.brouillons), transaction.signatureBeneficiaire));
+    }
+
+    @Benchmark
+    public ContratAgraire validerContrat(RegistreContrats registre, Transaction transaction) {
+        return transaction.executer(registre, contexte -> registre.chaincode.validerContrat(contexte,
+            transaction.prochain(registre.approuves), transaction.validation));
+    }
+
+    @Benchmark
+    public String listerContrats(RegistreContrats registre, Transaction transaction) {
+        return transaction.executer(registre, contexte -> registre.chaincode.listerContrats(contexte));
+    }
+
+    @Benchmark
+    public String rechercherParProprietaire(RegistreContrats registre, Transaction transaction) {
+        return transaction.executer(registre, contexte ->
+            registre.chaincode.rechercherParProprietaire(contexte, registre.proprietaireRecherche));
+    }
+}
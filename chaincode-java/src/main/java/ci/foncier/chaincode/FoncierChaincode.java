@@ -1,19 +1,47 @@
 package ci.foncier.chaincode;
 
+import ci.foncier.chaincode.ledger.ArbreMerkleRegion;
+import ci.foncier.chaincode.ledger.CacheTransaction;
+import ci.foncier.chaincode.ledger.ContratEntete;
+import ci.foncier.chaincode.ledger.ContratIndex;
+import ci.foncier.chaincode.ledger.ContratStore;
+import ci.foncier.chaincode.ledger.EncodageStockage;
+import ci.foncier.chaincode.ledger.ExportContrats;
+import ci.foncier.chaincode.ledger.GenerateurCodeContrat;
+import ci.foncier.chaincode.ledger.HistoriqueContrat;
+import ci.foncier.chaincode.ledger.ImagesSignature;
+import ci.foncier.chaincode.ledger.LedgerKeys;
+import ci.foncier.chaincode.ledger.RechercheMango;
+import ci.foncier.chaincode.ledger.StatistiquesContrats;
+import ci.foncier.chaincode.metriques.MesureTransaction;
+import ci.foncier.chaincode.metriques.MetriquesTransactions;
 import ci.foncier.chaincode.model.*;
 import ci.foncier.chaincode.util.DeterministicMapper;
+import ci.foncier.chaincode.util.Hashes;
+import ci.foncier.chaincode.util.Horloge;
+import ci.foncier.chaincode.util.HorlogeTransaction;
+import ci.foncier.chaincode.util.JsonProjection;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
 import org.hyperledger.fabric.contract.annotation.*;
 import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Contract(
@@ -29,10 +57,78 @@ import java.util.*;
 public class FoncierChaincode implements ContractInterface {
 
     private static final Logger logger = LoggerFactory.getLogger(FoncierChaincode.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final String MODE_ALL_OR_NOTHING = "ALL_OR_NOTHING";
+    private static final String MODE_SKIP_INVALID = "SKIP_INVALID";
+    /** Champs d'un contrat portés par l'entête ou par les enregistrements du workflow, pas par le corps */
+    private static final Set<String> CHAMPS_WORKFLOW = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "id", "codeContract", "status", "isModifiable", "modifiable", "isDeletable", "deletable", "deletedAt",
+        "deletedBy", "deletedReason", "signatures", "actions", "approbation", "validation")));
     private final ObjectMapper objectMapper;
+    private final ContratStore store;
+    private final HistoriqueContrat historique;
+    private final GenerateurCodeContrat generateurCode;
+    private final Horloge horloge;
+    private final MetriquesTransactions metriques;
 
     public FoncierChaincode() {
-        this.objectMapper = DeterministicMapper.create();
+        this(new HorlogeTransaction());
+    }
+
+    /**
+     * Horloge injectée: les tests figent le temps, la production lit l'horodatage de la transaction.
+     */
+    public FoncierChaincode(final Horloge horloge) {
+        this(horloge, MetriquesTransactions.partagees());
+    }
+
+    public FoncierChaincode(final Horloge horloge, final MetriquesTransactions metriques) {
+        this.horloge = horloge;
+        this.metriques = metriques;
+        this.objectMapper = DeterministicMapper.shared();
+        this.store = new ContratStore();
+        this.historique = new HistoriqueContrat(store);
+        this.generateurCode = new GenerateurCodeContrat();
+    }
+
+    /**
+     * La transaction s'exécute sur un CacheTransaction propre à son Context; métriques actives, il délègue
+     * à un stub instrumenté qui porte sa MesureTransaction et ne compte que les appels faits au pair.
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new Context(new CacheTransaction(metriques.active() ? metriques.instrumenter(stub) : stub));
+    }
+
+    @Override
+    public void beforeTransaction(final Context context) {
+        MesureTransaction mesure = MesureTransaction.de(context.getStub());
+        if (mesure != null) {
+            mesure.demarrer(context.getStub().getArgs());
+        }
+    }
+
+    /**
+     * Appelé seulement en cas de succès: envoie les écritures retenues par le CacheTransaction, puis
+     * clôt la mesure. Les échecs sont enregistrés par MesureTransaction.echec.
+     */
+    @Override
+    public void afterTransaction(final Context context, final Object result) {
+        if (context.getStub() instanceof CacheTransaction) {
+            ((CacheTransaction) context.getStub()).ecrire();
+        }
+        MesureTransaction mesure = MesureTransaction.de(context.getStub());
+        if (mesure != null) {
+            mesure.terminer(result);
+        }
+    }
+
+    /**
+     * Enregistre l'échec dans la mesure de la transaction, puis retourne l'exception à lever.
+     */
+    private static ChaincodeException echec(final Context context, final ChaincodeException e) {
+        return MesureTransaction.echec(context.getStub(), e);
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -45,12 +141,41 @@ public class FoncierChaincode implements ContractInterface {
         metadata.put("organizations", Arrays.asList("AFOR", "CVGFR", "PREFET"));
         // Utiliser le timestamp de la transaction pour garantir le déterminisme
         metadata.put("initialized", context.getStub().getTxTimestamp().toString());
-        metadata.put("version", "1.0.0");            context.getStub().putStringState("CHAINCODE_METADATA", objectMapper.writeValueAsString(metadata));
+        metadata.put("version", "1.0.0");
+            DeterministicMapper.putState(context.getStub(), LedgerKeys.meta(context.getStub(), LedgerKeys.CHAINCODE_METADATA),
+                metadata);
             logger.info("Chaincode initialisé avec succès");
         } catch (Exception e) {
             logger.error("Erreur lors de l'initialisation: {}", e.getMessage());
-            throw new ChaincodeException("Erreur d'initialisation: " + e.getMessage(), "INIT_ERROR");
+            throw echec(context, new ChaincodeException("Erreur d'initialisation: " + e.getMessage(), "INIT_ERROR"));
+        }
+    }
+
+    /**
+     * Choisit l'encodage des prochaines écritures d'enregistrements froids: JSON (défaut) ou CBOR.
+     * Les enregistrements existants restent lisibles dans les deux formats; l'entête reste en JSON.
+     * Opération d'administration: les créations et transitions validées dans le même bloc ont lu
+     * l'ancien encodage et échouent en conflit de lecture; les dépôts de signature ne sont pas touchés.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String definirEncodageStockage(final Context context, final String encodage) {
+        logger.info("Changement de l'encodage de stockage: {}", encodage);
+        
+        EncodageStockage choisi;
+        try {
+            choisi = EncodageStockage.depuis(encodage);
+        } catch (IllegalArgumentException e) {
+            throw echec(context, new ChaincodeException(e.getMessage(), "INVALID_INPUT"));
         }
+        
+        store.definirEncodage(context.getStub(), choisi);
+        logger.info("Encodage de stockage: {}", choisi);
+        return choisi.name();
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String lireEncodageStockage(final Context context) {
+        return store.encodage(context.getStub()).name();
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -58,56 +183,181 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Création d'un nouveau contrat agraire");
         
         try {
-            ContratAgraire contrat = objectMapper.readValue(contratJson, ContratAgraire.class);
+            ContratAgraire contrat = MesureTransaction.json(context.getStub(),
+                () -> DeterministicMapper.reader(ContratAgraire.class).readValue(contratJson));
+            verifierNouveauContrat(context.getStub(), contrat);
+            preparerNouveauContrat(context.getStub(), contrat);
             
-            if (contrat.getId() == null || contrat.getId().trim().isEmpty()) {
-                throw new ChaincodeException("L'ID du contrat est requis", "INVALID_INPUT");
-            }
+            store.creer(context.getStub(), contrat);
+            ContratIndex.indexer(context.getStub(), contrat);
+            context.getStub().setEvent("ContratCree", contrat.getId().getBytes());
             
-            // Validation: UUID et creationDate DOIVENT être fournis pour garantir le déterminisme
-            if (contrat.getUuid() == null || contrat.getUuid().trim().isEmpty()) {
-                throw new ChaincodeException("L'UUID du contrat est requis pour garantir le déterminisme", "INVALID_INPUT");
-            }
+            logger.info("Contrat créé avec succès: {}", contrat.getId());
+            return contrat;
             
-            if (contrat.getCreationDate() == null) {
-                throw new ChaincodeException("La date de création du contrat est requise pour garantir le déterminisme", "INVALID_INPUT");
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la création du contrat: {}", e.getMessage(), e);
+            throw echec(context, new ChaincodeException("Erreur de création: " + e.getMessage(), "CREATE_ERROR"));
+        }
+    }
+
+    /**
+     * Création groupée (synchronisation des tablettes): chaque contrat est validé comme par creerContrat,
+     * puis tous les enregistrements et index sont écrits dans une seule transaction.
+     * Modes: ALL_OR_NOTHING (défaut) rejette tout le lot au premier contrat invalide,
+     * SKIP_INVALID écrit les contrats valides et signale les autres dans le résultat.
+     * Retourne {mode, crees, rejetes, resultats: [{index, id, statut, code, message}]}.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String creerContratsBatch(final Context context, final String contratsJson, final String mode) {
+        String modeLot = verifierModeLot(context.getStub(), mode);
+        logger.info("Création groupée de contrats (mode: {})", modeLot);
+        
+        try {
+            ChaincodeStub stub = context.getStub();
+            JsonNode lot = lireLot(stub, contratsJson);
+            
+            // Validation de tout le lot avant la première écriture
+            List<ContratAgraire> valides = new ArrayList<>();
+            List<Map<String, Object>> resultats = new ArrayList<>();
+            Set<String> idsDuLot = new HashSet<>();
+            for (int index = 0; index < lot.size(); index++) {
+                Map<String, Object> resultat = new LinkedHashMap<>();
+                resultat.put("index", index);
+                JsonNode id = lot.get(index).get("id");
+                resultat.put("id", id == null || id.isNull() ? null : id.asText());
+                try {
+                    ContratAgraire contrat;
+                    try {
+                        contrat = DeterministicMapper.reader(ContratAgraire.class).readValue(lot.get(index));
+                    } catch (JsonProcessingException e) {
+                        throw new ChaincodeException("Contrat illisible: " + e.getOriginalMessage(), "INVALID_INPUT");
+                    }
+                    verifierNouveauContrat(stub, contrat);
+                    if (!idsDuLot.add(contrat.getId())) {
+                        throw new ChaincodeException("L'ID " + contrat.getId() + " apparaît plusieurs fois dans le lot",
+                            "DUPLICATE_IN_BATCH");
+                    }
+                    valides.add(contrat);
+                    resultat.put("statut", "CREE");
+                } catch (ChaincodeException e) {
+                    if (MODE_ALL_OR_NOTHING.equals(modeLot)) {
+                        throw new ChaincodeException("Contrat à l'index " + index + " invalide: " + e.getMessage(),
+                            new String(e.getPayload(), StandardCharsets.UTF_8));
+                    }
+                    resultat.put("statut", "REJETE");
+                    resultat.put("code", new String(e.getPayload(), StandardCharsets.UTF_8));
+                    resultat.put("message", e.getMessage());
+                }
+                resultats.add(resultat);
             }
             
-            String existingContrat = context.getStub().getStringState(contrat.getId());
-            if (existingContrat != null && !existingContrat.trim().isEmpty()) {
-                throw new ChaincodeException("Le contrat avec l'ID " + contrat.getId() + " existe déjà", "CONTRAT_EXISTS");
+            List<String> idsCrees = new ArrayList<>(valides.size());
+            for (ContratAgraire contrat : valides) {
+                preparerNouveauContrat(stub, contrat);
+                store.creer(stub, contrat);
+                ContratIndex.indexer(stub, contrat);
+                idsCrees.add(contrat.getId());
             }
-            
-            if (contrat.getCodeContract() == null || contrat.getCodeContract().trim().isEmpty()) {
-                contrat.setCodeContract(genererCodeContrat(contrat));
+            // Fabric ne conserve qu'un événement par transaction: un seul événement liste tous les contrats créés
+            if (!idsCrees.isEmpty()) {
+                stub.setEvent("ContratsCrees", DeterministicMapper.writeValueAsBytes(idsCrees));
             }
             
-            // Initialiser le workflow
-            contrat.setStatus("DRAFT");
-            contrat.setModifiable(true);
-            contrat.setDeletable(true);
-            
-            // Créer l'action CREATE
-            WorkflowAction createAction = new WorkflowAction();
-            createAction.setType("CREATE");
-            createAction.setTimestamp(contrat.getCreationDate());
-            createAction.setTransactionId(context.getStub().getTxId());
-            createAction.setNewStatus("DRAFT");
-            contrat.getActions().add(createAction);
-            
-            String contratJsonSave = objectMapper.writeValueAsString(contrat);
-            context.getStub().putStringState(contrat.getId(), contratJsonSave);
-            context.getStub().setEvent("ContratCree", contrat.getId().getBytes());
+            Map<String, Object> reponse = new LinkedHashMap<>();
+            reponse.put("mode", modeLot);
+            reponse.put("crees", idsCrees.size());
+            reponse.put("rejetes", lot.size() - idsCrees.size());
+            reponse.put("resultats", resultats);
             
-            logger.info("Contrat créé avec succès: {}", contrat.getId());
-            return contrat;
+            logger.info("Création groupée terminée: {} créés, {} rejetés", idsCrees.size(), lot.size() - idsCrees.size());
+            return DeterministicMapper.writeValueAsString(reponse);
             
         } catch (ChaincodeException e) {
-            throw e;
+            throw echec(context, e);
         } catch (Exception e) {
-            logger.error("Erreur lors de la création du contrat: {}", e.getMessage(), e);
-            throw new ChaincodeException("Erreur de création: " + e.getMessage(), "CREATE_ERROR");
+            logger.error("Erreur lors de la création groupée: {}", e.getMessage(), e);
+            throw echec(context, new ChaincodeException("Erreur de création: " + e.getMessage(), "CREATE_ERROR"));
+        }
+    }
+
+    private String verifierModeLot(ChaincodeStub stub, String mode) {
+        String modeLot = mode == null || mode.trim().isEmpty() ? MODE_ALL_OR_NOTHING : mode.trim();
+        if (!MODE_ALL_OR_NOTHING.equals(modeLot) && !MODE_SKIP_INVALID.equals(modeLot)) {
+            throw MesureTransaction.echec(stub, new ChaincodeException("Mode inconnu: " + modeLot + " (attendu: "
+                + MODE_ALL_OR_NOTHING + " ou " + MODE_SKIP_INVALID + ")", "INVALID_INPUT"));
+        }
+        return modeLot;
+    }
+
+    private JsonNode lireLot(ChaincodeStub stub, String lotJson) throws IOException {
+        JsonNode lot = MesureTransaction.json(stub, () -> objectMapper.readTree(lotJson));
+        if (lot == null || !lot.isArray() || lot.size() == 0) {
+            throw new ChaincodeException("Un tableau JSON non vide est requis", "INVALID_INPUT");
+        }
+        if (lot.size() > MAX_BATCH_SIZE) {
+            throw new ChaincodeException("Un lot ne peut dépasser " + MAX_BATCH_SIZE + " éléments", "INVALID_INPUT");
+        }
+        return lot;
+    }
+
+    /**
+     * Règles de validation d'un nouveau contrat, communes à creerContrat et creerContratsBatch.
+     */
+    private void verifierNouveauContrat(ChaincodeStub stub, ContratAgraire contrat) {
+        if (contrat.getId() == null || contrat.getId().trim().isEmpty()) {
+            throw new ChaincodeException("L'ID du contrat est requis", "INVALID_INPUT");
+        }
+        
+        // Validation: UUID et creationDate DOIVENT être fournis pour garantir le déterminisme
+        if (contrat.getUuid() == null || contrat.getUuid().trim().isEmpty()) {
+            throw new ChaincodeException("L'UUID du contrat est requis pour garantir le déterminisme", "INVALID_INPUT");
         }
+        
+        if (contrat.getCreationDate() == null) {
+            throw new ChaincodeException("La date de création du contrat est requise pour garantir le déterminisme", "INVALID_INPUT");
+        }
+        
+        if (store.existe(stub, contrat.getId())) {
+            throw new ChaincodeException("Le contrat avec l'ID " + contrat.getId() + " existe déjà", "CONTRAT_EXISTS");
+        }
+        
+        verifierImagesSignature(stub, ImagesSignature.references(contrat));
+    }
+
+    /**
+     * Une référence "sha256:<hex>" soumise à la place d'une image doit désigner une image déjà stockée.
+     */
+    private void verifierImagesSignature(ChaincodeStub stub, Collection<String> references) {
+        for (String reference : references) {
+            if (!ImagesSignature.existe(stub, reference)) {
+                throw new ChaincodeException("Image de signature inconnue: " + reference, "SIGNATURE_IMAGE_NOT_FOUND");
+            }
+        }
+    }
+
+    /**
+     * Code contrat et état initial du workflow (DRAFT, action CREATE).
+     */
+    private void preparerNouveauContrat(ChaincodeStub stub, ContratAgraire contrat) {
+        if (contrat.getCodeContract() == null || contrat.getCodeContract().trim().isEmpty()) {
+            contrat.setCodeContract(generateurCode.generer(stub, contrat.getRegion()));
+        }
+        
+        // Initialiser le workflow
+        contrat.setStatus("DRAFT");
+        contrat.setModifiable(true);
+        contrat.setDeletable(true);
+        
+        // Créer l'action CREATE
+        WorkflowAction createAction = new WorkflowAction();
+        createAction.setType("CREATE");
+        createAction.setTimestamp(contrat.getCreationDate());
+        createAction.setTransactionId(stub.getTxId());
+        createAction.setNewStatus("DRAFT");
+        contrat.getActions().add(createAction);
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
@@ -115,18 +365,325 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Lecture du contrat: {}", contratId);
         
         try {
-            String contratJson = context.getStub().getStringState(contratId);
-            if (contratJson == null || contratJson.trim().isEmpty()) {
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = store.lireEntete(stub, contratId);
+            if (entete != null) {
+                ContratAgraire contrat = store.assembler(stub, entete);
+                contrat.setStatus(statutEffectif(entete));
+                return contrat;
+            }
+            
+            // Contrat pas encore migré: l'agrégat complet est lu tel quel
+            ContratAgraire herite = store.lireHerite(stub, contratId);
+            if (herite == null) {
                 throw new ChaincodeException("Contrat non trouvé: " + contratId, "CONTRAT_NOT_FOUND");
             }
+            return herite;
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la lecture du contrat {}: {}", contratId, e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de lecture: " + e.getMessage(), "READ_ERROR"));
+        }
+    }
+
+    /**
+     * Lecture groupée pour les écrans de liste: idsJson est un tableau d'IDs, champsJson un tableau optionnel
+     * de chemins à retourner ("status", "owner.name", "signatures.partyType", voir JsonProjection); sans
+     * champs, chaque contrat est retourné en entier comme par lireContrat. Les enregistrements qu'aucun
+     * champ demandé ne concerne ne sont pas lus. Retourne {contrats, introuvables}: un ID inconnu est
+     * listé dans introuvables au lieu de faire échouer l'appel.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String lireContrats(final Context context, final String idsJson, final String champsJson) {
+        ChaincodeStub stub = context.getStub();
+        Set<String> ids = new LinkedHashSet<>();
+        List<String> champs = new ArrayList<>();
+        try {
+            for (JsonNode id : lireLot(stub, idsJson)) {
+                if (!id.isTextual() || id.asText().trim().isEmpty()) {
+                    throw new ChaincodeException("Les IDs doivent être des chaînes non vides", "INVALID_INPUT");
+                }
+                ids.add(id.asText());
+            }
+            JsonNode demandes = champsJson == null || champsJson.isBlank() ? null
+                : MesureTransaction.json(stub, () -> objectMapper.readTree(champsJson));
+            if (demandes != null && !demandes.isNull()) {
+                if (!demandes.isArray()) {
+                    throw new ChaincodeException("Les champs doivent être un tableau JSON", "INVALID_INPUT");
+                }
+                demandes.forEach(champ -> champs.add(champ.asText()));
+            }
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            throw echec(context, new ChaincodeException("Paramètres invalides: " + e.getMessage(), "INVALID_INPUT"));
+        }
+        logger.info("Lecture groupée de {} contrats", ids.size());
+        
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            List<String> introuvables = new ArrayList<>();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("contrats");
+                for (String id : ids) {
+                    if (!ecrireContrat(generator, stub, id, champs)) {
+                        introuvables.add(id);
+                    }
+                }
+                generator.writeEndArray();
+                generator.writeObjectField("introuvables", introuvables);
+                generator.writeEndObject();
+            }
+            
+            logger.info("Lecture groupée: {} contrats trouvés, {} introuvables", ids.size() - introuvables.size(),
+                introuvables.size());
+            return out.toString(StandardCharsets.UTF_8);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la lecture groupée: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de lecture: " + e.getMessage(), "READ_ERROR"));
+        }
+    }
+
+    /**
+     * Écrit un contrat de la lecture groupée, en entier ou réduit aux champs demandés (l'ID est toujours écrit).
+     * Retourne false si le contrat n'existe pas.
+     */
+    private boolean ecrireContrat(JsonGenerator generator, ChaincodeStub stub, String id, List<String> champs)
+            throws Exception {
+        ContratEntete entete = store.lireEntete(stub, id);
+        if (champs.isEmpty()) {
+            ContratAgraire contrat;
+            if (entete != null) {
+                contrat = store.assembler(stub, entete);
+                contrat.setStatus(statutEffectif(entete));
+            } else {
+                contrat = store.lireHerite(stub, id);
+                if (contrat == null) {
+                    return false;
+                }
+            }
+            MesureTransaction.json(stub, () -> {
+                generator.writeObject(contrat);
+                return null;
+            });
+            return true;
+        }
+        
+        Map<String, Object> valeurs;
+        if (entete != null) {
+            ContratAgraire contrat = lireParties(stub, entete, champs);
+            valeurs = MesureTransaction.json(stub, () -> JsonProjection.projeter(objectMapper.getFactory(),
+                DeterministicMapper.writeValueAsBytes(contrat), champs));
+        } else {
+            // Contrat pas encore migré: les champs sont extraits de l'agrégat sans le lier
+            valeurs = store.projeterHerite(stub, id, champs);
+            if (valeurs == null) {
+                return false;
+            }
+        }
+        MesureTransaction.json(stub, () -> {
+            generator.writeStartObject();
+            generator.writeStringField("id", id);
+            for (String champ : champs) {
+                if (!"id".equals(champ) && valeurs.containsKey(champ)) {
+                    generator.writeObjectField(champ, valeurs.get(champ));
+                }
+            }
+            generator.writeEndObject();
+            return null;
+        });
+        return true;
+    }
+
+    /**
+     * Contrat limité aux enregistrements concernés par les champs demandés: le corps n'est lu que si un champ
+     * ne vient pas de l'entête, les signatures, actions, approbation et validation que si elles sont demandées.
+     */
+    private ContratAgraire lireParties(ChaincodeStub stub, ContratEntete entete, List<String> champs) throws Exception {
+        Set<String> racines = new HashSet<>();
+        for (String champ : champs) {
+            int point = champ.indexOf('.');
+            racines.add(point < 0 ? champ : champ.substring(0, point));
+        }
+        boolean corps = false;
+        for (String racine : racines) {
+            corps |= !CHAMPS_WORKFLOW.contains(racine);
+        }
+        
+        ContratAgraire contrat = corps ? store.lireCorps(stub, entete) : entete.versContrat();
+        if (racines.contains("signatures")) {
+            contrat.setSignatures(store.lireSignatures(stub, entete.getId()));
+            contrat.getSignatures().addAll(store.lireSignaturesEnAttente(stub, entete));
+        } else if (racines.contains("status")) {
+            // Les signatures déposées peuvent rendre le contrat SIGNED
+            store.lireSignaturesEnAttente(stub, entete);
+        }
+        if (racines.contains("actions")) {
+            contrat.setActions(store.lireActions(stub, entete.getId()));
+        }
+        if (racines.contains("approbation")) {
+            contrat.setApprobation(store.lireApprobation(stub, entete));
+        }
+        if (racines.contains("validation")) {
+            contrat.setValidation(store.lireValidation(stub, entete));
+        }
+        contrat.setStatus(statutEffectif(entete));
+        return contrat;
+    }
+
+    /**
+     * Lecture d'un contrat avec seulement ses n dernières actions: le coût ne dépend pas
+     * de la longueur de l'historique du workflow (voir lireActionsContrat pour le journal complet).
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public ContratAgraire lireContratDernieresActions(final Context context, final String contratId, final int derniersN) {
+        logger.info("Lecture du contrat {} avec ses {} dernières actions", contratId, derniersN);
+        
+        if (derniersN < 0) {
+            throw echec(context, new ChaincodeException("Le nombre d'actions doit être positif ou nul", "INVALID_INPUT"));
+        }
+        
+        try {
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = store.lireEntete(stub, contratId);
+            if (entete != null) {
+                ContratAgraire contrat = store.assembler(stub, entete, derniersN);
+                contrat.setStatus(statutEffectif(entete));
+                return contrat;
+            }
             
-            return objectMapper.readValue(contratJson, ContratAgraire.class);
+            ContratAgraire herite = store.lireHerite(stub, contratId);
+            if (herite == null) {
+                throw new ChaincodeException("Contrat non trouvé: " + contratId, "CONTRAT_NOT_FOUND");
+            }
+            List<WorkflowAction> actions = herite.getActions();
+            herite.setActions(new ArrayList<>(actions.subList(Math.max(0, actions.size() - derniersN), actions.size())));
+            return herite;
         } catch (ChaincodeException e) {
-            throw e;
+            throw echec(context, e);
         } catch (Exception e) {
             logger.error("Erreur lors de la lecture du contrat {}: {}", contratId, e.getMessage());
-            throw new ChaincodeException("Erreur de lecture: " + e.getMessage(), "READ_ERROR");
+            throw echec(context, new ChaincodeException("Erreur de lecture: " + e.getMessage(), "READ_ERROR"));
+        }
+    }
+
+    /**
+     * Journal des actions d'un contrat, paginé dans l'ordre d'ajout: retourne {records, bookmark, fetchedCount}.
+     * Le bookmark vide indique la dernière page.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String lireActionsContrat(final Context context, final String contratId, final int pageSize, final String bookmark) {
+        logger.info("Lecture paginée des actions du contrat {} (taille: {}, bookmark: '{}')", contratId, pageSize, bookmark);
+        
+        verifierTaillePage(context.getStub(), pageSize);
+        
+        try {
+            ChaincodeStub stub = context.getStub();
+            if (store.lireEntete(stub, contratId) == null) {
+                // Contrat pas encore migré: son journal tient dans l'agrégat, retourné en une seule page
+                ContratAgraire herite = store.lireHerite(stub, contratId);
+                if (herite == null) {
+                    throw new ChaincodeException("Contrat non trouvé: " + contratId, "CONTRAT_NOT_FOUND");
+                }
+                Map<String, Object> page = new HashMap<>();
+                page.put("records", herite.getActions());
+                page.put("bookmark", "");
+                page.put("fetchedCount", herite.getActions().size());
+                return DeterministicMapper.writeValueAsString(page);
+            }
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                     LedgerKeys.actions(stub, contratId), pageSize, bookmark == null ? "" : bookmark);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("records");
+                int fetched = 0;
+                for (KeyValue result : results) {
+                    store.copierJson(generator, result.getValue());
+                    fetched++;
+                }
+                generator.writeEndArray();
+                generator.writeStringField("bookmark", results.getMetadata().getBookmark());
+                generator.writeNumberField("fetchedCount", fetched);
+                generator.writeEndObject();
+            }
+            return out.toString(StandardCharsets.UTF_8);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la lecture des actions du contrat {}: {}", contratId, e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de lecture: " + e.getMessage(), "READ_ERROR"));
+        }
+    }
+
+    /**
+     * Entête d'un contrat avant une transition. Un contrat encore stocké dans un format antérieur
+     * est d'abord converti, une seule fois, en enregistrements séparés; les signatures déposées
+     * depuis la dernière transition sont compactées (voir compacterSignatures).
+     */
+    private ContratEntete chargerEntete(ChaincodeStub stub, String contratId) throws Exception {
+        ContratEntete entete = lireOuImporterEntete(stub, contratId);
+        store.initialiserEmpreintes(stub, entete);
+        compacterSignatures(stub, entete);
+        return entete;
+    }
+
+    private ContratEntete lireOuImporterEntete(ChaincodeStub stub, String contratId) throws IOException {
+        ContratEntete entete = store.lireEntete(stub, contratId);
+        if (entete == null) {
+            entete = store.importerHerite(stub, contratId);
+        }
+        if (entete == null) {
+            throw new ChaincodeException("Contrat non trouvé: " + contratId, "CONTRAT_NOT_FOUND");
+        }
+        return entete;
+    }
+
+    /**
+     * Numérote les signatures déposées par ajouterSignature et applique la transition SIGNED si toutes
+     * les signatures requises sont réunies. L'entête est écrit aussitôt: la compaction est acquise même
+     * si la transition qui la déclenche est ensuite refusée (élément rejeté d'un lot SKIP_INVALID).
+     * Retourne true si des signatures ont été intégrées.
+     */
+    private boolean compacterSignatures(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        if (store.compacterSignatures(stub, entete).isEmpty()) {
+            return false;
+        }
+        
+        if ("DRAFT".equals(entete.getStatus()) && hasAllRequiredSignatures(entete)) {
+            entete.setStatus("SIGNED");
+            
+            WorkflowAction signAction = new WorkflowAction();
+            signAction.setType("SIGN");
+            signAction.setTimestamp(horloge.maintenant(stub));
+            signAction.setPreviousStatus("DRAFT");
+            signAction.setNewStatus("SIGNED");
+            signAction.setTransactionId(stub.getTxId());
+            signAction.setComment("Toutes les signatures requises ont été collectées");
+            store.ajouterAction(stub, entete, signAction);
+            ContratIndex.changerStatut(stub, entete.getId(), "DRAFT", "SIGNED");
+            
+            logger.info("Contrat {} complètement signé", entete.getId());
         }
+        store.ecrireEntete(stub, entete);
+        return true;
+    }
+
+    /**
+     * Statut en lecture: un contrat DRAFT dont toutes les signatures requises sont déposées (parties
+     * des signatures en attente déjà reportées dans l'entête) est lu comme SIGNED avant sa compaction.
+     * Les résumés des listes et recherches et les lignes d'export appliquent la même règle (voir ContratStore.statutLu);
+     * les filtres par statut et les statistiques suivent le statut compacté (voir compacterSignaturesEnAttente).
+     */
+    private String statutEffectif(ContratEntete entete) {
+        return "DRAFT".equals(entete.getStatus()) && hasAllRequiredSignatures(entete) ? "SIGNED" : entete.getStatus();
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -134,46 +691,49 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Modification du contrat: {}", contratId);
         
         try {
-            ContratAgraire contratExistant = lireContrat(context, contratId);
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = chargerEntete(stub, contratId);
             
             // Vérifier si le contrat est modifiable
-            if (!contratExistant.isModifiable()) {
+            if (!entete.isModifiable()) {
                 throw new ChaincodeException("Le contrat " + contratId + " ne peut plus être modifié (statut: " + 
-                    contratExistant.getStatus() + ")", "CONTRAT_NOT_MODIFIABLE");
+                    entete.getStatus() + ")", "CONTRAT_NOT_MODIFIABLE");
             }
             
-            ContratAgraire contratModifie = objectMapper.readValue(contratJson, ContratAgraire.class);
-            contratModifie.setId(contratId);
+            ContratAgraire contratExistant = store.lireCorps(stub, entete);
+            ContratAgraire contratModifie = MesureTransaction.json(context.getStub(),
+                () -> DeterministicMapper.reader(ContratAgraire.class).readValue(contratJson));
             contratModifie.setCreationDate(contratExistant.getCreationDate());
             
-            // Préserver le workflow existant
-            contratModifie.setStatus(contratExistant.getStatus());
-            contratModifie.setModifiable(contratExistant.isModifiable());
-            contratModifie.setDeletable(contratExistant.isDeletable());
-            contratModifie.setActions(contratExistant.getActions());
-            contratModifie.setSignatures(contratExistant.getSignatures());
-            contratModifie.setApprobation(contratExistant.getApprobation());
-            contratModifie.setValidation(contratExistant.getValidation());
+            // Préserver le workflow existant: seuls le corps et l'entête sont réécrits
+            entete.appliquer(contratModifie);
+            contratModifie.setActions(new ArrayList<>());
+            contratModifie.setSignatures(new ArrayList<>());
+            contratModifie.setApprobation(null);
+            contratModifie.setValidation(null);
+            verifierImagesSignature(stub, ImagesSignature.references(contratModifie));
+            store.ecrireCorps(stub, entete, contratModifie);
             
             // Ajouter une action MODIFY
             WorkflowAction modifyAction = new WorkflowAction();
             modifyAction.setType("MODIFY");
-            modifyAction.setTimestamp(LocalDateTime.now());
-            modifyAction.setTransactionId(context.getStub().getTxId());
+            modifyAction.setTimestamp(horloge.maintenant(stub));
+            modifyAction.setTransactionId(stub.getTxId());
+            store.ajouterAction(stub, entete, modifyAction);
             contratModifie.getActions().add(modifyAction);
             
-            String contratJsonSave = objectMapper.writeValueAsString(contratModifie);
-            context.getStub().putStringState(contratId, contratJsonSave);
+            store.ecrireEntete(stub, entete);
+            ContratIndex.mettreAJour(stub, contratExistant, contratModifie);
             context.getStub().setEvent("ContratModifie", contratId.getBytes());
             
             logger.info("Contrat modifié avec succès: {}", contratId);
             return contratModifie;
             
         } catch (ChaincodeException e) {
-            throw e;
+            throw echec(context, e);
         } catch (Exception e) {
             logger.error("Erreur lors de la modification du contrat: {}", e.getMessage());
-            throw new ChaincodeException("Erreur de modification: " + e.getMessage(), "UPDATE_ERROR");
+            throw echec(context, new ChaincodeException("Erreur de modification: " + e.getMessage(), "UPDATE_ERROR"));
         }
     }
 
@@ -182,137 +742,233 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Suppression du contrat: {}", contratId);
         
         try {
-            ContratAgraire contrat = lireContrat(context, contratId);
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = chargerEntete(stub, contratId);
             
             // Vérifier si le contrat est supprimable
-            if (!contrat.isDeletable()) {
+            if (!entete.isDeletable()) {
                 throw new ChaincodeException("Le contrat " + contratId + " ne peut pas être supprimé (statut: " + 
-                    contrat.getStatus() + ")", "CONTRAT_NOT_DELETABLE");
+                    entete.getStatus() + ")", "CONTRAT_NOT_DELETABLE");
             }
             
-            Actor actor = objectMapper.readValue(actorJson, Actor.class);
+            Actor actor = DeterministicMapper.reader(Actor.class).readValue(actorJson);
+            String previousStatus = entete.getStatus();
             
             // Soft delete: marquer comme supprimé au lieu de supprimer
-            contrat.setDeletedAt(LocalDateTime.now());
-            contrat.setDeletedBy(actor.getUserId());
-            contrat.setDeletedReason(reason);
-            contrat.setStatus("DELETED");
-            contrat.setModifiable(false);
-            contrat.setDeletable(false);
+            entete.setDeletedAt(horloge.maintenant(stub));
+            entete.setDeletedBy(actor.getUserId());
+            entete.setDeletedReason(reason);
+            entete.setStatus("DELETED");
+            entete.setModifiable(false);
+            entete.setDeletable(false);
             
             // Ajouter une action DELETE
             WorkflowAction deleteAction = new WorkflowAction();
             deleteAction.setType("DELETE");
             deleteAction.setActor(actor);
-            deleteAction.setTimestamp(LocalDateTime.now());
+            deleteAction.setTimestamp(horloge.maintenant(stub));
             deleteAction.setComment(reason);
-            deleteAction.setPreviousStatus(contrat.getStatus());
+            deleteAction.setPreviousStatus(previousStatus);
             deleteAction.setNewStatus("DELETED");
-            deleteAction.setTransactionId(context.getStub().getTxId());
-            contrat.getActions().add(deleteAction);
+            deleteAction.setTransactionId(stub.getTxId());
+            store.ajouterAction(stub, entete, deleteAction);
             
             // Sauvegarder au lieu de supprimer (audit trail)
-            String contratJsonSave = objectMapper.writeValueAsString(contrat);
-            context.getStub().putStringState(contratId, contratJsonSave);
+            store.ecrireEntete(stub, entete);
+            ContratIndex.changerStatut(stub, contratId, previousStatus, "DELETED");
             context.getStub().setEvent("ContratSupprime", contratId.getBytes());
             
             logger.info("Contrat marqué comme supprimé avec succès: {}", contratId);
             
         } catch (ChaincodeException e) {
-            throw e;
+            throw echec(context, e);
         } catch (Exception e) {
             logger.error("Erreur lors de la suppression du contrat: {}", e.getMessage());
-            throw new ChaincodeException("Erreur de suppression: " + e.getMessage(), "DELETE_ERROR");
+            throw echec(context, new ChaincodeException("Erreur de suppression: " + e.getMessage(), "DELETE_ERROR"));
         }
     }
 
+    /**
+     * Dépose la signature d'une partie. L'entête est lu mais pas réécrit: deux parties qui signent
+     * dans le même bloc valident toutes les deux. Le contrat est lu comme SIGNED dès que toutes les
+     * signatures requises sont déposées; la transition est enregistrée par la transition suivante
+     * ou par compacterContrat.
+     */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public ContratAgraire ajouterSignature(final Context context, final String contratId, final String signatureJson) {
         logger.info("Ajout d'une signature pour le contrat: {}", contratId);
         
         try {
-            ContratAgraire contrat = lireContrat(context, contratId);
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = lireOuImporterEntete(stub, contratId);
             
-            if (!"DRAFT".equals(contrat.getStatus()) && !"SIGNED".equals(contrat.getStatus())) {
+            if (!"DRAFT".equals(entete.getStatus()) && !"SIGNED".equals(entete.getStatus())) {
                 throw new ChaincodeException("Les signatures ne peuvent être ajoutées qu'aux contrats en statut DRAFT ou SIGNED", 
                     "INVALID_STATUS");
             }
             
-            PartySignature signature = objectMapper.readValue(signatureJson, PartySignature.class);
-            contrat.getSignatures().add(signature);
-            
-            // Vérifier si toutes les signatures requises sont présentes
-            if (hasAllRequiredSignatures(contrat)) {
-                contrat.setStatus("SIGNED");
-                
-                WorkflowAction signAction = new WorkflowAction();
-                signAction.setType("SIGN");
-                signAction.setTimestamp(LocalDateTime.now());
-                signAction.setPreviousStatus("DRAFT");
-                signAction.setNewStatus("SIGNED");
-                signAction.setTransactionId(context.getStub().getTxId());
-                signAction.setComment("Toutes les signatures requises ont été collectées");
-                contrat.getActions().add(signAction);
-                
-                logger.info("Contrat {} complètement signé", contratId);
+            PartySignature signature = MesureTransaction.json(context.getStub(),
+                () -> DeterministicMapper.reader(PartySignature.class).readValue(signatureJson));
+            if (signature.getPartyType() == null || signature.getPartyType().isBlank()) {
+                throw new ChaincodeException("Le type de partie de la signature est requis", "INVALID_INPUT");
             }
+            if (ImagesSignature.estReference(signature.getSignatureData())) {
+                verifierImagesSignature(stub, Collections.singletonList(signature.getSignatureData()));
+            }
+            store.deposerSignature(stub, contratId, signature);
             
-            String contratJsonSave = objectMapper.writeValueAsString(contrat);
-            context.getStub().putStringState(contratId, contratJsonSave);
+            // La vue retournée ne porte que la signature déposée; son statut ne tient compte que des
+            // signatures déjà compactées et de celle-ci
+            entete.ajouterPartie(signature.getPartyType());
+            ContratAgraire contrat = entete.versContrat();
+            contrat.setStatus(statutEffectif(entete));
+            contrat.getSignatures().add(signature);
             context.getStub().setEvent("SignatureAjoutee", contratId.getBytes());
             
             return contrat;
             
         } catch (ChaincodeException e) {
-            throw e;
+            throw echec(context, e);
         } catch (Exception e) {
             logger.error("Erreur lors de l'ajout de signature: {}", e.getMessage());
-            throw new ChaincodeException("Erreur signature: " + e.getMessage(), "SIGNATURE_ERROR");
+            throw echec(context, new ChaincodeException("Erreur signature: " + e.getMessage(), "SIGNATURE_ERROR"));
         }
     }
 
+    /**
+     * Compaction explicite d'un contrat: numérote ses signatures déposées et enregistre la transition SIGNED
+     * si elles sont toutes réunies. Retourne la vue de workflow.
+     */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public ContratAgraire approuverContrat(final Context context, final String contratId, final String approbationJson) {
-        logger.info("Approbation du contrat: {}", contratId);
+    public ContratAgraire compacterContrat(final Context context, final String contratId) {
+        logger.info("Compaction du contrat: {}", contratId);
         
         try {
-            ContratAgraire contrat = lireContrat(context, contratId);
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = chargerEntete(stub, contratId);
+            return entete.versContrat();
             
-            if (!"SIGNED".equals(contrat.getStatus())) {
-                throw new ChaincodeException("Seuls les contrats signés peuvent être approuvés", "INVALID_STATUS");
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la compaction du contrat {}: {}", contratId, e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de compaction: " + e.getMessage(), "COMPACTION_ERROR"));
+        }
+    }
+
+    /**
+     * Balayage borné des signatures déposées: compacte au plus batchSize contrats, dans l'ordre des clés,
+     * pour que les filtres par statut et les statistiques rejoignent le statut lu. Retourne {compactes, termine};
+     * à rappeler tant que termine est faux. Un dépôt validé dans le même bloc sur la plage parcourue fait
+     * échouer le balayage (lecture fantôme, à relancer), jamais le dépôt.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String compacterSignaturesEnAttente(final Context context, final int batchSize) {
+        logger.info("Compaction des signatures en attente (lot: {})", batchSize);
+        
+        if (batchSize <= 0) {
+            throw echec(context, new ChaincodeException("La taille du lot doit être positive", "INVALID_INPUT"));
+        }
+        
+        try {
+            ChaincodeStub stub = context.getStub();
+            Set<String> contrats = new LinkedHashSet<>();
+            boolean termine = true;
+            try (QueryResultsIterator<KeyValue> results =
+                     stub.getStateByPartialCompositeKey(LedgerKeys.signaturesEnAttente(stub))) {
+                for (KeyValue result : results) {
+                    String contratId = stub.splitCompositeKey(result.getKey()).getAttributes().get(0);
+                    if (!contrats.contains(contratId) && contrats.size() == batchSize) {
+                        termine = false;
+                        break;
+                    }
+                    contrats.add(contratId);
+                }
             }
-            
-            ContractApprobation approbation = objectMapper.readValue(approbationJson, ContractApprobation.class);
-            contrat.setApprobation(approbation);
-            contrat.setStatus("APPROVED");
-            
-            WorkflowAction approveAction = new WorkflowAction();
-            approveAction.setType("APPROVE");
-            Actor approver = new Actor();
-            approver.setUserId(approbation.getApprovedBy());
-            approver.setUserName(approbation.getApproverName());
-            approver.setRole(approbation.getApproverRole());
-            approveAction.setActor(approver);
-            approveAction.setTimestamp(approbation.getApprovedAt());
-            approveAction.setSignature(approbation.getDigitalSignature());
-            approveAction.setPreviousStatus("SIGNED");
-            approveAction.setNewStatus("APPROVED");
-            approveAction.setTransactionId(context.getStub().getTxId());
-            contrat.getActions().add(approveAction);
-            
-            String contratJsonSave = objectMapper.writeValueAsString(contrat);
-            context.getStub().putStringState(contratId, contratJsonSave);
+            for (String contratId : contrats) {
+                chargerEntete(stub, contratId);
+            }
+        
+            Map<String, Object> resultat = new HashMap<>();
+            resultat.put("compactes", contrats.size());
+            resultat.put("termine", termine);
+        
+            logger.info("Contrats compactés: {}", contrats.size());
+            return DeterministicMapper.writeValueAsString(resultat);
+        
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la compaction des signatures en attente: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de compaction: " + e.getMessage(), "COMPACTION_ERROR"));
+        }
+    }
+
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public ContratAgraire approuverContrat(final Context context, final String contratId, final String approbationJson) {
+        logger.info("Approbation du contrat: {}", contratId);
+        
+        try {
+            ContractApprobation approbation = MesureTransaction.json(context.getStub(),
+                () -> DeterministicMapper.reader(ContractApprobation.class).readValue(approbationJson));
+            ContratAgraire contrat = approuver(context.getStub(), contratId, approbation);
             context.getStub().setEvent("ContratApprouve", contratId.getBytes());
             
             logger.info("Contrat approuvé avec succès: {}", contratId);
             return contrat;
             
         } catch (ChaincodeException e) {
-            throw e;
+            throw echec(context, e);
         } catch (Exception e) {
             logger.error("Erreur lors de l'approbation: {}", e.getMessage());
-            throw new ChaincodeException("Erreur approbation: " + e.getMessage(), "APPROVAL_ERROR");
+            throw echec(context, new ChaincodeException("Erreur approbation: " + e.getMessage(), "APPROVAL_ERROR"));
+        }
+    }
+
+    /**
+     * Approbation d'une session CVGFR/Préfet: lot de {contratId, approbation}, voir transitionsGroupees.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String approuverContratsBatch(final Context context, final String lotJson, final String mode) {
+        logger.info("Approbation groupée de contrats");
+        
+        return transitionsGroupees(context.getStub(), lotJson, mode, "approbation", "ContratsApprouves",
+            (stub, contratId, donnees) -> approuver(stub, contratId,
+                DeterministicMapper.reader(ContractApprobation.class).readValue(donnees)));
+    }
+
+    private ContratAgraire approuver(ChaincodeStub stub, String contratId, ContractApprobation approbation) 
+            throws Exception {
+        ContratEntete entete = chargerEntete(stub, contratId);
+        
+        if (!"SIGNED".equals(entete.getStatus())) {
+            throw new ChaincodeException("Seuls les contrats signés peuvent être approuvés", "INVALID_STATUS");
         }
+        
+        store.ecrireApprobation(stub, entete, approbation);
+        entete.setStatus("APPROVED");
+        
+        WorkflowAction approveAction = new WorkflowAction();
+        approveAction.setType("APPROVE");
+        Actor approver = new Actor();
+        approver.setUserId(approbation.getApprovedBy());
+        approver.setUserName(approbation.getApproverName());
+        approver.setRole(approbation.getApproverRole());
+        approveAction.setActor(approver);
+        approveAction.setTimestamp(approbation.getApprovedAt());
+        approveAction.setSignature(approbation.getDigitalSignature());
+        approveAction.setPreviousStatus("SIGNED");
+        approveAction.setNewStatus("APPROVED");
+        approveAction.setTransactionId(stub.getTxId());
+        store.ajouterAction(stub, entete, approveAction);
+        
+        store.ecrireEntete(stub, entete);
+        ContratIndex.changerStatut(stub, contratId, "SIGNED", "APPROVED");
+        
+        ContratAgraire contrat = entete.versContrat();
+        contrat.setApprobation(approbation);
+        contrat.getActions().add(approveAction);
+        return contrat;
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -320,55 +976,157 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Validation finale du contrat: {}", contratId);
         
         try {
-            ContratAgraire contrat = lireContrat(context, contratId);
-            
-            if (!"APPROVED".equals(contrat.getStatus())) {
-                throw new ChaincodeException("Seuls les contrats approuvés peuvent être validés", "INVALID_STATUS");
-            }
+            ContractValidation validation = MesureTransaction.json(context.getStub(),
+                () -> DeterministicMapper.reader(ContractValidation.class).readValue(validationJson));
+            ContratAgraire contrat = valider(context.getStub(), contratId, validation);
+            context.getStub().setEvent("ContratValide", contratId.getBytes());
             
-            ContractValidation validation = objectMapper.readValue(validationJson, ContractValidation.class);
+            logger.info("Contrat validé et scellé avec succès: {}", contratId);
+            return contrat;
             
-            // Vérifier le hash du document
-            if (validation.getDocumentHash() == null || validation.getDocumentHash().isEmpty()) {
-                throw new ChaincodeException("Le hash SHA-256 du document est requis", "MISSING_HASH");
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la validation: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur validation: " + e.getMessage(), "VALIDATION_ERROR"));
+        }
+    }
+
+    /**
+     * Validation finale groupée: lot de {contratId, validation}, voir transitionsGroupees.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String validerContratsBatch(final Context context, final String lotJson, final String mode) {
+        logger.info("Validation groupée de contrats");
+        
+        return transitionsGroupees(context.getStub(), lotJson, mode, "validation", "ContratsValides",
+            (stub, contratId, donnees) -> valider(stub, contratId,
+                DeterministicMapper.reader(ContractValidation.class).readValue(donnees)));
+    }
+
+    private ContratAgraire valider(ChaincodeStub stub, String contratId, ContractValidation validation) 
+            throws Exception {
+        ContratEntete entete = chargerEntete(stub, contratId);
+        
+        if (!"APPROVED".equals(entete.getStatus())) {
+            throw new ChaincodeException("Seuls les contrats approuvés peuvent être validés", "INVALID_STATUS");
+        }
+        
+        // Vérifier le hash du document
+        if (validation.getDocumentHash() == null || validation.getDocumentHash().isEmpty()) {
+            throw new ChaincodeException("Le hash SHA-256 du document est requis", "MISSING_HASH");
+        }
+        
+        if (validation.getDigitalSignature() == null || validation.getDigitalSignature().isEmpty()) {
+            throw new ChaincodeException("La signature ECDSA est requise", "MISSING_SIGNATURE");
+        }
+        
+        store.ecrireValidation(stub, entete, validation);
+        entete.setStatus("VALIDATED");
+        entete.setModifiable(false); // Plus de modification possible
+        entete.setDeletable(false); // Plus de suppression possible
+        
+        WorkflowAction validateAction = new WorkflowAction();
+        validateAction.setType("VALIDATE");
+        Actor validator = new Actor();
+        validator.setUserId(validation.getValidatedBy());
+        validator.setUserName(validation.getValidatorName());
+        validator.setRole("VALIDATOR");
+        validateAction.setActor(validator);
+        validateAction.setTimestamp(validation.getValidatedAt());
+        validateAction.setSignature(validation.getDigitalSignature());
+        validateAction.setPreviousStatus("APPROVED");
+        validateAction.setNewStatus("VALIDATED");
+        validateAction.setTransactionId(stub.getTxId());
+        validateAction.setComment("Document hash: " + validation.getDocumentHash());
+        store.ajouterAction(stub, entete, validateAction);
+        
+        store.ecrireEntete(stub, entete);
+        ContratIndex.changerStatut(stub, contratId, "APPROVED", "VALIDATED");
+        
+        ContratAgraire contrat = entete.versContrat();
+        contrat.setValidation(validation);
+        contrat.getActions().add(validateAction);
+        return contrat;
+    }
+
+    /**
+     * Transition appliquée à un contrat d'un lot, avec les données déjà extraites du JSON du lot.
+     */
+    private interface TransitionUnitaire {
+        ContratAgraire appliquer(ChaincodeStub stub, String contratId, JsonNode donnees) throws Exception;
+    }
+
+    /**
+     * Applique une transition à chaque élément {contratId, <champ>} d'un lot, dans une seule transaction,
+     * avec les mêmes contrôles de statut et la même action de workflow que la transition unitaire.
+     * Le lot est parsé une seule fois; un contrat ne peut apparaître qu'une fois par lot: ses lectures par
+     * clé verraient la transition précédente (CacheTransaction), mais pas ses parcours, qui ne voient que
+     * l'état validé (une seconde compaction reprendrait les signatures en attente déjà intégrées).
+     * Politique d'échec: voir creerContratsBatch.
+     * Un seul événement liste les contrats traités. Retourne {mode, traites, rejetes, resultats}.
+     */
+    private String transitionsGroupees(ChaincodeStub stub, String lotJson, String mode, String champ, 
+                                       String evenement, TransitionUnitaire transition) {
+        String modeLot = verifierModeLot(stub, mode);
+        
+        try {
+            JsonNode lot = lireLot(stub, lotJson);
+            List<Map<String, Object>> resultats = new ArrayList<>();
+            List<String> idsTraites = new ArrayList<>();
+            Set<String> idsDuLot = new HashSet<>();
+            for (int index = 0; index < lot.size(); index++) {
+                Map<String, Object> resultat = new LinkedHashMap<>();
+                resultat.put("index", index);
+                String contratId = lot.get(index).path("contratId").asText("");
+                resultat.put("contratId", contratId);
+                try {
+                    if (contratId.isEmpty() || !lot.get(index).path(champ).isObject()) {
+                        throw new ChaincodeException("Chaque élément doit porter contratId et " + champ, "INVALID_INPUT");
+                    }
+                    if (!idsDuLot.add(contratId)) {
+                        throw new ChaincodeException("Le contrat " + contratId + " apparaît plusieurs fois dans le lot",
+                            "DUPLICATE_IN_BATCH");
+                    }
+                    try {
+                        resultat.put("status", transition.appliquer(stub, contratId, lot.get(index).get(champ)).getStatus());
+                    } catch (JsonProcessingException e) {
+                        throw new ChaincodeException("Données illisibles: " + e.getOriginalMessage(), "INVALID_INPUT");
+                    }
+                    idsTraites.add(contratId);
+                    resultat.put("statut", "TRAITE");
+                } catch (ChaincodeException e) {
+                    // Les contrôles précèdent les écritures de la transition: un élément rejeté n'a pas changé de statut
+                    if (MODE_ALL_OR_NOTHING.equals(modeLot)) {
+                        throw new ChaincodeException("Élément à l'index " + index + " invalide: " + e.getMessage(),
+                            new String(e.getPayload(), StandardCharsets.UTF_8));
+                    }
+                    resultat.put("statut", "REJETE");
+                    resultat.put("code", new String(e.getPayload(), StandardCharsets.UTF_8));
+                    resultat.put("message", e.getMessage());
+                }
+                resultats.add(resultat);
             }
             
-            if (validation.getDigitalSignature() == null || validation.getDigitalSignature().isEmpty()) {
-                throw new ChaincodeException("La signature ECDSA est requise", "MISSING_SIGNATURE");
+            if (!idsTraites.isEmpty()) {
+                stub.setEvent(evenement, DeterministicMapper.writeValueAsBytes(idsTraites));
             }
             
-            contrat.setValidation(validation);
-            contrat.setStatus("VALIDATED");
-            contrat.setModifiable(false); // Plus de modification possible
-            contrat.setDeletable(false); // Plus de suppression possible
-            
-            WorkflowAction validateAction = new WorkflowAction();
-            validateAction.setType("VALIDATE");
-            Actor validator = new Actor();
-            validator.setUserId(validation.getValidatedBy());
-            validator.setUserName(validation.getValidatorName());
-            validator.setRole("VALIDATOR");
-            validateAction.setActor(validator);
-            validateAction.setTimestamp(validation.getValidatedAt());
-            validateAction.setSignature(validation.getDigitalSignature());
-            validateAction.setPreviousStatus("APPROVED");
-            validateAction.setNewStatus("VALIDATED");
-            validateAction.setTransactionId(context.getStub().getTxId());
-            validateAction.setComment("Document hash: " + validation.getDocumentHash());
-            contrat.getActions().add(validateAction);
-            
-            String contratJsonSave = objectMapper.writeValueAsString(contrat);
-            context.getStub().putStringState(contratId, contratJsonSave);
-            context.getStub().setEvent("ContratValide", contratId.getBytes());
+            Map<String, Object> reponse = new LinkedHashMap<>();
+            reponse.put("mode", modeLot);
+            reponse.put("traites", idsTraites.size());
+            reponse.put("rejetes", lot.size() - idsTraites.size());
+            reponse.put("resultats", resultats);
             
-            logger.info("Contrat validé et scellé avec succès: {}", contratId);
-            return contrat;
+            logger.info("Lot traité: {} contrats, {} rejetés", idsTraites.size(), lot.size() - idsTraites.size());
+            return DeterministicMapper.writeValueAsString(reponse);
             
         } catch (ChaincodeException e) {
-            throw e;
+            throw MesureTransaction.echec(stub, e);
         } catch (Exception e) {
-            logger.error("Erreur lors de la validation: {}", e.getMessage());
-            throw new ChaincodeException("Erreur validation: " + e.getMessage(), "VALIDATION_ERROR");
+            logger.error("Erreur lors du traitement du lot: {}", e.getMessage());
+            throw MesureTransaction.echec(stub, new ChaincodeException("Erreur de traitement du lot: " + e.getMessage(),
+                "BATCH_ERROR"));
         }
     }
 
@@ -377,35 +1135,76 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Rejet du contrat: {}", contratId);
         
         try {
-            ContratAgraire contrat = lireContrat(context, contratId);
-            Actor actor = objectMapper.readValue(actorJson, Actor.class);
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = chargerEntete(stub, contratId);
+            Actor actor = DeterministicMapper.reader(Actor.class).readValue(actorJson);
             
-            String previousStatus = contrat.getStatus();
-            contrat.setStatus("REJECTED");
-            contrat.setModifiable(true); // Permettre la modification après rejet
+            String previousStatus = entete.getStatus();
+            entete.setStatus("REJECTED");
+            entete.setModifiable(true); // Permettre la modification après rejet
             
             WorkflowAction rejectAction = new WorkflowAction();
             rejectAction.setType("REJECT");
             rejectAction.setActor(actor);
-            rejectAction.setTimestamp(LocalDateTime.now());
+            rejectAction.setTimestamp(horloge.maintenant(stub));
             rejectAction.setComment(reason);
             rejectAction.setPreviousStatus(previousStatus);
             rejectAction.setNewStatus("REJECTED");
-            rejectAction.setTransactionId(context.getStub().getTxId());
-            contrat.getActions().add(rejectAction);
+            rejectAction.setTransactionId(stub.getTxId());
+            store.ajouterAction(stub, entete, rejectAction);
             
-            String contratJsonSave = objectMapper.writeValueAsString(contrat);
-            context.getStub().putStringState(contratId, contratJsonSave);
+            store.ecrireEntete(stub, entete);
+            ContratIndex.changerStatut(stub, contratId, previousStatus, "REJECTED");
             context.getStub().setEvent("ContratRejete", contratId.getBytes());
             
             logger.info("Contrat rejeté: {}", contratId);
+            ContratAgraire contrat = entete.versContrat();
+            contrat.getActions().add(rejectAction);
             return contrat;
             
         } catch (ChaincodeException e) {
-            throw e;
+            throw echec(context, e);
         } catch (Exception e) {
             logger.error("Erreur lors du rejet: {}", e.getMessage());
-            throw new ChaincodeException("Erreur rejet: " + e.getMessage(), "REJECT_ERROR");
+            throw echec(context, new ChaincodeException("Erreur rejet: " + e.getMessage(), "REJECT_ERROR"));
+        }
+    }
+
+    /**
+     * État du workflow seul (statut, drapeaux, parties ayant signé), pour les contrôles côté client:
+     * ni le corps, ni les signatures numérotées, ni les actions ne sont lus ou liés. Les signatures
+     * déposées et pas encore compactées comptent.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String lireStatutContrat(final Context context, final String contratId) {
+        logger.info("Lecture du statut du contrat: {}", contratId);
+        
+        try {
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = store.lireEntete(stub, contratId);
+            if (entete == null) {
+                Map<String, Object> champs = store.projeterHerite(stub, contratId, ContratStore.CHAMPS_ENTETE_HERITE);
+                if (champs == null) {
+                    throw new ChaincodeException("Contrat non trouvé: " + contratId, "CONTRAT_NOT_FOUND");
+                }
+                entete = ContratEntete.depuisProjection(champs);
+            } else {
+                store.lireSignaturesEnAttente(stub, entete);
+            }
+            
+            Map<String, Object> statut = new HashMap<>();
+            statut.put("contratId", contratId);
+            statut.put("status", statutEffectif(entete));
+            statut.put("isModifiable", entete.isModifiable());
+            statut.put("isDeletable", entete.isDeletable());
+            statut.put("signatureParties", entete.getSignatureParties());
+            return DeterministicMapper.writeValueAsString(statut);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la lecture du statut du contrat {}: {}", contratId, e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de lecture: " + e.getMessage(), "READ_ERROR"));
         }
     }
 
@@ -414,50 +1213,221 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Vérification de l'intégrité du contrat: {}", contratId);
         
         try {
-            ContratAgraire contrat = lireContrat(context, contratId);
+            // Les empreintes des enregistrements stockés sont recalculées et comparées à celles de l'entête;
+            // preuveContrat vérifie un contrat scellé sans relire ses enregistrements
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = store.lireEntete(stub, contratId);
+            boolean migre = entete != null;
+            ContractValidation validation;
+            Set<String> images = Collections.emptySet();
+            if (migre) {
+                validation = store.lireValidation(stub, entete);
+                ContratAgraire contrat = store.lireCorps(stub, entete);
+                contrat.setSignatures(store.lireSignatures(stub, contratId));
+                contrat.getSignatures().addAll(store.lireSignaturesEnAttente(stub, entete));
+                images = ImagesSignature.references(contrat);
+            } else {
+                // Contrat pas encore migré: seuls les champs utiles de l'agrégat sont lus
+                Map<String, Object> champs = store.projeterHerite(stub, contratId, ContratStore.CHAMPS_ENTETE_HERITE);
+                if (champs == null) {
+                    throw new ChaincodeException("Contrat non trouvé: " + contratId, "CONTRAT_NOT_FOUND");
+                }
+                entete = ContratEntete.depuisProjection(champs);
+                validation = champs.get("validation") == null ? null
+                    : DeterministicMapper.reader(ContractValidation.class).readValue((JsonNode) champs.get("validation"));
+            }
             Map<String, Object> verification = new HashMap<>();
             
             verification.put("contratId", contratId);
-            verification.put("status", contrat.getStatus());
-            verification.put("isModifiable", contrat.isModifiable());
-            verification.put("isDeletable", contrat.isDeletable());
-            verification.put("nombreSignatures", contrat.getSignatures().size());
-            verification.put("aApprobation", contrat.getApprobation() != null);
-            verification.put("aValidation", contrat.getValidation() != null);
-            verification.put("nombreActions", contrat.getActions().size());
+            verification.put("status", entete.getStatus());
+            verification.put("isModifiable", entete.isModifiable());
+            verification.put("isDeletable", entete.isDeletable());
+            verification.put("nombreSignatures", entete.getSignatureCount());
+            verification.put("aApprobation", entete.isHasApprobation());
+            verification.put("aValidation", entete.isHasValidation());
+            verification.put("nombreActions", entete.getActionCount());
+            
+            if (validation != null) {
+                verification.put("documentHash", validation.getDocumentHash());
+                verification.put("signatureAlgorithm", validation.getSignatureAlgorithm());
+                verification.put("validatedBy", validation.getValidatorName());
+                verification.put("validatedAt", validation.getValidatedAt());
+                verification.put("blockchainTimestamp", validation.getBlockchainTimestamp());
+            }
             
-            if (contrat.getValidation() != null) {
-                verification.put("documentHash", contrat.getValidation().getDocumentHash());
-                verification.put("signatureAlgorithm", contrat.getValidation().getSignatureAlgorithm());
-                verification.put("validatedBy", contrat.getValidation().getValidatorName());
-                verification.put("validatedAt", contrat.getValidation().getValidatedAt());
-                verification.put("blockchainTimestamp", contrat.getValidation().getBlockchainTimestamp());
+            // Chaque image référencée doit être stockée et avoir encore l'empreinte de sa référence
+            List<String> imagesAlterees = new ArrayList<>();
+            for (String reference : images) {
+                if (!ImagesSignature.intacte(stub, reference)) {
+                    imagesAlterees.add(reference);
+                }
+            }
+            verification.put("imagesSignatureVerifiees", images.size());
+            if (!imagesAlterees.isEmpty()) {
+                verification.put("imagesSignatureAlterees", imagesAlterees);
+            }
+            
+            boolean calculees = migre && entete.getHashVersion() >= ContratEntete.VERSION_EMPREINTES;
+            List<String> enregistrementsAlteres = Collections.emptyList();
+            if (calculees) {
+                enregistrementsAlteres = store.empreintesAlterees(stub, entete);
+                verification.put("empreinte", entete.empreinte());
+                if (!enregistrementsAlteres.isEmpty()) {
+                    verification.put("enregistrementsAlteres", enregistrementsAlteres);
+                }
+            }
+            boolean preuveValide = true;
+            if (migre && entete.getMerkleIndex() != null) {
+                Map<String, Object> preuve = preuveMerkle(stub, entete);
+                verification.put("preuveMerkle", preuve);
+                preuveValide = Boolean.TRUE.equals(preuve.get("valide"));
             }
             
-            verification.put("integrite", "OK");
-            verification.put("message", "Contrat vérifié avec succès");
+            if (!imagesAlterees.isEmpty() || !enregistrementsAlteres.isEmpty() || !preuveValide) {
+                verification.put("integrite", "ALTEREE");
+                verification.put("message", "Contrat altéré: " + enregistrementsAlteres.size() + " enregistrement(s), "
+                    + imagesAlterees.size() + " image(s) de signature" + (preuveValide ? "" : ", preuve de Merkle invalide"));
+            } else if (!calculees) {
+                verification.put("integrite", "NON_CALCULEE");
+                verification.put("message", "Empreintes pas encore calculées: elles le seront à la prochaine transition");
+            } else {
+                verification.put("integrite", "OK");
+                verification.put("message", "Contrat vérifié avec succès");
+            }
             
-            return objectMapper.writeValueAsString(verification);
+            return DeterministicMapper.writeValueAsString(verification);
             
         } catch (Exception e) {
             logger.error("Erreur lors de la vérification: {}", e.getMessage());
-            throw new ChaincodeException("Erreur vérification: " + e.getMessage(), "VERIFICATION_ERROR");
+            throw echec(context, new ChaincodeException("Erreur vérification: " + e.getMessage(),
+                "VERIFICATION_ERROR"));
         }
     }
 
-    private boolean hasAllRequiredSignatures(ContratAgraire contrat) {
-        boolean hasOwner = false;
-        boolean hasBeneficiary = false;
+    /**
+     * Preuve d'inclusion d'un contrat scellé dans son arbre de Merkle régional, pour sa dernière feuille
+     * (validation, ou dernier changement après validation), pour une vérification publique: seuls l'entête et O(log n) nœuds de l'arbre sont lus. Le vérificateur recalcule
+     * la racine à partir de la feuille (SHA-256(0x00 || empreinte)) et du chemin (RFC 9162, 2.1.3.2) et la
+     * compare à une racine publiée (racineMerkle).
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String preuveContrat(final Context context, final String contratId) {
+        logger.info("Preuve d'inclusion du contrat: {}", contratId);
         
-        for (PartySignature sig : contrat.getSignatures()) {
-            if ("OWNER".equals(sig.getPartyType())) {
-                hasOwner = true;
-            } else if ("BENEFICIARY".equals(sig.getPartyType())) {
-                hasBeneficiary = true;
+        try {
+            ChaincodeStub stub = context.getStub();
+            ContratEntete entete = store.lireEntete(stub, contratId);
+            if (entete == null && store.lireHeriteBrut(stub, contratId) == null) {
+                throw new ChaincodeException("Contrat non trouvé: " + contratId, "CONTRAT_NOT_FOUND");
+            }
+            if (entete == null || entete.getMerkleIndex() == null) {
+                throw new ChaincodeException("Le contrat " + contratId + " n'est pas scellé", "CONTRAT_NOT_SEALED");
+            }
+            
+            Map<String, Object> preuve = new LinkedHashMap<>();
+            preuve.put("contratId", contratId);
+            preuve.put("empreinte", entete.empreinte());
+            preuve.putAll(preuveMerkle(stub, entete));
+            return DeterministicMapper.writeValueAsString(preuve);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors du calcul de la preuve du contrat {}: {}", contratId, e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur vérification: " + e.getMessage(),
+                "VERIFICATION_ERROR"));
+        }
+    }
+
+    /**
+     * Taille et racine courantes des arbres de Merkle d'une région, un par fragment, à publier pour les
+     * vérifications: {region, arbres: [{arbre, taille, racine}]}. Une preuve désigne son arbre.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String racineMerkle(final Context context, final String region) {
+        try {
+            ChaincodeStub stub = context.getStub();
+            ArbreMerkleRegion arbres = store.arbres();
+            List<Map<String, Object>> racines = new ArrayList<>();
+            for (int fragment = 0; fragment < ArbreMerkleRegion.NOMBRE_FRAGMENTS; fragment++) {
+                String arbre = ArbreMerkleRegion.arbre(region, fragment);
+                long taille = arbres.taille(stub, arbre);
+                
+                Map<String, Object> racine = new LinkedHashMap<>();
+                racine.put("arbre", arbre);
+                racine.put("taille", taille);
+                // Racine d'un arbre vide: SHA-256 de la chaîne vide (RFC 6962)
+                racine.put("racine", Hashes.hex(taille == 0 ? Hashes.sha256(new byte[0]) : arbres.racine(stub, arbre, taille)));
+                racines.add(racine);
             }
+            
+            Map<String, Object> resultat = new LinkedHashMap<>();
+            resultat.put("region", ArbreMerkleRegion.region(region));
+            resultat.put("arbres", racines);
+            return DeterministicMapper.writeValueAsString(resultat);
+            
+        } catch (Exception e) {
+            logger.error("Erreur lors du calcul de la racine de Merkle {}: {}", region, e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur vérification: " + e.getMessage(),
+                "VERIFICATION_ERROR"));
         }
+    }
+
+    /**
+     * Chemin d'inclusion d'un contrat scellé dans l'arbre courant de sa région, vérifié contre la racine
+     * et contre la feuille calculée depuis l'entête.
+     */
+    private Map<String, Object> preuveMerkle(ChaincodeStub stub, ContratEntete entete) {
+        ArbreMerkleRegion arbres = store.arbres();
+        String arbre = entete.getMerkleRegion();
+        long index = entete.getMerkleIndex();
+        long taille = arbres.taille(stub, arbre);
+        byte[] feuille = ArbreMerkleRegion.feuille(entete.empreinte());
+        List<byte[]> chemin = arbres.preuve(stub, arbre, index, taille);
+        byte[] racine = arbres.racine(stub, arbre, taille);
         
-        return hasOwner && hasBeneficiary;
+        Map<String, Object> preuve = new LinkedHashMap<>();
+        preuve.put("arbre", arbre);
+        preuve.put("index", index);
+        preuve.put("taille", taille);
+        preuve.put("feuille", Hashes.hex(feuille));
+        List<String> cheminHex = new ArrayList<>();
+        for (byte[] voisin : chemin) {
+            cheminHex.add(Hashes.hex(voisin));
+        }
+        preuve.put("chemin", cheminHex);
+        preuve.put("racine", Hashes.hex(racine));
+        preuve.put("valide", Arrays.equals(feuille, arbres.feuilleStockee(stub, arbre, index))
+            && ArbreMerkleRegion.verifier(feuille, index, taille, chemin, racine));
+        return preuve;
+    }
+
+    /**
+     * Image de signature désignée par sa référence "sha256:<hex>", telle qu'elle a été soumise.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String lireImageSignature(final Context context, final String reference) {
+        try {
+            if (!ImagesSignature.estReference(reference)) {
+                throw new ChaincodeException("Référence d'image invalide: " + reference, "INVALID_INPUT");
+            }
+            byte[] image = ImagesSignature.lire(context.getStub(), reference);
+            if (image == null) {
+                throw new ChaincodeException("Image de signature inconnue: " + reference, "SIGNATURE_IMAGE_NOT_FOUND");
+            }
+            return new String(image, StandardCharsets.UTF_8);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la lecture de l'image {}: {}", reference, e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de lecture: " + e.getMessage(), "READ_ERROR"));
+        }
+    }
+
+    private boolean hasAllRequiredSignatures(ContratEntete entete) {
+        // Les types de parties ayant signé sont tenus à jour dans l'entête
+        return ContratEntete.signaturesReunies(entete.getSignatureParties());
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
@@ -465,32 +1435,257 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Listing de tous les contrats");
         
         try {
-            List<ContratAgraire> contrats = new ArrayList<>();
-            QueryResultsIterator<KeyValue> results = context.getStub().getStateByRange("", "");
+            // Résumés construits à partir des entêtes et des corps, sans lire signatures ni actions
+            ChaincodeStub stub = context.getStub();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int count;
+            try (QueryResultsIterator<KeyValue> results =
+                     stub.getStateByPartialCompositeKey(LedgerKeys.entetes(stub));
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                count = ecrireContrats(generator, stub, results);
+                generator.writeEndArray();
+            }
+            
+            logger.info("Nombre de contrats trouvés: {}", count);
+            return out.toString(StandardCharsets.UTF_8);
+            
+        } catch (Exception e) {
+            logger.error("Erreur lors du listing des contrats: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de listing: " + e.getMessage(), "LIST_ERROR"));
+        }
+    }
+
+    /**
+     * Listing paginé: retourne {records, bookmark, fetchedCount}. Le bookmark vide indique la dernière page.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String listerContratsPagine(final Context context, final int pageSize, final String bookmark) {
+        logger.info("Listing paginé des contrats (taille: {}, bookmark: '{}')", pageSize, bookmark);
+        
+        verifierTaillePage(context.getStub(), pageSize);
+        
+        ChaincodeStub stub = context.getStub();
+        try (QueryResultsIteratorWithMetadata<KeyValue> results = stub
+                 .getStateByPartialCompositeKeyWithPagination(LedgerKeys.entetes(stub), pageSize,
+                     bookmark == null ? "" : bookmark)) {
+            return ecrirePage(stub, results);
             
+        } catch (Exception e) {
+            logger.error("Erreur lors du listing paginé des contrats: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de listing: " + e.getMessage(), "LIST_ERROR"));
+        }
+    }
+
+    /**
+     * Recherche multi-critères sur les entêtes (requête Mango, world state CouchDB uniquement).
+     * Filtres acceptés: status, region, village, type, idufci, creationDateDebut, creationDateFin,
+     * et "champs" pour choisir les champs retournés (l'ID est toujours retourné). Le filtre status porte sur
+     * le statut compacté, sur l'index; le statut retourné est le statut lu (voir ContratStore.statutLu).
+     * Retourne {records, bookmark, fetchedCount}.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String rechercherContrats(final Context context, final String filtresJson, final int pageSize, final String bookmark) {
+        logger.info("Recherche multi-critères (taille: {}, bookmark: '{}')", pageSize, bookmark);
+        
+        verifierTaillePage(context.getStub(), pageSize);
+        
+        String requete;
+        try {
+            requete = RechercheMango.requete(filtresJson == null || filtresJson.isBlank()
+                ? null : objectMapper.readTree(filtresJson));
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw echec(context, new ChaincodeException("Filtres invalides: " + e.getMessage(), "INVALID_INPUT"));
+        }
+        
+        ChaincodeStub stub = context.getStub();
+        try (QueryResultsIteratorWithMetadata<KeyValue> results = stub
+                 .getQueryResultWithPagination(requete, pageSize, bookmark == null ? "" : bookmark)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("records");
+                int fetched = 0;
+                for (KeyValue result : results) {
+                    // Document déjà réduit aux champs demandés par CouchDB; le statut d'un contrat DRAFT
+                    // est remplacé par le statut lu
+                    String document = result.getStringValue();
+                    ObjectNode projete = document.contains("\"DRAFT\"") ? (ObjectNode) objectMapper.readTree(document) : null;
+                    ContratEntete entete = projete != null && "DRAFT".equals(projete.path("status").asText())
+                        ? store.lireEntete(stub, projete.path("id").asText()) : null;
+                    if (entete != null) {
+                        projete.put("status", store.statutLu(stub, entete));
+                        generator.writeTree(projete);
+                    } else {
+                        generator.writeRawValue(document);
+                    }
+                    fetched++;
+                }
+                generator.writeEndArray();
+                generator.writeStringField("bookmark", results.getMetadata().getBookmark());
+                generator.writeNumberField("fetchedCount", fetched);
+                generator.writeEndObject();
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche multi-critères: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de recherche: " + e.getMessage(), "SEARCH_ERROR"));
+        }
+    }
+
+    /**
+     * Export à plat pour le reporting (voir ExportContrats): une page de contrats, d'une région ou de tout
+     * le registre, en NDJSON (défaut) ou CSV. Retourne {format, colonnes, donnees, bookmark, fetchedCount}:
+     * donnees contient les lignes de la page, à concaténer d'une page à l'autre; en CSV, seule la première
+     * page (bookmark vide) commence par la ligne d'entête. Les contrats pas encore migrés ne sont pas
+     * exportés (migrerEspacesDeCles).
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String exporterContrats(final Context context, final String region, final String format,
+                                   final int pageSize, final String bookmark) {
+        logger.info("Export des contrats (région: '{}', format: {}, taille: {}, bookmark: '{}')", region, format, pageSize, bookmark);
+        
+        verifierTaillePage(context.getStub(), pageSize);
+        
+        ExportContrats.Format sortie;
+        try {
+            sortie = ExportContrats.format(format);
+        } catch (IllegalArgumentException e) {
+            throw echec(context, new ChaincodeException(e.getMessage(), "INVALID_INPUT"));
+        }
+        
+        ChaincodeStub stub = context.getStub();
+        boolean parRegion = region != null && !region.isBlank();
+        String debut = bookmark == null ? "" : bookmark;
+        CompositeKey cle = parRegion
+            ? ContratIndex.clePartielle(stub, ContratIndex.LOCALITE, ContratIndex.normaliser(region))
+            : LedgerKeys.entetes(stub);
+        try (QueryResultsIteratorWithMetadata<KeyValue> results =
+                 stub.getStateByPartialCompositeKeyWithPagination(cle, pageSize, debut)) {
+            StringWriter donnees = new StringWriter();
+            if (sortie == ExportContrats.Format.CSV && debut.isEmpty()) {
+                ExportContrats.ecrireEnteteCsv(donnees);
+            }
+            int fetched = 0;
             for (KeyValue result : results) {
-                String key = result.getKey();
-                String value = result.getStringValue();
-                
-                if (key.equals("CHAINCODE_METADATA")) {
+                ContratEntete entete = parRegion
+                    ? store.lireEntete(stub, ContratIndex.contratId(stub, result.getKey()))
+                    : DeterministicMapper.reader(ContratEntete.class).readValue(result.getValue());
+                if (entete == null) {
                     continue;
                 }
-                
-                try {
-                    ContratAgraire contrat = objectMapper.readValue(value, ContratAgraire.class);
-                    contrats.add(contrat);
-                } catch (Exception e) {
-                    logger.warn("Impossible de parser le contrat {}: {}", key, e.getMessage());
+                Map<String, Object> ligne = ExportContrats.ligne(entete,
+                    store.statutLu(stub, entete),
+                    store.projeterCorps(stub, entete, ExportContrats.CHAMPS_CORPS));
+                if (sortie == ExportContrats.Format.CSV) {
+                    ExportContrats.ecrireLigneCsv(donnees, ligne);
+                } else {
+                    ExportContrats.ecrireLigneNdjson(objectMapper.getFactory(), donnees, ligne);
+                }
+                fetched++;
+            }
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeStringField("format", sortie.name());
+                generator.writeArrayFieldStart("colonnes");
+                for (String colonne : ExportContrats.COLONNES) {
+                    generator.writeString(colonne);
                 }
+                generator.writeEndArray();
+                generator.writeStringField("donnees", donnees.toString());
+                generator.writeStringField("bookmark", results.getMetadata().getBookmark());
+                generator.writeNumberField("fetchedCount", fetched);
+                generator.writeEndObject();
             }
+            return out.toString(StandardCharsets.UTF_8);
             
-            logger.info("Nombre de contrats trouvés: {}", contrats.size());
-            return objectMapper.writeValueAsString(contrats);
+        } catch (Exception e) {
+            logger.error("Erreur lors de l'export des contrats: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur d'export: " + e.getMessage(), "EXPORT_ERROR"));
+        }
+    }
+
+    /**
+     * Statistiques des tableaux de bord: nombre de contrats et surface totale, au total et par région,
+     * statut et type. Additionne les fragments des compteurs et les variations pas encore compactées,
+     * sans parcourir les contrats. Le statut compté est le statut compacté: un contrat dont les dernières
+     * signatures sont encore déposées reste compté DRAFT jusqu'à sa compaction (compacterSignaturesEnAttente).
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String statistiques(final Context context) {
+        logger.info("Lecture des statistiques des contrats");
+        
+        try {
+            return DeterministicMapper.writeValueAsString(store.statistiques().lire(context.getStub()));
             
         } catch (Exception e) {
-            logger.error("Erreur lors du listing des contrats: {}", e.getMessage());
-            throw new ChaincodeException("Erreur de listing: " + e.getMessage(), "LIST_ERROR");
+            logger.error("Erreur lors de la lecture des statistiques: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de lecture des statistiques: " + e.getMessage(),
+                "READ_ERROR"));
+        }
+    }
+
+    /**
+     * Reporte dans les fragments des compteurs au plus batchSize variations écrites par les transactions,
+     * pour que la lecture des statistiques reste bornée. Seules les périodes closes depuis une heure sont
+     * compactées (voir StatistiquesContrats.compacter). Rappeler jusqu'à obtenir "termine": true; deux
+     * compactions dans le même bloc entrent en conflit, la seconde est à relancer.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String compacterStatistiques(final Context context, final int batchSize) {
+        logger.info("Compaction des statistiques (lot: {})", batchSize);
+        
+        if (batchSize <= 0) {
+            throw echec(context, new ChaincodeException("La taille du lot doit être positive", "INVALID_INPUT"));
+        }
+        
+        try {
+            StatistiquesContrats.Compaction compaction = store.statistiques().compacter(context.getStub(), batchSize);
+            
+            Map<String, Object> resultat = new HashMap<>();
+            resultat.put("reportees", compaction.getReportees());
+            resultat.put("termine", compaction.isTermine());
+            
+            logger.info("Variations reportées: {}", compaction.getReportees());
+            return DeterministicMapper.writeValueAsString(resultat);
+            
+        } catch (Exception e) {
+            logger.error("Erreur lors de la compaction des statistiques: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de compaction: " + e.getMessage(), "COMPACTION_ERROR"));
+        }
+    }
+
+    private void verifierTaillePage(ChaincodeStub stub, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw MesureTransaction.echec(stub, new ChaincodeException(
+                "La taille de page doit être comprise entre 1 et " + MAX_PAGE_SIZE, "INVALID_INPUT"));
+        }
+    }
+
+    private String ecrirePage(ChaincodeStub stub, QueryResultsIteratorWithMetadata<KeyValue> results) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("records");
+            int fetched = ecrireContrats(generator, stub, results);
+            generator.writeEndArray();
+            generator.writeStringField("bookmark", results.getMetadata().getBookmark());
+            generator.writeNumberField("fetchedCount", fetched);
+            generator.writeEndObject();
         }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private int ecrireContrats(JsonGenerator generator, ChaincodeStub stub, Iterable<KeyValue> results) throws Exception {
+        int count = 0;
+        for (KeyValue result : results) {
+            store.ecrireResume(generator, stub, DeterministicMapper.reader(ContratEntete.class).readValue(result.getValue()));
+            count++;
+        }
+        return count;
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
@@ -498,79 +1693,373 @@ public class FoncierChaincode implements ContractInterface {
         logger.info("Recherche des contrats pour le propriétaire: {}", ownerName);
         
         try {
-            List<ContratAgraire> contrats = new ArrayList<>();
-            QueryResultsIterator<KeyValue> results = context.getStub().getStateByRange("", "");
+            Set<String> ids = rechercherParPersonne(context.getStub(),
+                ContratIndex.PROPRIETAIRE_ID, ContratIndex.PROPRIETAIRE_NOM, ownerName);
+            logger.info("Nombre de contrats trouvés pour {}: {}", ownerName, ids.size());
+            return ecrireResumes(context.getStub(), ids);
             
-            for (KeyValue result : results) {
-                String key = result.getKey();
-                String value = result.getStringValue();
-                
-                if (key.equals("CHAINCODE_METADATA")) {
-                    continue;
-                }
-                
-                try {
-                    ContratAgraire contrat = objectMapper.readValue(value, ContratAgraire.class);
-                    if (contrat.getOwner() != null && 
-                        contrat.getOwner().getName() != null && 
-                        contrat.getOwner().getName().toLowerCase().contains(ownerName.toLowerCase())) {
-                        contrats.add(contrat);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Impossible de parser le contrat {}: {}", key, e.getMessage());
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de recherche: " + e.getMessage(), "SEARCH_ERROR"));
+        }
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String rechercherParBeneficiaire(final Context context, final String beneficiaryName) {
+        logger.info("Recherche des contrats pour le bénéficiaire: {}", beneficiaryName);
+        
+        try {
+            Set<String> ids = rechercherParPersonne(context.getStub(),
+                ContratIndex.BENEFICIAIRE_ID, ContratIndex.BENEFICIAIRE_NOM, beneficiaryName);
+            logger.info("Nombre de contrats trouvés pour {}: {}", beneficiaryName, ids.size());
+            return ecrireResumes(context.getStub(), ids);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de recherche: " + e.getMessage(), "SEARCH_ERROR"));
+        }
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String rechercherParLocalite(final Context context, final String region, final String department,
+                                        final String sousPrefecture, final String village) {
+        logger.info("Recherche des contrats par localité: {}/{}/{}/{}", region, department, sousPrefecture, village);
+        
+        try {
+            // La clé partielle doit être un préfixe: un niveau ne peut être renseigné que si le précédent l'est
+            List<String> niveaux = new ArrayList<>();
+            boolean finPrefixe = false;
+            for (String niveau : Arrays.asList(region, department, sousPrefecture, village)) {
+                String normalise = ContratIndex.normaliser(niveau);
+                if (normalise.isEmpty()) {
+                    finPrefixe = true;
+                } else if (finPrefixe) {
+                    throw new ChaincodeException("La localité doit être renseignée de la région vers le village", "INVALID_INPUT");
+                } else {
+                    niveaux.add(normalise);
                 }
             }
             
-            logger.info("Nombre de contrats trouvés pour {}: {}", ownerName, contrats.size());
-            return objectMapper.writeValueAsString(contrats);
+            Set<String> ids = idsIndexes(context.getStub(), ContratIndex.LOCALITE, niveaux.toArray(new String[0]));
+            logger.info("Nombre de contrats trouvés pour la localité: {}", ids.size());
+            return ecrireResumes(context.getStub(), ids);
             
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
         } catch (Exception e) {
             logger.error("Erreur lors de la recherche: {}", e.getMessage());
-            throw new ChaincodeException("Erreur de recherche: " + e.getMessage(), "SEARCH_ERROR");
+            throw echec(context, new ChaincodeException("Erreur de recherche: " + e.getMessage(), "SEARCH_ERROR"));
         }
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String obtenirHistorique(final Context context, final String contratId) {
-        logger.info("Récupération de l'historique du contrat: {}", contratId);
+    public String rechercherParStatut(final Context context, final String status) {
+        logger.info("Recherche des contrats par statut: {}", status);
         
         try {
-            List<Map<String, Object>> historique = new ArrayList<>();
-            QueryResultsIterator<org.hyperledger.fabric.shim.ledger.KeyModification> results = 
-                context.getStub().getHistoryForKey(contratId);
+            Set<String> ids = idsIndexes(context.getStub(), ContratIndex.STATUT, status.trim());
+            logger.info("Nombre de contrats trouvés pour le statut {}: {}", status, ids.size());
+            return ecrireResumes(context.getStub(), ids);
             
-            for (org.hyperledger.fabric.shim.ledger.KeyModification modification : results) {
-                Map<String, Object> entry = new HashMap<>();
-                entry.put("txId", modification.getTxId());
-                entry.put("timestamp", modification.getTimestamp());
-                entry.put("isDelete", modification.isDeleted());
-                
-                if (!modification.isDeleted()) {
-                    String value = modification.getStringValue();
-                    try {
-                        ContratAgraire contrat = objectMapper.readValue(value, ContratAgraire.class);
-                        entry.put("value", contrat);
-                    } catch (Exception e) {
-                        entry.put("value", value);
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de recherche: " + e.getMessage(), "SEARCH_ERROR"));
+        }
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String rechercherParType(final Context context, final String type) {
+        logger.info("Recherche des contrats par type: {}", type);
+        
+        try {
+            Set<String> ids = idsIndexes(context.getStub(), ContratIndex.TYPE, type.trim());
+            logger.info("Nombre de contrats trouvés pour le type {}: {}", type, ids.size());
+            return ecrireResumes(context.getStub(), ids);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la recherche: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de recherche: " + e.getMessage(), "SEARCH_ERROR"));
+        }
+    }
+
+    /**
+     * Migration unique des enregistrements écrits dans un format antérieur, par lots bornés: clés simples
+     * (contrats et CHAINCODE_METADATA écrits avant la séparation des espaces de noms), puis agrégats complets
+     * sous CONTRAT, convertis en entête, corps, signatures et actions. Chaque clé migrée est supprimée: il suffit
+     * de rappeler la transaction jusqu'à obtenir "termine": true. Les index des contrats migrés sont écrits au passage.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String migrerEspacesDeCles(final Context context, final int batchSize) {
+        logger.info("Migration des clés simples vers les espaces de noms (lot: {})", batchSize);
+        
+        if (batchSize <= 0) {
+            throw echec(context, new ChaincodeException("La taille du lot doit être positive", "INVALID_INPUT"));
+        }
+        
+        try {
+            ChaincodeStub stub = context.getStub();
+            int migres = 0;
+            boolean termine = true;
+            
+            try (QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "")) {
+                for (KeyValue result : results) {
+                    if (migres == batchSize) {
+                        termine = false;
+                        break;
+                    }
+                    
+                    String key = result.getKey();
+                    if (key.equals(LedgerKeys.CHAINCODE_METADATA)) {
+                        stub.putState(LedgerKeys.meta(stub, LedgerKeys.CHAINCODE_METADATA), result.getValue());
+                        stub.delState(key);
+                    } else {
+                        migrerContrat(stub, key);
                     }
+                    migres++;
                 }
-                
-                historique.add(entry);
             }
             
-            logger.info("Historique récupéré: {} entrées", historique.size());
-            return objectMapper.writeValueAsString(historique);
+            if (termine) {
+                try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(LedgerKeys.agregats(stub))) {
+                    for (KeyValue result : results) {
+                        if (migres == batchSize) {
+                            termine = false;
+                            break;
+                        }
+                        
+                        migrerContrat(stub, stub.splitCompositeKey(result.getKey()).getAttributes().get(0));
+                        migres++;
+                    }
+                }
+            }
+            
+            Map<String, Object> resultat = new HashMap<>();
+            resultat.put("migres", migres);
+            resultat.put("termine", termine);
+            
+            logger.info("Clés migrées: {} (terminé: {})", migres, termine);
+            return DeterministicMapper.writeValueAsString(resultat);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la migration: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de migration: " + e.getMessage(), "MIGRATION_ERROR"));
+        }
+    }
+
+    /**
+     * Convertit un contrat stocké dans un format antérieur. Un contrat déjà converti lors d'une transition
+     * fait foi: il ne reste qu'à supprimer l'ancienne clé.
+     */
+    private void migrerContrat(ChaincodeStub stub, String contratId) {
+        try {
+            if (store.lireEntete(stub, contratId) == null) {
+                store.importerHerite(stub, contratId);
+            } else {
+                stub.delState(LedgerKeys.agregat(stub, contratId));
+                if (LedgerKeys.estCleSimple(contratId)) {
+                    stub.delState(contratId);
+                }
+            }
+        } catch (Exception e) {
+            throw new ChaincodeException("Impossible de migrer le contrat " + contratId + ": " + e.getMessage(),
+                "MIGRATION_ERROR");
+        }
+    }
+
+    /**
+     * Reprise unique des contrats écrits avant les statistiques, par lots bornés: chaque entête pas encore
+     * compté est réécrit, ce qui l'ajoute aux compteurs. Un contrat modifié entre-temps a déjà été compté
+     * par sa transition. Rappeler la transaction jusqu'à obtenir "termine": true; les contrats au format
+     * antérieur sont comptés par migrerEspacesDeCles.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String comptabiliserContrats(final Context context, final int batchSize) {
+        logger.info("Reprise des statistiques des contrats (lot: {})", batchSize);
+        
+        if (batchSize <= 0) {
+            throw echec(context, new ChaincodeException("La taille du lot doit être positive", "INVALID_INPUT"));
+        }
+        
+        try {
+            ChaincodeStub stub = context.getStub();
+            int comptabilises = 0;
+            boolean termine = true;
+            
+            try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(LedgerKeys.entetes(stub))) {
+                for (KeyValue result : results) {
+                    ContratEntete entete = DeterministicMapper.reader(ContratEntete.class).readValue(result.getValue());
+                    if (entete.isComptabilise()) {
+                        continue;
+                    }
+                    if (comptabilises == batchSize) {
+                        termine = false;
+                        break;
+                    }
+                    store.ecrireEntete(stub, entete);
+                    comptabilises++;
+                }
+            }
+            
+            Map<String, Object> resultat = new HashMap<>();
+            resultat.put("comptabilises", comptabilises);
+            resultat.put("termine", termine);
+            
+            logger.info("Contrats comptabilisés: {} (terminé: {})", comptabilises, termine);
+            return DeterministicMapper.writeValueAsString(resultat);
+            
+        } catch (ChaincodeException e) {
+            throw echec(context, e);
+        } catch (Exception e) {
+            logger.error("Erreur lors de la reprise des statistiques: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur de reprise: " + e.getMessage(), "MIGRATION_ERROR"));
+        }
+    }
+
+    /**
+     * Recherche par personne: un identifiant numérique interroge l'index des IDs, sinon chaque mot de la
+     * recherche doit commencer un mot du nom indexé, dans n'importe quel ordre et sans tenir compte de la casse
+     * ni des accents: "kouas" trouve "Kouassi", "guessan kouassi" trouve "Kouassi N'Guessan". Un fragment pris
+     * au milieu d'un mot ("ouass") ne trouve rien.
+     *
+     * Le plus long mot de la recherche sélectionne les candidats par la clé partielle de son préfixe
+     * (ContratIndex.LONGUEUR_PREFIXE lettres); s'il est plus court, tout l'index est parcouru. Les autres mots
+     * sont vérifiés sur le nom indexé, sans lire le contrat.
+     */
+    private Set<String> rechercherParPersonne(ChaincodeStub stub, String indexId, String indexNom, String recherche) 
+            throws Exception {
+        String valeur = recherche == null ? "" : recherche.trim();
+        if (!valeur.isEmpty() && valeur.chars().allMatch(Character::isDigit)) {
+            return idsIndexes(stub, indexId, valeur);
+        }
+        
+        List<String> mots = ContratIndex.mots(ContratIndex.normaliser(valeur));
+        if (mots.isEmpty()) {
+            throw new ChaincodeException("Le critère de recherche est requis", "INVALID_INPUT");
+        }
+        
+        String selecteur = Collections.max(mots, Comparator.comparingInt(String::length));
+        CompositeKey partielle = selecteur.length() >= ContratIndex.LONGUEUR_PREFIXE
+            ? ContratIndex.clePartielle(stub, indexNom, ContratIndex.prefixe(selecteur))
+            : ContratIndex.clePartielle(stub, indexNom);
+        Set<String> ids = new LinkedHashSet<>();
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(partielle)) {
+            for (KeyValue result : results) {
+                List<String> attributs = stub.splitCompositeKey(result.getKey()).getAttributes();
+                if (!ContratIndex.motIndexe(attributs).startsWith(selecteur)) {
+                    continue;
+                }
+                List<String> motsIndexes = ContratIndex.mots(ContratIndex.nomIndexe(attributs));
+                if (mots.stream().allMatch(mot -> motsIndexes.stream().anyMatch(indexe -> indexe.startsWith(mot)))) {
+                    ids.add(attributs.get(attributs.size() - 1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private Set<String> idsIndexes(ChaincodeStub stub, String index, String... attributs) throws Exception {
+        Set<String> ids = new LinkedHashSet<>();
+        try (QueryResultsIterator<KeyValue> results =
+                 stub.getStateByPartialCompositeKey(ContratIndex.clePartielle(stub, index, attributs))) {
+            for (KeyValue result : results) {
+                ids.add(ContratIndex.contratId(stub, result.getKey()));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Résumés des contrats trouvés par un index; un contrat pas encore migré est écrit en entier.
+     */
+    private String ecrireResumes(ChaincodeStub stub, Collection<String> ids) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (String id : ids) {
+                ContratEntete entete = store.lireEntete(stub, id);
+                if (entete != null) {
+                    store.ecrireResume(generator, stub, entete);
+                } else {
+                    // Contrat pas encore migré: son JSON est recopié sans être lié
+                    byte[] herite = store.lireHeriteBrut(stub, id);
+                    if (herite == null) {
+                        throw new ChaincodeException("Contrat non trouvé: " + id, "CONTRAT_NOT_FOUND");
+                    }
+                    generator.writeRawValue(new String(herite, StandardCharsets.UTF_8));
+                }
+            }
+            generator.writeEndArray();
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String obtenirHistorique(final Context context, final String contratId) {
+        logger.info("Récupération de l'historique du contrat: {}", contratId);
+        
+        try {
+            // Toutes les versions, écrites au fil de l'historique (voir HistoriqueContrat)
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            HistoriqueContrat.Page page;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                page = historique.ecrire(generator, context.getStub(), contratId, 0, "", false);
+                generator.writeEndArray();
+            }
+            
+            logger.info("Historique récupéré: {} entrées", page.getEcrites());
+            return out.toString(StandardCharsets.UTF_8);
             
         } catch (Exception e) {
             logger.error("Erreur lors de la récupération de l'historique: {}", e.getMessage());
-            throw new ChaincodeException("Erreur d'historique: " + e.getMessage(), "HISTORY_ERROR");
+            throw echec(context, new ChaincodeException("Erreur d'historique: " + e.getMessage(), "HISTORY_ERROR"));
         }
     }
 
-    private String genererCodeContrat(ContratAgraire contrat) {
-        String prefix = "CA";
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        return String.format("%s-%s-%s", prefix, timestamp, random);
+    /**
+     * Historique paginé: au plus pageSize versions à partir de depuisTxId ("", txId, ou bookmark d'une page
+     * précédente). Mode COMPLET (défaut): chaque version en entier; DIFF: seuls les champs modifiés par rapport
+     * à la version précédente du même enregistrement, {chemin, avant, apres}. Retourne {records, bookmark, fetchedCount}.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String lireHistoriquePagine(final Context context, final String contratId, final int pageSize,
+                                       final String depuisTxId, final String mode) {
+        logger.info("Historique paginé du contrat {} (taille: {}, depuis: '{}', mode: {})", contratId, pageSize, depuisTxId, mode);
+        
+        verifierTaillePage(context.getStub(), pageSize);
+        String modeHistorique = mode == null || mode.isBlank() ? HistoriqueContrat.MODE_COMPLET : mode.trim().toUpperCase();
+        if (!HistoriqueContrat.MODE_COMPLET.equals(modeHistorique) && !HistoriqueContrat.MODE_DIFF.equals(modeHistorique)) {
+            throw echec(context, new ChaincodeException("Mode inconnu: " + mode + " (attendu: " + HistoriqueContrat.MODE_COMPLET
+                + " ou " + HistoriqueContrat.MODE_DIFF + ")", "INVALID_INPUT"));
+        }
+        
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("records");
+                HistoriqueContrat.Page page = historique.ecrire(generator, context.getStub(), contratId, pageSize,
+                    depuisTxId, HistoriqueContrat.MODE_DIFF.equals(modeHistorique));
+                generator.writeEndArray();
+                generator.writeStringField("bookmark", page.getMarquePage());
+                generator.writeNumberField("fetchedCount", page.getEcrites());
+                generator.writeEndObject();
+            }
+            return out.toString(StandardCharsets.UTF_8);
+            
+        } catch (Exception e) {
+            logger.error("Erreur lors de la récupération de l'historique: {}", e.getMessage());
+            throw echec(context, new ChaincodeException("Erreur d'historique: " + e.getMessage(), "HISTORY_ERROR"));
+        }
     }
 }
@@ -0,0 +1,194 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.util.Hashes;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arbres de Merkle des contrats scellés, NOMBRE_FRAGMENTS par région, en ajout seul selon la construction
+ * de la RFC 6962 (Certificate Transparency): feuille = SHA-256(0x00 || empreinte du contrat en hexadécimal),
+ * nœud = SHA-256(0x01 || gauche || droite). Un contrat est scellé à sa validation; chaque changement
+ * ultérieur de son entête ajoute une feuille (voir ContratStore.ecrireEntete).
+ *
+ * Seuls les nœuds des sous-arbres complets sont stockés: un ajout écrit au plus log2(n) nœuds, qui ne
+ * changent plus ensuite, et ne lit que leurs voisins de gauche. La racine et les preuves d'inclusion d'un
+ * arbre de n feuilles se calculent à partir de ces nœuds, en O(log n) lectures par sous-arbre incomplet,
+ * sans relire les contrats de la région. Le compteur de feuilles d'un arbre est la seule clé disputée;
+ * comme la séquence des codes (voir GenerateurCodeContrat), l'arbre est choisi par le fragment du txId
+ * de la transaction qui scelle: deux scellements de la même région dans le même bloc n'entrent en conflit
+ * que s'ils tombent sur le même fragment. La région publie les racines de ses NOMBRE_FRAGMENTS arbres.
+ */
+public class ArbreMerkleRegion {
+
+    public static final int NOMBRE_FRAGMENTS = StatistiquesContrats.NOMBRE_FRAGMENTS;
+
+    private static final byte PREFIXE_FEUILLE = 0x00;
+    private static final byte PREFIXE_NOEUD = 0x01;
+
+    /**
+     * Région normalisée comme dans les index (voir ContratIndex.normaliser), ou StatistiquesContrats.NON_RENSEIGNE:
+     * "Gbêkê" et "GBEKE" partagent les mêmes arbres.
+     */
+    public static String region(String region) {
+        String normalisee = ContratIndex.normaliser(region);
+        return normalisee.isEmpty() ? StatistiquesContrats.NON_RENSEIGNE : normalisee;
+    }
+
+    /**
+     * Arbre de la région pour un fragment: "{région normalisée}/{fragment}", par exemple "gbeke/07".
+     */
+    public static String arbre(String region, int fragment) {
+        StringBuilder arbre = new StringBuilder(region(region)).append('/');
+        if (fragment < 10) {
+            arbre.append('0');
+        }
+        return arbre.append(fragment).toString();
+    }
+
+    /**
+     * Arbre dans lequel la transaction txId scelle les contrats de la région.
+     */
+    public static String arbre(String region, String txId) {
+        return arbre(region, StatistiquesContrats.fragment(txId));
+    }
+
+    /**
+     * Ajoute la feuille d'un contrat scellé et retourne son index. Une validation groupée relit dans le
+     * CacheTransaction les nœuds et la taille écrits par les ajouts précédents: le stub doit être celui
+     * créé par FoncierChaincode.createContext.
+     *
+     * @throws IllegalStateException stub qui n'est pas un CacheTransaction
+     */
+    public long ajouter(ChaincodeStub stub, String arbre, String empreinte) {
+        CacheTransaction transaction = CacheTransaction.de(stub);
+        long index = taille(transaction, arbre);
+        byte[] hash = feuille(empreinte);
+        ecrire(transaction, LedgerKeys.noeudMerkle(transaction, arbre, 0, index), hash);
+        // Chaque index impair complète un sous-arbre: son nœud parent est calculé avec le voisin de gauche
+        long position = index;
+        int niveau = 0;
+        while ((position & 1) == 1) {
+            hash = noeud(lire(transaction, LedgerKeys.noeudMerkle(transaction, arbre, niveau, position - 1)), hash);
+            position >>= 1;
+            niveau++;
+            ecrire(transaction, LedgerKeys.noeudMerkle(transaction, arbre, niveau, position), hash);
+        }
+        ecrire(transaction, LedgerKeys.tailleMerkle(transaction, arbre), Long.toString(index + 1).getBytes(StandardCharsets.UTF_8));
+        return index;
+    }
+
+    public long taille(ChaincodeStub stub, String arbre) {
+        byte[] valeur = lire(stub, LedgerKeys.tailleMerkle(stub, arbre));
+        return valeur == null ? 0 : Long.parseLong(new String(valeur, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Racine de l'arbre réduit à ses n premières feuilles (n > 0).
+     */
+    public byte[] racine(ChaincodeStub stub, String arbre, long taille) {
+        return hashPlage(stub, arbre, 0, taille);
+    }
+
+    public byte[] feuilleStockee(ChaincodeStub stub, String arbre, long index) {
+        return lire(stub, LedgerKeys.noeudMerkle(stub, arbre, 0, index));
+    }
+
+    /**
+     * Chemin d'inclusion de la feuille d'index donné dans l'arbre de n feuilles (RFC 6962, 2.1.1),
+     * de la feuille vers la racine.
+     */
+    public List<byte[]> preuve(ChaincodeStub stub, String arbre, long index, long taille) {
+        List<byte[]> chemin = new ArrayList<>();
+        chemin(stub, arbre, index, 0, taille, chemin);
+        return chemin;
+    }
+
+    private void chemin(ChaincodeStub stub, String arbre, long index, long debut, long taille, List<byte[]> chemin) {
+        if (taille <= 1) {
+            return;
+        }
+        long k = Long.highestOneBit(taille - 1);
+        if (index < k) {
+            chemin(stub, arbre, index, debut, k, chemin);
+            chemin.add(hashPlage(stub, arbre, debut + k, taille - k));
+        } else {
+            chemin(stub, arbre, index - k, debut + k, taille - k, chemin);
+            chemin.add(hashPlage(stub, arbre, debut, k));
+        }
+    }
+
+    /**
+     * Hash des feuilles [debut, debut + taille[: un sous-arbre complet est lu tel quel, les autres sont
+     * découpés à la plus grande puissance de deux, comme dans la RFC 6962.
+     */
+    private byte[] hashPlage(ChaincodeStub stub, String arbre, long debut, long taille) {
+        if (Long.bitCount(taille) == 1) {
+            int niveau = Long.numberOfTrailingZeros(taille);
+            byte[] hash = lire(stub, LedgerKeys.noeudMerkle(stub, arbre, niveau, debut >> niveau));
+            if (hash == null) {
+                throw new IllegalStateException("Nœud de Merkle manquant: " + arbre + " " + niveau + " " + (debut >> niveau));
+            }
+            return hash;
+        }
+        long k = Long.highestOneBit(taille - 1);
+        return noeud(hashPlage(stub, arbre, debut, k), hashPlage(stub, arbre, debut + k, taille - k));
+    }
+
+    /**
+     * Vérifie un chemin d'inclusion (RFC 9162, 2.1.3.2): ce que fait un vérificateur hors du réseau.
+     */
+    public static boolean verifier(byte[] feuille, long index, long taille, List<byte[]> chemin, byte[] racine) {
+        if (index < 0 || index >= taille) {
+            return false;
+        }
+        long fn = index;
+        long sn = taille - 1;
+        byte[] hash = feuille;
+        for (byte[] voisin : chemin) {
+            if (sn == 0) {
+                return false;
+            }
+            if ((fn & 1) == 1 || fn == sn) {
+                hash = noeud(voisin, hash);
+                while ((fn & 1) == 0 && fn != 0) {
+                    fn >>= 1;
+                    sn >>= 1;
+                }
+            } else {
+                hash = noeud(hash, voisin);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 && MessageDigest.isEqual(hash, racine);
+    }
+
+    public static byte[] feuille(String empreinte) {
+        byte[] octets = empreinte.getBytes(StandardCharsets.UTF_8);
+        byte[] donnees = new byte[octets.length + 1];
+        donnees[0] = PREFIXE_FEUILLE;
+        System.arraycopy(octets, 0, donnees, 1, octets.length);
+        return Hashes.sha256(donnees);
+    }
+
+    private static byte[] noeud(byte[] gauche, byte[] droite) {
+        byte[] donnees = new byte[1 + gauche.length + droite.length];
+        donnees[0] = PREFIXE_NOEUD;
+        System.arraycopy(gauche, 0, donnees, 1, gauche.length);
+        System.arraycopy(droite, 0, donnees, 1 + gauche.length, droite.length);
+        return Hashes.sha256(donnees);
+    }
+
+    private static byte[] lire(ChaincodeStub stub, String cle) {
+        byte[] valeur = stub.getState(cle);
+        return valeur == null || valeur.length == 0 ? null : valeur;
+    }
+
+    private static void ecrire(ChaincodeStub stub, String cle, byte[] valeur) {
+        stub.putState(cle, valeur);
+    }
+}
@@ -0,0 +1,371 @@
+package ci.foncier.chaincode.ledger;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stub de la transaction qui garde, par clé, la valeur lue ou écrite et les objets décodés de cette valeur:
+ * une clé n'est demandée qu'une fois au pair et un enregistrement n'est lié qu'une fois par transaction.
+ *
+ * Les écritures sont retenues jusqu'à ecrire(), appelé par FoncierChaincode.afterTransaction: une clé
+ * écrite plusieurs fois n'est envoyée qu'une fois, avec sa dernière valeur, une valeur identique à celle
+ * lue n'est pas envoyée, et les clés partent dans l'ordre croissant.
+ *
+ * Visibilité: une lecture par clé (getState) voit la valeur écrite plus tôt par la transaction; c'est la
+ * seule source de lecture de ses propres écritures (séquences de GenerateurCodeContrat, nœuds de
+ * ArbreMerkleRegion, variations de StatistiquesContrats, entêtes d'une transition groupée). Les parcours
+ * (plages, clés partielles, requêtes, historique) vont toujours au pair et, comme sur le pair, ne voient
+ * que l'état validé: un parcours ne retrouve ni une clé créée ni une clé supprimée par la transaction.
+ *
+ * Il remplace le stub du pair dans le Context créé par FoncierChaincode.createContext et disparaît avec
+ * lui: rien n'est partagé entre transactions, le résultat ne dépend que de l'état lu. Une transaction qui
+ * lève n'atteint pas afterTransaction: ses écritures ne sont pas envoyées, le pair les aurait ignorées.
+ */
+public class CacheTransaction implements ChaincodeStub {
+
+    private static final byte[] ABSENTE = new byte[0];
+
+    private final ChaincodeStub stub;
+    /** Valeur courante de chaque clé lue ou écrite; ABSENTE pour une clé absente ou supprimée */
+    private final Map<String, byte[]> valeurs = new HashMap<>();
+    /** Valeur lue sur le pair, avant toute écriture de la transaction */
+    private final Map<String, byte[]> lues = new HashMap<>();
+    /** Écritures en attente, dernière valeur par clé; ABSENTE pour une suppression */
+    private final Map<String, byte[]> ecritures = new TreeMap<>();
+    private final Map<String, Map<Class<?>, Object>> objets = new HashMap<>();
+
+    /**
+     * Décodage d'une valeur non vide, appelé au plus une fois par clé et par type dans une transaction.
+     */
+    public interface Decodeur<T> {
+        T decoder(byte[] valeur) throws IOException;
+    }
+
+    public CacheTransaction(ChaincodeStub stub) {
+        this.stub = stub;
+    }
+
+    /**
+     * Stub du pair (ou instrumenté) auquel les appels sont délégués.
+     */
+    public ChaincodeStub pair() {
+        return stub;
+    }
+
+    /**
+     * CacheTransaction de la transaction, pour les composants qui relisent ce qu'ils ont écrit: sans lui,
+     * getState ne verrait pas ces écritures et une opération groupée repartirait de l'état validé.
+     *
+     * @throws IllegalStateException stub qui n'a pas été créé par FoncierChaincode.createContext
+     */
+    public static CacheTransaction de(ChaincodeStub stub) {
+        if (!(stub instanceof CacheTransaction)) {
+            throw new IllegalStateException("Le stub de la transaction doit être un CacheTransaction (createContext)");
+        }
+        return (CacheTransaction) stub;
+    }
+
+    /**
+     * Valeur écrite par la transaction pour une clé, sans lecture au pair: null si la clé n'a pas été
+     * écrite, ou a été supprimée. Pour les clés écrites à l'aveugle, qui ne doivent pas entrer dans
+     * l'ensemble de lecture.
+     */
+    public byte[] ecrite(String cle) {
+        byte[] valeur = ecritures.get(cle);
+        return valeur == null || valeur == ABSENTE ? null : valeur;
+    }
+
+    /**
+     * Objet décodé de la valeur d'une clé, ou null si la clé est absente. Avec un CacheTransaction, l'objet
+     * est partagé par les lectures suivantes jusqu'à la prochaine écriture de la clé: l'appelant qui le
+     * modifie l'écrit ensuite. Avec un autre stub, la valeur est lue et décodée à chaque appel.
+     */
+    public static <T> T objet(ChaincodeStub stub, String cle, Class<T> type, Decodeur<T> decodeur) throws IOException {
+        if (!(stub instanceof CacheTransaction)) {
+            byte[] valeur = stub.getState(cle);
+            return valeur == null || valeur.length == 0 ? null : decodeur.decoder(valeur);
+        }
+        CacheTransaction cache = (CacheTransaction) stub;
+        Map<Class<?>, Object> parType = cache.objets.get(cle);
+        if (parType != null && parType.containsKey(type)) {
+            return type.cast(parType.get(type));
+        }
+        byte[] valeur = cache.getState(cle);
+        T objet = valeur.length == 0 ? null : decodeur.decoder(valeur);
+        cache.objets.computeIfAbsent(cle, c -> new HashMap<>()).put(type, objet);
+        return objet;
+    }
+
+    /**
+     * Envoie au pair les écritures en attente, une par clé et dans l'ordre des clés, sauf celles qui
+     * redonnent à une clé lue la valeur lue. Retourne le nombre d'écritures envoyées.
+     */
+    public int ecrire() {
+        int envoyees = 0;
+        for (Map.Entry<String, byte[]> ecriture : ecritures.entrySet()) {
+            byte[] lue = lues.get(ecriture.getKey());
+            if (lue != null && Arrays.equals(lue, ecriture.getValue())) {
+                continue;
+            }
+            if (ecriture.getValue() == ABSENTE) {
+                stub.delState(ecriture.getKey());
+            } else {
+                stub.putState(ecriture.getKey(), ecriture.getValue());
+            }
+            envoyees++;
+        }
+        ecritures.clear();
+        return envoyees;
+    }
+
+    // Lectures mises en cache, écritures retenues
+
+    @Override
+    public byte[] getState(String key) {
+        byte[] valeur = valeurs.get(key);
+        if (valeur == null) {
+            valeur = stub.getState(key);
+            if (valeur == null || valeur.length == 0) {
+                valeur = ABSENTE;
+            }
+            valeurs.put(key, valeur);
+            lues.put(key, valeur);
+        }
+        return valeur;
+    }
+
+    @Override
+    public void putState(String key, byte[] value) {
+        byte[] copie = Arrays.copyOf(value, value.length);
+        valeurs.put(key, copie);
+        ecritures.put(key, copie);
+        objets.remove(key);
+    }
+
+    @Override
+    public void delState(String key) {
+        valeurs.put(key, ABSENTE);
+        ecritures.put(key, ABSENTE);
+        objets.remove(key);
+    }
+
+    // Délégation simple
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(String startKey, String endKey) {
+        return stub.getStateByRange(startKey, endKey);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(String startKey, String endKey,
+                                                                                   int pageSize, String bookmark) {
+        return stub.getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String compositeKey) {
+        return stub.getStateByPartialCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String objectType, String... attributes) {
+        return stub.getStateByPartialCompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(CompositeKey compositeKey) {
+        return stub.getStateByPartialCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(CompositeKey compositeKey,
+                                                                                                 int pageSize, String bookmark) {
+        return stub.getStateByPartialCompositeKeyWithPagination(compositeKey, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(String query) {
+        return stub.getQueryResult(query);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(String query, int pageSize, String bookmark) {
+        return stub.getQueryResultWithPagination(query, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(String key) {
+        return stub.getHistoryForKey(key);
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        return stub.getArgs();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return stub.getStringArgs();
+    }
+
+    @Override
+    public String getFunction() {
+        return stub.getFunction();
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return stub.getParameters();
+    }
+
+    @Override
+    public String getTxId() {
+        return stub.getTxId();
+    }
+
+    @Override
+    public String getChannelId() {
+        return stub.getChannelId();
+    }
+
+    @Override
+    public Chaincode.Response invokeChaincode(String chaincodeName, List<byte[]> args, String channel) {
+        return stub.invokeChaincode(chaincodeName, args, channel);
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(String key) {
+        return stub.getStateValidationParameter(key);
+    }
+
+    @Override
+    public void setStateValidationParameter(String key, byte[] value) {
+        stub.setStateValidationParameter(key, value);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(String objectType, String... attributes) {
+        return stub.createCompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(String compositeKey) {
+        return stub.splitCompositeKey(compositeKey);
+    }
+
+    @Override
+    public byte[] getPrivateData(String collection, String key) {
+        return stub.getPrivateData(collection, key);
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(String collection, String key) {
+        return stub.getPrivateDataHash(collection, key);
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(String collection, String key) {
+        return stub.getPrivateDataValidationParameter(collection, key);
+    }
+
+    @Override
+    public void putPrivateData(String collection, String key, byte[] value) {
+        stub.putPrivateData(collection, key, value);
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(String collection, String key, byte[] value) {
+        stub.setPrivateDataValidationParameter(collection, key, value);
+    }
+
+    @Override
+    public void delPrivateData(String collection, String key) {
+        stub.delPrivateData(collection, key);
+    }
+
+    @Override
+    public void purgePrivateData(String collection, String key) {
+        stub.purgePrivateData(collection, key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(String collection, String startKey, String endKey) {
+        return stub.getPrivateDataByRange(collection, startKey, endKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, String compositeKey) {
+        return stub.getPrivateDataByPartialCompositeKey(collection, compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, CompositeKey compositeKey) {
+        return stub.getPrivateDataByPartialCompositeKey(collection, compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, String objectType,
+                                                                              String... attributes) {
+        return stub.getPrivateDataByPartialCompositeKey(collection, objectType, attributes);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(String collection, String query) {
+        return stub.getPrivateDataQueryResult(collection, query);
+    }
+
+    @Override
+    public void setEvent(String name, byte[] payload) {
+        stub.setEvent(name, payload);
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return stub.getEvent();
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return stub.getSignedProposal();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return stub.getTxTimestamp();
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return stub.getCreator();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return stub.getTransient();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return stub.getBinding();
+    }
+
+    @Override
+    public String getMspId() {
+        return stub.getMspId();
+    }
+}
@@ -0,0 +1,292 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.util.Hashes;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entête de workflow d'un contrat: le seul enregistrement réécrit à chaque transition.
+ * Il ne porte que le statut, les drapeaux, les compteurs des enregistrements ajoutés
+ * (signatures, actions) et les empreintes des enregistrements; le corps et les pièces jointes restent intacts.
+ *
+ * Les empreintes sont tenues à jour à chaque écriture: celle du corps, de l'approbation et de la validation
+ * est le SHA-256 de l'enregistrement stocké, celle des signatures et des actions une chaîne prolongée à
+ * chaque ajout (voir chainer). L'empreinte du contrat (empreinte()) s'en déduit sans relire les enregistrements.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ContratEntete {
+
+    /** Type de document pour les requêtes CouchDB (voir RechercheMango) */
+    public static final String DOC_TYPE = "CONTRAT_ENTETE";
+    /** Version des empreintes; 0 pour un entête écrit avant leur introduction (voir ContratStore.initialiserEmpreintes) */
+    public static final int VERSION_EMPREINTES = 1;
+    /** Parties dont les signatures font passer un contrat DRAFT à SIGNED */
+    public static final List<String> PARTIES_REQUISES = Collections.unmodifiableList(Arrays.asList("OWNER", "BENEFICIARY"));
+
+    private String docType = DOC_TYPE;
+    private String id;
+    private String codeContract;
+    private String status;
+    private boolean modifiable;
+    private boolean deletable;
+    private LocalDateTime deletedAt;
+    private String deletedBy;
+    private String deletedReason;
+
+    private int signatureCount; // Prochain numéro de signature
+    private List<String> signatureParties; // Types de parties ayant signé (triés, sans doublon)
+    private int actionCount; // Prochain numéro d'action
+    private boolean hasApprobation;
+    private boolean hasValidation;
+    private String bodyHash; // SHA-256 du corps stocké
+    private String signaturesHash; // Chaîne des SHA-256 des signatures numérotées, dans l'ordre
+    private String actionsHash; // Chaîne des SHA-256 des actions, dans l'ordre
+    private String approbationHash; // SHA-256 de l'approbation stockée
+    private String validationHash; // SHA-256 de la validation stockée
+    private int hashVersion;
+    private String merkleRegion; // Arbre régional du contrat scellé, "région/fragment" (voir ArbreMerkleRegion)
+    private Long merkleIndex; // Index de sa feuille, null tant que le contrat n'est pas scellé
+
+    // Copies de champs du corps, critères des requêtes CouchDB sur les entêtes
+    private String region;
+    private String village;
+    private String type;
+    private LocalDateTime creationDate;
+    private String idufci;
+    private double surface; // Surface du terrain, reprise dans les statistiques
+
+    private boolean comptabilise; // Contribution déjà portée par les compteurs de StatistiquesContrats
+    private StatistiquesContrats.Contribution contributionLue; // Contribution à la lecture, non persistée
+
+    public ContratEntete() {
+        this.signatureParties = new ArrayList<>();
+    }
+
+    /**
+     * Entête initial d'un contrat: l'état du workflow est repris de l'agrégat.
+     */
+    public static ContratEntete depuis(ContratAgraire contrat) {
+        ContratEntete entete = new ContratEntete();
+        entete.hashVersion = VERSION_EMPREINTES;
+        entete.id = contrat.getId();
+        entete.codeContract = contrat.getCodeContract();
+        entete.status = contrat.getStatus();
+        entete.modifiable = contrat.isModifiable();
+        entete.deletable = contrat.isDeletable();
+        entete.deletedAt = contrat.getDeletedAt();
+        entete.deletedBy = contrat.getDeletedBy();
+        entete.deletedReason = contrat.getDeletedReason();
+        return entete;
+    }
+
+    /**
+     * Entête d'un agrégat au format antérieur, à partir des champs projetés
+     * (voir ContratStore.CHAMPS_ENTETE_HERITE): l'agrégat n'est pas lié.
+     */
+    public static ContratEntete depuisProjection(Map<String, Object> champs) {
+        ContratEntete entete = new ContratEntete();
+        entete.id = (String) champs.get("id");
+        entete.codeContract = (String) champs.get("codeContract");
+        entete.status = (String) champs.get("status");
+        entete.modifiable = Boolean.TRUE.equals(champs.get("isModifiable"));
+        entete.deletable = Boolean.TRUE.equals(champs.get("isDeletable"));
+        entete.deletedBy = (String) champs.get("deletedBy");
+        entete.deletedReason = (String) champs.get("deletedReason");
+        List<?> parties = (List<?>) champs.getOrDefault("signatures.partyType", Collections.emptyList());
+        for (Object partyType : parties) {
+            entete.ajouterPartie((String) partyType);
+        }
+        entete.signatureCount = parties.size();
+        entete.actionCount = ((List<?>) champs.getOrDefault("actions.type", Collections.emptyList())).size();
+        entete.hasApprobation = champs.get("approbation") != null;
+        entete.hasValidation = champs.get("validation") != null;
+        return entete;
+    }
+
+    /**
+     * Recopie dans l'entête les champs du corps interrogés par les requêtes CouchDB.
+     */
+    public void denormaliser(ContratAgraire contrat) {
+        region = contrat.getRegion();
+        village = contrat.getVillage();
+        type = contrat.getType();
+        creationDate = contrat.getCreationDate();
+        idufci = contrat.getTerrain() == null ? null : contrat.getTerrain().getIdufci();
+        surface = contrat.getTerrain() == null ? 0 : contrat.getTerrain().getSurface();
+    }
+
+    /**
+     * Contribution du contrat aux statistiques, ou null s'il n'y est pas encore compté.
+     */
+    StatistiquesContrats.Contribution contribution() {
+        return comptabilise ? new StatistiquesContrats.Contribution(status, region, type, surface) : null;
+    }
+
+    /**
+     * Retient la contribution telle que lue (ou écrite), pour que l'écriture suivante n'applique que la différence.
+     */
+    void memoriserContribution() {
+        contributionLue = contribution();
+    }
+
+    StatistiquesContrats.Contribution contributionLue() {
+        return contributionLue;
+    }
+
+    /**
+     * Maillon suivant d'une chaîne d'empreintes: SHA-256(maillon précédent en hexadécimal || SHA-256 en
+     * hexadécimal de l'enregistrement). La chaîne d'une liste vide est null.
+     */
+    public static String chainer(String precedent, byte[] enregistrement) {
+        String maillon = (precedent == null ? "" : precedent) + Hashes.sha256Hex(enregistrement);
+        return Hashes.sha256Hex(maillon.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Empreinte canonique du contrat: SHA-256 de son ID, de son état et des empreintes de ses enregistrements,
+     * une valeur par ligne (vide si absente). Calculée sans relire les enregistrements.
+     */
+    public String empreinte() {
+        String canonique = String.join("\n", id, status, String.valueOf(signatureCount), String.valueOf(actionCount),
+            valeur(bodyHash), valeur(signaturesHash), valeur(actionsHash), valeur(approbationHash),
+            valeur(validationHash));
+        return Hashes.sha256Hex(canonique.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String valeur(String hash) {
+        return hash == null ? "" : hash;
+    }
+
+    /**
+     * Reporte l'état du workflow sur un contrat (corps lu ou vue de transition).
+     */
+    public ContratAgraire appliquer(ContratAgraire contrat) {
+        contrat.setId(id);
+        contrat.setCodeContract(codeContract);
+        contrat.setStatus(status);
+        contrat.setModifiable(modifiable);
+        contrat.setDeletable(deletable);
+        contrat.setDeletedAt(deletedAt);
+        contrat.setDeletedBy(deletedBy);
+        contrat.setDeletedReason(deletedReason);
+        return contrat;
+    }
+
+    /**
+     * Vue de workflow retournée par les transitions: état courant, sans corps ni enregistrements antérieurs.
+     */
+    public ContratAgraire versContrat() {
+        return appliquer(new ContratAgraire());
+    }
+
+    /**
+     * Vrai si les parties données, signatures déposées comprises, couvrent les signatures requises.
+     */
+    public static boolean signaturesReunies(Collection<String> parties) {
+        return parties.containsAll(PARTIES_REQUISES);
+    }
+
+    public void ajouterPartie(String partyType) {
+        if (partyType != null && !signatureParties.contains(partyType)) {
+            signatureParties.add(partyType);
+            signatureParties.sort(null);
+        }
+    }
+
+    // Getters et Setters
+    public String getDocType() { return docType; }
+    public void setDocType(String docType) { this.docType = docType; }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getCodeContract() { return codeContract; }
+    public void setCodeContract(String codeContract) { this.codeContract = codeContract; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public boolean isModifiable() { return modifiable; }
+    public void setModifiable(boolean modifiable) { this.modifiable = modifiable; }
+
+    public boolean isDeletable() { return deletable; }
+    public void setDeletable(boolean deletable) { this.deletable = deletable; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+
+    public String getDeletedBy() { return deletedBy; }
+    public void setDeletedBy(String deletedBy) { this.deletedBy = deletedBy; }
+
+    public String getDeletedReason() { return deletedReason; }
+    public void setDeletedReason(String deletedReason) { this.deletedReason = deletedReason; }
+
+    public int getSignatureCount() { return signatureCount; }
+    public void setSignatureCount(int signatureCount) { this.signatureCount = signatureCount; }
+
+    public List<String> getSignatureParties() { return signatureParties; }
+    public void setSignatureParties(List<String> signatureParties) { this.signatureParties = signatureParties; }
+
+    public int getActionCount() { return actionCount; }
+    public void setActionCount(int actionCount) { this.actionCount = actionCount; }
+
+    public boolean isHasApprobation() { return hasApprobation; }
+    public void setHasApprobation(boolean hasApprobation) { this.hasApprobation = hasApprobation; }
+
+    public boolean isHasValidation() { return hasValidation; }
+    public void setHasValidation(boolean hasValidation) { this.hasValidation = hasValidation; }
+
+    public String getBodyHash() { return bodyHash; }
+    public void setBodyHash(String bodyHash) { this.bodyHash = bodyHash; }
+
+    public String getSignaturesHash() { return signaturesHash; }
+    public void setSignaturesHash(String signaturesHash) { this.signaturesHash = signaturesHash; }
+
+    public String getActionsHash() { return actionsHash; }
+    public void setActionsHash(String actionsHash) { this.actionsHash = actionsHash; }
+
+    public String getApprobationHash() { return approbationHash; }
+    public void setApprobationHash(String approbationHash) { this.approbationHash = approbationHash; }
+
+    public String getValidationHash() { return validationHash; }
+    public void setValidationHash(String validationHash) { this.validationHash = validationHash; }
+
+    public int getHashVersion() { return hashVersion; }
+    public void setHashVersion(int hashVersion) { this.hashVersion = hashVersion; }
+
+    public String getMerkleRegion() { return merkleRegion; }
+    public void setMerkleRegion(String merkleRegion) { this.merkleRegion = merkleRegion; }
+
+    public Long getMerkleIndex() { return merkleIndex; }
+    public void setMerkleIndex(Long merkleIndex) { this.merkleIndex = merkleIndex; }
+
+    public String getRegion() { return region; }
+    public void setRegion(String region) { this.region = region; }
+
+    public String getVillage() { return village; }
+    public void setVillage(String village) { this.village = village; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public LocalDateTime getCreationDate() { return creationDate; }
+    public void setCreationDate(LocalDateTime creationDate) { this.creationDate = creationDate; }
+
+    public String getIdufci() { return idufci; }
+    public void setIdufci(String idufci) { this.idufci = idufci; }
+
+    public double getSurface() { return surface; }
+    public void setSurface(double surface) { this.surface = surface; }
+
+    public boolean isComptabilise() { return comptabilise; }
+    public void setComptabilise(boolean comptabilise) { this.comptabilise = comptabilise; }
+}
@@ -0,0 +1,214 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.model.Person;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Index secondaires des contrats agraires, sous forme de clés composites.
+ * La clé porte toute l'information (le dernier attribut est l'ID du contrat),
+ * la valeur est un octet nul comme le recommande Fabric.
+ */
+public final class ContratIndex {
+
+    /** [préfixe du mot (voir prefixe), mot du nom normalisé, nom normalisé, contratId] */
+    public static final String PROPRIETAIRE_NOM = "IDX_PROPRIETAIRE_NOM";
+    /** [ownerId, contratId] */
+    public static final String PROPRIETAIRE_ID = "IDX_PROPRIETAIRE_ID";
+    /** [préfixe du mot (voir prefixe), mot du nom normalisé, nom normalisé, contratId] */
+    public static final String BENEFICIAIRE_NOM = "IDX_BENEFICIAIRE_NOM";
+    /** [beneficiaryId, contratId] */
+    public static final String BENEFICIAIRE_ID = "IDX_BENEFICIAIRE_ID";
+    /** [region, department, sousPrefecture, village, contratId] (valeurs normalisées) */
+    public static final String LOCALITE = "IDX_LOCALITE";
+    /** [status, contratId] */
+    public static final String STATUT = "IDX_STATUT";
+    /** [type, contratId] */
+    public static final String TYPE = "IDX_TYPE";
+
+    /**
+     * Longueur du préfixe qui regroupe les mots des index de noms. Le shim refuse les parcours de plage sur
+     * des clés composites: une recherche par début de mot parcourt donc la clé partielle [préfixe], puis
+     * filtre les mots qui commencent par le fragment recherché.
+     */
+    public static final int LONGUEUR_PREFIXE = 3;
+
+    private static final byte[] VALEUR = {0x00};
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private ContratIndex() {
+    }
+
+    /**
+     * Calcule l'ensemble des clés d'index d'un contrat (triées pour un ordre d'écriture stable).
+     */
+    public static Set<String> cles(ChaincodeStub stub, ContratAgraire contrat) {
+        Set<String> cles = new TreeSet<>();
+        String id = contrat.getId();
+
+        ajouterNom(stub, cles, PROPRIETAIRE_NOM, contrat.getOwner(), id);
+        ajouterNom(stub, cles, BENEFICIAIRE_NOM, contrat.getBeneficiary(), id);
+
+        int ownerId = idPersonne(contrat.getOwnerId(), contrat.getOwner());
+        if (ownerId != 0) {
+            cles.add(stub.createCompositeKey(PROPRIETAIRE_ID, String.valueOf(ownerId), id).toString());
+        }
+        int beneficiaryId = idPersonne(contrat.getBeneficiaryId(), contrat.getBeneficiary());
+        if (beneficiaryId != 0) {
+            cles.add(stub.createCompositeKey(BENEFICIAIRE_ID, String.valueOf(beneficiaryId), id).toString());
+        }
+
+        cles.add(stub.createCompositeKey(LOCALITE,
+            normaliser(contrat.getRegion()),
+            normaliser(contrat.getDepartment()),
+            normaliser(contrat.getSousPrefecture()),
+            normaliser(contrat.getVillage()),
+            id).toString());
+
+        if (!vide(contrat.getStatus())) {
+            cles.add(cleStatut(stub, contrat.getStatus(), id));
+        }
+        if (!vide(contrat.getType())) {
+            cles.add(stub.createCompositeKey(TYPE, contrat.getType().trim(), id).toString());
+        }
+        return cles;
+    }
+
+    /**
+     * Écrit toutes les entrées d'index d'un nouveau contrat.
+     */
+    public static void indexer(ChaincodeStub stub, ContratAgraire contrat) {
+        for (String cle : cles(stub, contrat)) {
+            stub.putState(cle, VALEUR);
+        }
+    }
+
+    /**
+     * Met à jour les index après modification: seules les entrées qui diffèrent sont supprimées ou écrites.
+     */
+    public static void mettreAJour(ChaincodeStub stub, ContratAgraire avant, ContratAgraire apres) {
+        Set<String> anciennes = cles(stub, avant);
+        Set<String> nouvelles = cles(stub, apres);
+        for (String cle : anciennes) {
+            if (!nouvelles.contains(cle)) {
+                stub.delState(cle);
+            }
+        }
+        for (String cle : nouvelles) {
+            if (!anciennes.contains(cle)) {
+                stub.putState(cle, VALEUR);
+            }
+        }
+    }
+
+    /**
+     * Déplace l'entrée d'index de statut lors d'une transition du workflow.
+     */
+    public static void changerStatut(ChaincodeStub stub, String contratId, String ancien, String nouveau) {
+        if (ancien != null && ancien.equals(nouveau)) {
+            return;
+        }
+        if (!vide(ancien)) {
+            stub.delState(cleStatut(stub, ancien, contratId));
+        }
+        if (!vide(nouveau)) {
+            stub.putState(cleStatut(stub, nouveau, contratId), VALEUR);
+        }
+    }
+
+    /**
+     * Extrait l'ID du contrat (dernier attribut) d'une clé d'index.
+     */
+    public static String contratId(ChaincodeStub stub, String cle) {
+        List<String> attributs = stub.splitCompositeKey(cle).getAttributes();
+        return attributs.get(attributs.size() - 1);
+    }
+
+    /**
+     * Préfixe sous lequel un mot est indexé: ses LONGUEUR_PREFIXE premières lettres, ou le mot entier s'il est plus court.
+     */
+    public static String prefixe(String mot) {
+        return mot.length() <= LONGUEUR_PREFIXE ? mot : mot.substring(0, LONGUEUR_PREFIXE);
+    }
+
+    /**
+     * Mot d'une clé d'index de nom (deuxième attribut).
+     */
+    public static String motIndexe(List<String> attributs) {
+        return attributs.get(1);
+    }
+
+    /**
+     * Nom normalisé d'une clé d'index de nom (troisième attribut).
+     */
+    public static String nomIndexe(List<String> attributs) {
+        return attributs.get(2);
+    }
+
+    /**
+     * Clé partielle pour un parcours d'index via getStateByPartialCompositeKey.
+     */
+    public static CompositeKey clePartielle(ChaincodeStub stub, String index, String... attributs) {
+        return stub.createCompositeKey(index, attributs);
+    }
+
+    /**
+     * Normalisation insensible à la casse, aux accents et à la ponctuation: "Kouassi  N'Guessan" -> "kouassi n guessan".
+     */
+    public static String normaliser(String valeur) {
+        if (valeur == null) {
+            return "";
+        }
+        String sansAccents = DIACRITIQUES.matcher(Normalizer.normalize(valeur, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATEURS.matcher(sansAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Mots distincts d'une valeur normalisée, dans leur ordre d'apparition.
+     */
+    public static List<String> mots(String normalise) {
+        Set<String> mots = new LinkedHashSet<>();
+        for (String mot : normalise.split(" ")) {
+            if (!mot.isEmpty()) {
+                mots.add(mot);
+            }
+        }
+        return new ArrayList<>(mots);
+    }
+
+    private static void ajouterNom(ChaincodeStub stub, Set<String> cles, String index, Person personne, String id) {
+        if (personne == null) {
+            return;
+        }
+        String nom = normaliser(personne.getName());
+        for (String mot : mots(nom)) {
+            cles.add(stub.createCompositeKey(index, prefixe(mot), mot, nom, id).toString());
+        }
+    }
+
+    private static String cleStatut(ChaincodeStub stub, String statut, String id) {
+        return stub.createCompositeKey(STATUT, statut.trim(), id).toString();
+    }
+
+    private static int idPersonne(int idContrat, Person personne) {
+        if (idContrat != 0) {
+            return idContrat;
+        }
+        return personne != null ? personne.getId() : 0;
+    }
+
+    private static boolean vide(String valeur) {
+        return valeur == null || valeur.trim().isEmpty();
+    }
+}
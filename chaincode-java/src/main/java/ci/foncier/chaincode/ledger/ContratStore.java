@@ -0,0 +1,619 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.metriques.MesureTransaction;
+import ci.foncier.chaincode.model.ContractApprobation;
+import ci.foncier.chaincode.model.ContractValidation;
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.model.PartySignature;
+import ci.foncier.chaincode.model.WorkflowAction;
+import ci.foncier.chaincode.util.DeterministicMapper;
+import ci.foncier.chaincode.util.Hashes;
+import ci.foncier.chaincode.util.JsonProjection;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Persistance d'un contrat réparti en plusieurs enregistrements (voir {@link LedgerKeys}):
+ * un entête de workflow, le corps métier, une clé par signature et par action,
+ * l'approbation et la validation. Une transition ne réécrit que l'entête et ajoute
+ * l'enregistrement qui lui est propre.
+ */
+public class ContratStore {
+
+    /**
+     * Le corps stocké exclut l'état du workflow, porté par l'entête et les enregistrements dédiés.
+     */
+    @JsonIgnoreProperties({"status", "isModifiable", "modifiable", "isDeletable", "deletable", "actions",
+        "signatures", "approbation", "validation", "deletedAt", "deletedBy", "deletedReason"})
+    private abstract static class CorpsMixin {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter corpsWriter;
+    private final ObjectWriter corpsCborWriter;
+    private final StatistiquesContrats statistiques = new StatistiquesContrats();
+    private final ArbreMerkleRegion arbres = new ArbreMerkleRegion();
+
+    public ContratStore() {
+        this.objectMapper = DeterministicMapper.shared();
+        this.corpsWriter = objectMapper.copy().addMixIn(ContratAgraire.class, CorpsMixin.class).writerFor(ContratAgraire.class);
+        this.corpsCborWriter = DeterministicMapper.sharedCbor().copy().addMixIn(ContratAgraire.class, CorpsMixin.class)
+            .writerFor(ContratAgraire.class);
+    }
+
+    /**
+     * Chemins d'un agrégat au format antérieur qui suffisent à reconstituer son entête (voir ContratEntete.depuisProjection).
+     */
+    public static final List<String> CHAMPS_ENTETE_HERITE = Collections.unmodifiableList(Arrays.asList(
+        "id", "codeContract", "status", "isModifiable", "isDeletable", "deletedBy", "deletedReason",
+        "signatures.partyType", "actions.type", "approbation", "validation"));
+
+    /**
+     * Un contrat existe s'il a un entête, ou s'il est encore stocké dans un format antérieur.
+     */
+    public boolean existe(ChaincodeStub stub, String contratId) {
+        return present(stub.getState(LedgerKeys.entete(stub, contratId))) || lireHeriteBrut(stub, contratId) != null;
+    }
+
+    /**
+     * Entête du contrat, ou null si le contrat n'est pas (encore) stocké sous forme répartie.
+     */
+    public ContratEntete lireEntete(ChaincodeStub stub, String contratId) throws IOException {
+        return CacheTransaction.objet(stub, LedgerKeys.entete(stub, contratId), ContratEntete.class, valeur -> {
+            ContratEntete entete = MesureTransaction.json(stub,
+                () -> DeterministicMapper.reader(ContratEntete.class).readValue(valeur));
+            entete.memoriserContribution();
+            return entete;
+        });
+    }
+
+    /**
+     * Persiste un agrégat complet sous forme répartie et retourne son entête.
+     */
+    public ContratEntete creer(ChaincodeStub stub, ContratAgraire contrat) throws IOException {
+        ContratEntete entete = ContratEntete.depuis(contrat);
+        String id = contrat.getId();
+
+        ecrireCorps(stub, entete, contrat);
+        for (PartySignature signature : contrat.getSignatures()) {
+            ajouterSignature(stub, entete, signature);
+        }
+        for (WorkflowAction action : contrat.getActions()) {
+            ajouterAction(stub, entete, action);
+        }
+        if (contrat.getApprobation() != null) {
+            ecrireApprobation(stub, entete, contrat.getApprobation());
+        }
+        if (contrat.getValidation() != null) {
+            ecrireValidation(stub, entete, contrat.getValidation());
+        }
+        ecrireEntete(stub, entete);
+        return entete;
+    }
+
+    /**
+     * Convertit un contrat encore stocké dans un format antérieur (agrégat sous CONTRAT ou clé simple)
+     * et supprime les anciennes clés. Retourne null si aucun contrat n'est trouvé.
+     */
+    public ContratEntete importerHerite(ChaincodeStub stub, String contratId) throws IOException {
+        ContratEntete entete = null;
+        // L'agrégat sous CONTRAT, réécrit depuis la séparation des espaces de noms, prime sur la clé simple
+        for (String cle : clesHeritees(stub, contratId)) {
+            byte[] valeur = stub.getState(cle);
+            if (present(valeur)) {
+                if (entete == null) {
+                    ContratAgraire agregat = DeterministicMapper.reader(ContratAgraire.class).readValue(valeur);
+                    entete = creer(stub, agregat);
+                    ContratIndex.indexer(stub, agregat);
+                }
+                stub.delState(cle);
+            }
+        }
+        return entete;
+    }
+
+    /**
+     * Agrégat complet stocké dans un format antérieur, ou null.
+     */
+    public ContratAgraire lireHerite(ChaincodeStub stub, String contratId) {
+        byte[] valeur = lireHeriteBrut(stub, contratId);
+        if (valeur == null) {
+            return null;
+        }
+        try {
+            return DeterministicMapper.reader(ContratAgraire.class).readValue(valeur);
+        } catch (IOException e) {
+            throw new IllegalStateException("Contrat " + contratId + " illisible: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * JSON de l'agrégat stocké dans un format antérieur, ou null.
+     */
+    public byte[] lireHeriteBrut(ChaincodeStub stub, String contratId) {
+        for (String cle : clesHeritees(stub, contratId)) {
+            byte[] valeur = stub.getState(cle);
+            if (present(valeur)) {
+                return valeur;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Champs choisis d'un agrégat au format antérieur, lus sans lier le reste du document (voir JsonProjection).
+     * Retourne null si aucun contrat n'est trouvé.
+     */
+    public Map<String, Object> projeterHerite(ChaincodeStub stub, String contratId, Collection<String> chemins)
+            throws IOException {
+        byte[] valeur = lireHeriteBrut(stub, contratId);
+        return valeur == null ? null : JsonProjection.projeter(objectMapper.getFactory(), valeur, chemins);
+    }
+
+    /**
+     * Écrit l'entête, le scelle s'il y a lieu (voir sceller) et reporte dans les statistiques l'écart avec
+     * la contribution lue: un contrat pas encore compté y est ajouté en entier.
+     */
+    public void ecrireEntete(ChaincodeStub stub, ContratEntete entete) throws IOException {
+        sceller(stub, entete);
+        entete.setComptabilise(true);
+        statistiques.enregistrer(stub, entete.contributionLue(), entete.contribution());
+        entete.memoriserContribution();
+        stub.putState(LedgerKeys.entete(stub, entete.getId()),
+            MesureTransaction.json(stub, () -> DeterministicMapper.writeValueAsBytes(entete)));
+    }
+
+    /**
+     * Un contrat est scellé à sa validation (ou à l'import d'un contrat déjà validé): l'empreinte de son
+     * entête devient une feuille d'un arbre de sa région, celui du fragment de la transaction. Toute écriture ultérieure qui change cette
+     * empreinte (rejet, modification après rejet) ajoute une nouvelle feuille vers laquelle pointe l'entête;
+     * les feuilles précédentes restent dans l'arbre et attestent les états antérieurs.
+     */
+    private void sceller(ChaincodeStub stub, ContratEntete entete) {
+        boolean scelle = entete.getMerkleIndex() != null;
+        if (!scelle && !"VALIDATED".equals(entete.getStatus())
+                || entete.getHashVersion() < ContratEntete.VERSION_EMPREINTES) {
+            return;
+        }
+        String empreinte = entete.empreinte();
+        if (scelle && Arrays.equals(ArbreMerkleRegion.feuille(empreinte),
+                arbres.feuilleStockee(stub, entete.getMerkleRegion(), entete.getMerkleIndex()))) {
+            return;
+        }
+        String arbre = ArbreMerkleRegion.arbre(entete.getRegion(), stub.getTxId());
+        entete.setMerkleRegion(arbre);
+        entete.setMerkleIndex(arbres.ajouter(stub, arbre, empreinte));
+    }
+
+    public StatistiquesContrats statistiques() {
+        return statistiques;
+    }
+
+    public ArbreMerkleRegion arbres() {
+        return arbres;
+    }
+
+    /**
+     * Champs choisis du corps stocké, lus en flux sans lier le contrat (voir JsonProjection).
+     */
+    public Map<String, Object> projeterCorps(ChaincodeStub stub, ContratEntete entete, Collection<String> chemins)
+            throws IOException {
+        byte[] valeur = stub.getState(LedgerKeys.corps(stub, entete.getId()));
+        if (!present(valeur)) {
+            return new HashMap<>();
+        }
+        return MesureTransaction.json(stub, () -> {
+            try (JsonParser parser = parser(valeur)) {
+                return JsonProjection.projeter(parser, chemins);
+            }
+        });
+    }
+
+    /**
+     * Corps lié à chaque appel: les appelants le complètent (signatures, actions) et il ne peut être partagé.
+     */
+    public ContratAgraire lireCorps(ChaincodeStub stub, ContratEntete entete) throws IOException {
+        byte[] valeur = stub.getState(LedgerKeys.corps(stub, entete.getId()));
+        return entete.appliquer(decoder(stub, valeur, ContratAgraire.class));
+    }
+
+    /**
+     * Écrit le corps; les images des signataires sont stockées à part et remplacées par leur référence.
+     */
+    public void ecrireCorps(ChaincodeStub stub, ContratEntete entete, ContratAgraire contrat) throws IOException {
+        ImagesSignature.externaliser(stub, contrat);
+        byte[] corps = encoder(stub, contrat, corpsWriter, corpsCborWriter);
+        entete.setBodyHash(Hashes.sha256Hex(corps));
+        entete.denormaliser(contrat);
+        stub.putState(LedgerKeys.corps(stub, entete.getId()), corps);
+    }
+
+    public void ajouterSignature(ChaincodeStub stub, ContratEntete entete, PartySignature signature) throws IOException {
+        int numero = entete.getSignatureCount();
+        ImagesSignature.externaliser(stub, signature);
+        byte[] valeur = encoder(stub, signature);
+        stub.putState(LedgerKeys.signature(stub, entete.getId(), numero), valeur);
+        entete.setSignaturesHash(ContratEntete.chainer(entete.getSignaturesHash(), valeur));
+        entete.setSignatureCount(numero + 1);
+        entete.ajouterPartie(signature.getPartyType());
+    }
+
+    /**
+     * Dépôt d'une signature sans lire ni réécrire l'entête: clé propre à la partie et à la transaction,
+     * écrite à l'aveugle. Deux parties qui signent dans le même bloc valident toutes les deux.
+     * Le dépôt est toujours en JSON, sans lire l'encodage: il reste valide dans le bloc d'un changement
+     * d'encodage, et la compaction le réécrit dans l'encodage courant.
+     */
+    public void deposerSignature(ChaincodeStub stub, String contratId, PartySignature signature) throws IOException {
+        ImagesSignature.externaliser(stub, signature);
+        stub.putState(LedgerKeys.signatureEnAttente(stub, contratId, signature.getPartyType(), stub.getTxId()),
+            MesureTransaction.json(stub, () -> DeterministicMapper.writer(PartySignature.class).writeValueAsBytes(signature)));
+    }
+
+    /**
+     * Signatures déposées et pas encore compactées, dans l'ordre des clés (partie, txId). Leurs parties
+     * sont ajoutées à l'entête en mémoire pour calculer le statut en lecture; l'entête n'est pas réécrit.
+     */
+    public List<PartySignature> lireSignaturesEnAttente(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        List<PartySignature> signatures = new ArrayList<>();
+        try (QueryResultsIterator<KeyValue> results =
+                 stub.getStateByPartialCompositeKey(LedgerKeys.signaturesEnAttente(stub, entete.getId()))) {
+            for (KeyValue result : results) {
+                PartySignature signature = decoder(stub, result.getValue(), PartySignature.class);
+                entete.ajouterPartie(signature.getPartyType());
+                signatures.add(signature);
+            }
+        }
+        return signatures;
+    }
+
+    /**
+     * Statut en lecture (voir FoncierChaincode.statutEffectif): un contrat DRAFT dont les signatures déposées
+     * complètent les signatures requises est lu comme SIGNED jusqu'à sa compaction. Seuls les dépôts de ce
+     * contrat sont parcourus, et seulement s'il est DRAFT; l'entête n'est pas modifié.
+     */
+    public String statutLu(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        if (!"DRAFT".equals(entete.getStatus())) {
+            return entete.getStatus();
+        }
+        Set<String> parties = new TreeSet<>(entete.getSignatureParties());
+        try (QueryResultsIterator<KeyValue> results =
+                 stub.getStateByPartialCompositeKey(LedgerKeys.signaturesEnAttente(stub, entete.getId()))) {
+            for (KeyValue result : results) {
+                parties.add(stub.splitCompositeKey(result.getKey()).getAttributes().get(1));
+            }
+        }
+        return ContratEntete.signaturesReunies(parties) ? "SIGNED" : entete.getStatus();
+    }
+
+    /**
+     * Numérote les signatures déposées à la suite des signatures existantes et supprime leurs clés de dépôt.
+     * L'entête est mis à jour en mémoire; l'appelant l'écrit.
+     */
+    public List<PartySignature> compacterSignatures(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        List<PartySignature> integrees = new ArrayList<>();
+        try (QueryResultsIterator<KeyValue> results =
+                 stub.getStateByPartialCompositeKey(LedgerKeys.signaturesEnAttente(stub, entete.getId()))) {
+            for (KeyValue result : results) {
+                PartySignature signature = decoder(stub, result.getValue(), PartySignature.class);
+                ajouterSignature(stub, entete, signature);
+                stub.delState(result.getKey());
+                integrees.add(signature);
+            }
+        }
+        return integrees;
+    }
+
+    public void ajouterAction(ChaincodeStub stub, ContratEntete entete, WorkflowAction action) throws IOException {
+        int numero = entete.getActionCount();
+        byte[] valeur = encoder(stub, action);
+        stub.putState(LedgerKeys.action(stub, entete.getId(), numero), valeur);
+        entete.setActionsHash(ContratEntete.chainer(entete.getActionsHash(), valeur));
+        entete.setActionCount(numero + 1);
+    }
+
+    public void ecrireApprobation(ChaincodeStub stub, ContratEntete entete, ContractApprobation approbation) throws IOException {
+        byte[] valeur = encoder(stub, approbation);
+        stub.putState(LedgerKeys.approbation(stub, entete.getId()), valeur);
+        entete.setApprobationHash(Hashes.sha256Hex(valeur));
+        entete.setHasApprobation(true);
+    }
+
+    public void ecrireValidation(ChaincodeStub stub, ContratEntete entete, ContractValidation validation) throws IOException {
+        byte[] valeur = encoder(stub, validation);
+        stub.putState(LedgerKeys.validation(stub, entete.getId()), valeur);
+        entete.setValidationHash(Hashes.sha256Hex(valeur));
+        entete.setHasValidation(true);
+    }
+
+    public ContractValidation lireValidation(ChaincodeStub stub, ContratEntete entete) throws IOException {
+        if (!entete.isHasValidation()) {
+            return null;
+        }
+        return CacheTransaction.objet(stub, LedgerKeys.validation(stub, entete.getId()), ContractValidation.class,
+            valeur -> decoder(stub, valeur, ContractValidation.class));
+    }
+
+    public ContractApprobation lireApprobation(ChaincodeStub stub, ContratEntete entete) throws IOException {
+        if (!entete.isHasApprobation()) {
+            return null;
+        }
+        return CacheTransaction.objet(stub, LedgerKeys.approbation(stub, entete.getId()), ContractApprobation.class,
+            valeur -> decoder(stub, valeur, ContractApprobation.class));
+    }
+
+    /**
+     * Calcule les empreintes d'un entête écrit avant leur introduction, à partir des enregistrements stockés.
+     * À appeler avant toute écriture qui prolonge une chaîne; l'appelant écrit l'entête.
+     */
+    public void initialiserEmpreintes(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        if (entete.getHashVersion() >= ContratEntete.VERSION_EMPREINTES) {
+            return;
+        }
+        Empreintes empreintes = calculerEmpreintes(stub, entete);
+        entete.setBodyHash(empreintes.corps);
+        entete.setSignaturesHash(empreintes.signatures);
+        entete.setActionsHash(empreintes.actions);
+        entete.setApprobationHash(empreintes.approbation);
+        entete.setValidationHash(empreintes.validation);
+        entete.setHashVersion(ContratEntete.VERSION_EMPREINTES);
+    }
+
+    /**
+     * Recalcule les empreintes à partir des enregistrements stockés et retourne les enregistrements dont
+     * l'empreinte ne correspond plus à celle de l'entête (corps, signatures, actions, approbation, validation).
+     */
+    public List<String> empreintesAlterees(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        Empreintes empreintes = calculerEmpreintes(stub, entete);
+        List<String> alterees = new ArrayList<>();
+        if (!Objects.equals(empreintes.corps, entete.getBodyHash())) {
+            alterees.add("corps");
+        }
+        if (!Objects.equals(empreintes.signatures, entete.getSignaturesHash())) {
+            alterees.add("signatures");
+        }
+        if (!Objects.equals(empreintes.actions, entete.getActionsHash())) {
+            alterees.add("actions");
+        }
+        if (!Objects.equals(empreintes.approbation, entete.getApprobationHash())) {
+            alterees.add("approbation");
+        }
+        if (!Objects.equals(empreintes.validation, entete.getValidationHash())) {
+            alterees.add("validation");
+        }
+        return alterees;
+    }
+
+    /**
+     * Empreintes des enregistrements numérotés et rattachés d'un contrat, telles qu'ils sont stockés.
+     * Les signatures déposées et pas encore compactées n'en font pas partie.
+     */
+    private Empreintes calculerEmpreintes(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        String id = entete.getId();
+        Empreintes empreintes = new Empreintes();
+        byte[] corps = stub.getState(LedgerKeys.corps(stub, id));
+        empreintes.corps = present(corps) ? Hashes.sha256Hex(corps) : null;
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(LedgerKeys.signatures(stub, id))) {
+            for (KeyValue result : results) {
+                empreintes.signatures = ContratEntete.chainer(empreintes.signatures, result.getValue());
+            }
+        }
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(LedgerKeys.actions(stub, id))) {
+            for (KeyValue result : results) {
+                empreintes.actions = ContratEntete.chainer(empreintes.actions, result.getValue());
+            }
+        }
+        if (entete.isHasApprobation()) {
+            empreintes.approbation = Hashes.sha256Hex(stub.getState(LedgerKeys.approbation(stub, id)));
+        }
+        if (entete.isHasValidation()) {
+            empreintes.validation = Hashes.sha256Hex(stub.getState(LedgerKeys.validation(stub, id)));
+        }
+        return empreintes;
+    }
+
+    private static final class Empreintes {
+        private String corps;
+        private String signatures;
+        private String actions;
+        private String approbation;
+        private String validation;
+    }
+
+    public List<PartySignature> lireSignatures(ChaincodeStub stub, String contratId) throws Exception {
+        List<PartySignature> signatures = new ArrayList<>();
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(LedgerKeys.signatures(stub, contratId))) {
+            for (KeyValue result : results) {
+                signatures.add(decoder(stub, result.getValue(), PartySignature.class));
+            }
+        }
+        return signatures;
+    }
+
+    public List<WorkflowAction> lireActions(ChaincodeStub stub, String contratId) throws Exception {
+        List<WorkflowAction> actions = new ArrayList<>();
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(LedgerKeys.actions(stub, contratId))) {
+            for (KeyValue result : results) {
+                actions.add(decoder(stub, result.getValue(), WorkflowAction.class));
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Les n dernières actions, lues clé par clé à partir du compteur de l'entête, sans parcourir le journal.
+     */
+    public List<WorkflowAction> lireDernieresActions(ChaincodeStub stub, ContratEntete entete, int n) throws IOException {
+        int fin = entete.getActionCount();
+        List<WorkflowAction> actions = new ArrayList<>(Math.min(n, fin));
+        for (int numero = Math.max(0, fin - n); numero < fin; numero++) {
+            actions.add(CacheTransaction.objet(stub, LedgerKeys.action(stub, entete.getId(), numero), WorkflowAction.class,
+                valeur -> decoder(stub, valeur, WorkflowAction.class)));
+        }
+        return actions;
+    }
+
+    /**
+     * Reconstitue l'agrégat complet (corps, signatures, actions, approbation, validation).
+     * Les signatures déposées et pas encore compactées suivent les signatures numérotées.
+     */
+    public ContratAgraire assembler(ChaincodeStub stub, ContratEntete entete) throws Exception {
+        ContratAgraire contrat = lireCorps(stub, entete);
+        contrat.setSignatures(lireSignatures(stub, entete.getId()));
+        contrat.getSignatures().addAll(lireSignaturesEnAttente(stub, entete));
+        contrat.setActions(lireActions(stub, entete.getId()));
+        contrat.setApprobation(lireApprobation(stub, entete));
+        contrat.setValidation(lireValidation(stub, entete));
+        return contrat;
+    }
+
+    /**
+     * Agrégat dont le journal d'actions est limité aux n dernières entrées.
+     */
+    public ContratAgraire assembler(ChaincodeStub stub, ContratEntete entete, int derniersN) throws Exception {
+        ContratAgraire contrat = lireCorps(stub, entete);
+        contrat.setSignatures(lireSignatures(stub, entete.getId()));
+        contrat.getSignatures().addAll(lireSignaturesEnAttente(stub, entete));
+        contrat.setActions(lireDernieresActions(stub, entete, derniersN));
+        contrat.setApprobation(lireApprobation(stub, entete));
+        contrat.setValidation(lireValidation(stub, entete));
+        return contrat;
+    }
+
+    /**
+     * Écrit le résumé d'un contrat (corps et état du workflow, sans signatures ni actions) pour les listes.
+     * Les champs du corps sont recopiés token par token, sans construire d'objet ContratAgraire.
+     * Le statut écrit est le statut lu (voir statutLu).
+     */
+    public void ecrireResume(JsonGenerator generator, ChaincodeStub stub, ContratEntete entete) throws Exception {
+        String status = statutLu(stub, entete);
+        byte[] corps = stub.getState(LedgerKeys.corps(stub, entete.getId()));
+        MesureTransaction.json(stub, () -> {
+            generator.writeStartObject();
+            try (JsonParser parser = parser(corps)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        generator.copyCurrentStructure(parser);
+                    }
+                }
+            }
+            generator.writeStringField("status", status);
+            generator.writeBooleanField("isModifiable", entete.isModifiable());
+            generator.writeBooleanField("isDeletable", entete.isDeletable());
+            generator.writeObjectField("deletedAt", entete.getDeletedAt());
+            generator.writeStringField("deletedBy", entete.getDeletedBy());
+            generator.writeStringField("deletedReason", entete.getDeletedReason());
+            generator.writeEndObject();
+            return null;
+        });
+    }
+
+    /**
+     * Encodage des prochaines écritures d'enregistrements froids (voir EncodageStockage). Lu au plus une fois
+     * par transaction (CacheTransaction), et seulement par les écritures qui lisent déjà l'entête du contrat:
+     * un changement d'encodage fait échouer en conflit de lecture ces transactions si elles sont validées
+     * dans son bloc, jamais un dépôt de signature (voir deposerSignature).
+     */
+    public EncodageStockage encodage(ChaincodeStub stub) {
+        byte[] valeur = stub.getState(LedgerKeys.meta(stub, EncodageStockage.CLE_META));
+        return present(valeur) ? EncodageStockage.depuis(new String(valeur, StandardCharsets.UTF_8)) : EncodageStockage.JSON;
+    }
+
+    public void definirEncodage(ChaincodeStub stub, EncodageStockage encodage) {
+        stub.putState(LedgerKeys.meta(stub, EncodageStockage.CLE_META), encodage.name().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un enregistrement froid, JSON ou CBOR selon son octet de version.
+     */
+    public <T> T decoder(ChaincodeStub stub, byte[] valeur, Class<T> type) throws IOException {
+        return MesureTransaction.json(stub, () -> {
+            if (EncodageStockage.detecter(valeur) == EncodageStockage.CBOR) {
+                return DeterministicMapper.cborReader(type).readValue(valeur, 1, valeur.length - 1);
+            }
+            return DeterministicMapper.reader(type).readValue(valeur);
+        });
+    }
+
+    /**
+     * Parser en flux sur un enregistrement froid, quel que soit son encodage.
+     */
+    public JsonParser parser(byte[] valeur) throws IOException {
+        if (EncodageStockage.detecter(valeur) == EncodageStockage.CBOR) {
+            return DeterministicMapper.sharedCbor().getFactory().createParser(valeur, 1, valeur.length - 1);
+        }
+        return objectMapper.getFactory().createParser(valeur);
+    }
+
+    /**
+     * Recopie un enregistrement froid dans une réponse JSON: tel quel s'il est déjà en JSON, token par token sinon.
+     */
+    public void copierJson(JsonGenerator generator, byte[] valeur) throws IOException {
+        if (EncodageStockage.detecter(valeur) == EncodageStockage.JSON) {
+            generator.writeRawValue(new String(valeur, StandardCharsets.UTF_8));
+            return;
+        }
+        try (JsonParser parser = parser(valeur)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+    }
+
+    public JsonNode lireArbre(byte[] valeur) throws IOException {
+        try (JsonParser parser = parser(valeur)) {
+            return objectMapper.readTree(parser);
+        }
+    }
+
+    private byte[] encoder(ChaincodeStub stub, Object valeur) throws IOException {
+        return encoder(stub, valeur, DeterministicMapper.writer(valeur.getClass()), DeterministicMapper.cborWriter(valeur.getClass()));
+    }
+
+    private byte[] encoder(ChaincodeStub stub, Object valeur, ObjectWriter json, ObjectWriter cbor) throws IOException {
+        EncodageStockage encodage = encodage(stub);
+        return MesureTransaction.json(stub, () -> {
+            if (encodage == EncodageStockage.CBOR) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                out.write(EncodageStockage.VERSION_CBOR);
+                cbor.writeValue(out, valeur);
+                return out.toByteArray();
+            }
+            return json.writeValueAsBytes(valeur);
+        });
+    }
+
+    private List<String> clesHeritees(ChaincodeStub stub, String contratId) {
+        List<String> cles = new ArrayList<>(2);
+        cles.add(LedgerKeys.agregat(stub, contratId));
+        if (LedgerKeys.estCleSimple(contratId)) {
+            cles.add(contratId);
+        }
+        return cles;
+    }
+
+    private static boolean present(byte[] valeur) {
+        return valeur != null && valeur.length > 0;
+    }
+}
@@ -0,0 +1,33 @@
+package ci.foncier.chaincode.ledger;
+
+/**
+ * Encodage des enregistrements froids d'un contrat (corps, signatures, actions, approbation, validation).
+ * L'entête reste toujours en JSON: c'est lui que les requêtes CouchDB interrogent.
+ *
+ * Un enregistrement CBOR commence par un octet de version; sans cet octet il est lu comme du JSON
+ * (un document JSON commence par '{'), si bien que les deux formats coexistent dans le world state
+ * et qu'un changement d'encodage ne concerne que les écritures suivantes.
+ */
+public enum EncodageStockage {
+    JSON,
+    CBOR;
+
+    /** Octet de version placé devant un enregistrement CBOR */
+    public static final byte VERSION_CBOR = 0x01;
+
+    /** Entrée META portant l'encodage des nouvelles écritures (JSON si absente) */
+    public static final String CLE_META = "FORMAT_STOCKAGE";
+
+    public static EncodageStockage depuis(String nom) {
+        for (EncodageStockage encodage : values()) {
+            if (encodage.name().equalsIgnoreCase(nom == null ? "" : nom.trim())) {
+                return encodage;
+            }
+        }
+        throw new IllegalArgumentException("Encodage inconnu: " + nom + " (attendu: JSON ou CBOR)");
+    }
+
+    public static EncodageStockage detecter(byte[] valeur) {
+        return valeur.length > 0 && valeur[0] == VERSION_CBOR ? CBOR : JSON;
+    }
+}
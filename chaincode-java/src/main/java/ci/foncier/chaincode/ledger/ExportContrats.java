@@ -0,0 +1,180 @@
+package ci.foncier.chaincode.ledger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Export à plat des contrats pour le reporting: une ligne par contrat, avec les champs du contrat,
+ * de son propriétaire, de son bénéficiaire et de son terrain ("owner.name", "terrain.surface"), toujours
+ * dans l'ordre de COLONNES. Les listes (signataires, signatures, actions) ne sont pas exportées.
+ *
+ * NDJSON: un objet JSON par ligne, une clé par colonne (null si absente). CSV (RFC 4180): une ligne
+ * d'entête sur la première page, puis une ligne par contrat; les pages successives se concatènent.
+ * Le schéma ne change que par ajout de colonnes en fin de liste.
+ */
+public final class ExportContrats {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    /** Colonnes tirées de l'entête de workflow; les autres sont lues dans le corps */
+    private static final List<String> COLONNES_ENTETE = Collections.unmodifiableList(Arrays.asList(
+        "id", "codeContract", "status", "isModifiable", "isDeletable", "deletedAt", "deletedBy", "deletedReason",
+        "signatureCount", "actionCount", "hasApprobation", "hasValidation"));
+
+    private static final List<String> COLONNES_CONTRAT = Arrays.asList(
+        "uuid", "type", "version", "variation", "isNewContract", "oldContractDate", "creationDate",
+        "region", "department", "sousPrefecture", "village", "ownerId", "beneficiaryId", "terrainId",
+        "rentRevision", "rent", "rentTimeUnit", "rentDate", "rentIsNature", "rentIsNatureDetails", "rentIsEspece",
+        "rentIsEspeceDetails", "rentPeriod", "rentPayedBy", "hasObligationVivriere", "hasObligationVivriereDetails",
+        "hasObligationPerenne", "hasObligationPerenneDetails", "hasObligationAutreActivite",
+        "hasObligationAutreActiviteDetails", "hasActiviteAssocie", "hasActiviteAssocieLegume",
+        "hasActiviteAssocieVivriere", "hasFamilyAuthorization", "hasFamilyAuthorizationLivraison",
+        "hasFamilyAuthorizationVente", "contrepartie", "contrepartiePrime", "contrepartiePrimeAnnuelle",
+        "contrepartiePrimeAnnuelleDetails", "hasPrime", "prime", "isOwnerDetenteurDroitFoncier",
+        "isDetenteurDroitFoncier", "hasRent", "recoltePaiementPercent", "recoltePaiementType", "recoltePaiement",
+        "recoltePaiementDetails", "duration", "durationUnit", "usagesAutorises", "ownerObligations",
+        "beneficiaryObligations", "partageDelay", "partageIsAfterDelay", "delaiTravaux", "delaiTravauxUnit",
+        "dateSignaturePlanterPartage", "montantPret", "montantVente", "paiementTotalAvant", "detenteurObligations",
+        "planterPartagerOwnerPercent", "planterPartagerBeneficiaryPercent", "planterPartagerPartageOwnerPercent",
+        "planterPartagerPartageOtherDetails");
+
+    private static final List<String> CHAMPS_PERSONNE = Arrays.asList(
+        "id", "name", "partnerName", "birthDate", "fatherName", "motherName", "idType", "idNumber", "idDate",
+        "phoneNumber", "type", "address", "birthPlace", "genre");
+
+    private static final List<String> CHAMPS_TERRAIN = Arrays.asList(
+        "id", "localisation", "surface", "cvgfr", "contratPartiel", "certificatFoncier", "certificatFoncierType",
+        "titreFoncier", "statut", "idufci", "natureServitude", "surfaceMethod", "surfaceMeasurment",
+        "croquisDisponible");
+
+    /** Chemins lus dans le corps stocké */
+    public static final List<String> CHAMPS_CORPS;
+    /** Schéma de l'export, dans l'ordre des colonnes */
+    public static final List<String> COLONNES;
+
+    static {
+        List<String> corps = new ArrayList<>(COLONNES_CONTRAT);
+        CHAMPS_PERSONNE.forEach(champ -> corps.add("owner." + champ));
+        CHAMPS_PERSONNE.forEach(champ -> corps.add("beneficiary." + champ));
+        CHAMPS_TERRAIN.forEach(champ -> corps.add("terrain." + champ));
+        CHAMPS_CORPS = Collections.unmodifiableList(corps);
+
+        List<String> colonnes = new ArrayList<>(COLONNES_ENTETE);
+        colonnes.addAll(corps);
+        COLONNES = Collections.unmodifiableList(colonnes);
+    }
+
+    private ExportContrats() {
+    }
+
+    /**
+     * Format demandé, NDJSON par défaut.
+     *
+     * @throws IllegalArgumentException format inconnu
+     */
+    public static Format format(String valeur) {
+        if (valeur == null || valeur.isBlank()) {
+            return Format.NDJSON;
+        }
+        try {
+            return Format.valueOf(valeur.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Format d'export inconnu: " + valeur + " (attendu: NDJSON ou CSV)");
+        }
+    }
+
+    /**
+     * Valeurs d'une ligne: l'état du workflow depuis l'entête, avec le statut lu (voir
+     * ContratStore.statutLu), le reste depuis les champs projetés du corps.
+     */
+    public static Map<String, Object> ligne(ContratEntete entete, String status, Map<String, Object> corps) {
+        Map<String, Object> ligne = new LinkedHashMap<>();
+        ligne.put("id", entete.getId());
+        ligne.put("codeContract", entete.getCodeContract());
+        ligne.put("status", status);
+        ligne.put("isModifiable", entete.isModifiable());
+        ligne.put("isDeletable", entete.isDeletable());
+        ligne.put("deletedAt", entete.getDeletedAt() == null ? null : entete.getDeletedAt().toString());
+        ligne.put("deletedBy", entete.getDeletedBy());
+        ligne.put("deletedReason", entete.getDeletedReason());
+        ligne.put("signatureCount", entete.getSignatureCount());
+        ligne.put("actionCount", entete.getActionCount());
+        ligne.put("hasApprobation", entete.isHasApprobation());
+        ligne.put("hasValidation", entete.isHasValidation());
+        for (String champ : CHAMPS_CORPS) {
+            ligne.put(champ, corps.get(champ));
+        }
+        return ligne;
+    }
+
+    /**
+     * Ligne d'entête CSV.
+     */
+    public static void ecrireEnteteCsv(Writer sortie) throws IOException {
+        for (int i = 0; i < COLONNES.size(); i++) {
+            if (i > 0) {
+                sortie.write(',');
+            }
+            ecrireCelluleCsv(sortie, COLONNES.get(i));
+        }
+        sortie.write("\r\n");
+    }
+
+    public static void ecrireLigneCsv(Writer sortie, Map<String, Object> ligne) throws IOException {
+        boolean premiere = true;
+        for (String colonne : COLONNES) {
+            if (!premiere) {
+                sortie.write(',');
+            }
+            premiere = false;
+            Object valeur = ligne.get(colonne);
+            if (valeur != null) {
+                ecrireCelluleCsv(sortie, valeur instanceof JsonNode && ((JsonNode) valeur).isValueNode()
+                    ? ((JsonNode) valeur).asText() : valeur.toString());
+            }
+        }
+        sortie.write("\r\n");
+    }
+
+    /**
+     * Ligne NDJSON: objet JSON sur une ligne, clés dans l'ordre des colonnes.
+     */
+    public static void ecrireLigneNdjson(JsonFactory factory, Writer sortie, Map<String, Object> ligne)
+            throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(sortie)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            for (String colonne : COLONNES) {
+                generator.writeObjectField(colonne, ligne.get(colonne));
+            }
+            generator.writeEndObject();
+        }
+        sortie.write('\n');
+    }
+
+    private static void ecrireCelluleCsv(Writer sortie, String valeur) throws IOException {
+        boolean guillemets = valeur.indexOf(',') >= 0 || valeur.indexOf('"') >= 0
+            || valeur.indexOf('\n') >= 0 || valeur.indexOf('\r') >= 0;
+        if (!guillemets) {
+            sortie.write(valeur);
+            return;
+        }
+        sortie.write('"');
+        sortie.write(valeur.replace("\"", "\"\""));
+        sortie.write('"');
+    }
+}
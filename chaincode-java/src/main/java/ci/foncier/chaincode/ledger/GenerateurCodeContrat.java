@@ -0,0 +1,83 @@
+package ci.foncier.chaincode.ledger;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Codes contrat déterministes: CA-{horodatage de la transaction, UTC}-{région}-{fragment}-{séquence},
+ * par exemple CA-20260101100000-POR-07-000042.
+ *
+ * Tout est dérivé de la transaction (horodatage, txId) et du world state: chaque pair endosseur calcule
+ * le même code, là où l'heure locale et un UUID donnaient des ensembles d'écriture différents. La séquence
+ * est tenue par région et par fragment (choisi par le txId, voir StatistiquesContrats.fragment): deux créations
+ * concurrentes ne se disputent le même compteur que si elles tombent sur le même fragment. Le couple
+ * (fragment, séquence) rend le code unique dans sa région; l'horodatage en tête le rend triable.
+ */
+public class GenerateurCodeContrat {
+
+    public static final String PREFIXE = "CA";
+
+    /** Région absente ou sans lettre */
+    private static final String REGION_INCONNUE = "XXX";
+
+    private static final DateTimeFormatter HORODATAGE =
+        DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
+
+    public String generer(ChaincodeStub stub, String region) {
+        String codeRegion = codeRegion(region);
+        int fragment = StatistiquesContrats.fragment(stub.getTxId());
+        long numero = suivant(stub, codeRegion, fragment);
+
+        StringBuilder code = new StringBuilder(40).append(PREFIXE).append('-');
+        HORODATAGE.formatTo(stub.getTxTimestamp(), code);
+        code.append('-').append(codeRegion).append('-');
+        completer(code, fragment, 2);
+        code.append('-');
+        completer(code, numero, 6);
+        return code.toString();
+    }
+
+    /**
+     * Avance la séquence; une création groupée relit dans le CacheTransaction la valeur qu'elle vient d'écrire.
+     */
+    private long suivant(ChaincodeStub stub, String codeRegion, int fragment) {
+        CacheTransaction transaction = CacheTransaction.de(stub);
+        String cle = LedgerKeys.sequenceCode(stub, codeRegion, fragment);
+        byte[] valeur = transaction.getState(cle);
+        long numero = (valeur.length == 0 ? 0L : Long.parseLong(new String(valeur, StandardCharsets.UTF_8))) + 1;
+        transaction.putState(cle, Long.toString(numero).getBytes(StandardCharsets.UTF_8));
+        return numero;
+    }
+
+    /**
+     * Trois premières lettres de la région, sans accent, en majuscules: "Gbêkê" -> "GBE".
+     */
+    static String codeRegion(String region) {
+        String normalisee = ContratIndex.normaliser(region);
+        StringBuilder code = new StringBuilder(3);
+        for (int i = 0; i < normalisee.length() && code.length() < 3; i++) {
+            char c = normalisee.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                code.append((char) (c - 'a' + 'A'));
+            }
+        }
+        if (code.length() == 0) {
+            return REGION_INCONNUE;
+        }
+        while (code.length() < 3) {
+            code.append('X');
+        }
+        return code.toString();
+    }
+
+    private static void completer(StringBuilder code, long valeur, int largeur) {
+        String chiffres = Long.toString(valeur);
+        for (int i = chiffres.length(); i < largeur; i++) {
+            code.append('0');
+        }
+        code.append(chiffres);
+    }
+}
@@ -0,0 +1,194 @@
+package ci.foncier.chaincode.ledger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Historique des enregistrements réécrits d'un contrat: entête, corps, puis formats antérieurs
+ * (agrégat sous CONTRAT, clé simple). Signatures et actions ne sont jamais réécrites: leur unique
+ * version est lue par lireContrat.
+ *
+ * Les versions sont écrites une à une dans un JsonGenerator, au fil de getHistoryForKey (de la plus
+ * récente à la plus ancienne): rien n'est accumulé. En mode complet la valeur est recopiée sans être liée;
+ * en mode diff seuls les champs modifiés par rapport à la version précédente du même enregistrement
+ * sont écrits, et seules ces deux versions sont décodées à un instant donné.
+ */
+public class HistoriqueContrat {
+
+    public static final String MODE_COMPLET = "COMPLET";
+    public static final String MODE_DIFF = "DIFF";
+
+    private final ContratStore store;
+
+    public HistoriqueContrat(ContratStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Résultat d'une page: nombre de versions écrites et marque-page de la suivante ("" en fin d'historique).
+     */
+    public static final class Page {
+        private final int ecrites;
+        private final String marquePage;
+
+        Page(int ecrites, String marquePage) {
+            this.ecrites = ecrites;
+            this.marquePage = marquePage;
+        }
+
+        public int getEcrites() { return ecrites; }
+        public String getMarquePage() { return marquePage; }
+    }
+
+    /**
+     * Écrit au plus taille versions (0: toutes) dans le tableau ouvert du generator.
+     * depuis vaut "" (début), un marque-page retourné par une page précédente ("n/txId"),
+     * ou un txId: l'historique reprend alors à la première version écrite par cette transaction.
+     */
+    public Page ecrire(JsonGenerator generator, ChaincodeStub stub, String contratId, int taille, String depuis,
+                       boolean diff) throws Exception {
+        List<String[]> enregistrements = enregistrements(stub, contratId);
+        int premier = 0;
+        String txIdDepart = depuis == null ? "" : depuis.trim();
+        int separateur = txIdDepart.indexOf('/');
+        if (separateur > 0 && txIdDepart.substring(0, separateur).chars().allMatch(Character::isDigit)) {
+            premier = Integer.parseInt(txIdDepart.substring(0, separateur));
+            txIdDepart = txIdDepart.substring(separateur + 1);
+        }
+
+        boolean trouve = txIdDepart.isEmpty();
+        int ecrites = 0;
+        for (int i = premier; i < enregistrements.size(); i++) {
+            String nom = enregistrements.get(i)[0];
+            try (QueryResultsIterator<KeyModification> results = stub.getHistoryForKey(enregistrements.get(i)[1])) {
+                KeyModification recente = null; // En mode diff: écrite dès que la version précédente est lue
+                for (KeyModification modification : results) {
+                    if (!trouve) {
+                        if (!modification.getTxId().equals(txIdDepart)) {
+                            continue;
+                        }
+                        trouve = true;
+                    }
+                    if (diff && recente != null) {
+                        ecrireVersion(generator, nom, recente, modification, true);
+                        ecrites++;
+                    }
+                    if (taille > 0 && ecrites == taille) {
+                        return new Page(ecrites, i + "/" + modification.getTxId());
+                    }
+                    if (diff) {
+                        recente = modification;
+                    } else {
+                        ecrireVersion(generator, nom, modification, null, false);
+                        ecrites++;
+                    }
+                }
+                if (recente != null) {
+                    // Version la plus ancienne: tous ses champs sont nouveaux
+                    ecrireVersion(generator, nom, recente, null, true);
+                    ecrites++;
+                }
+            }
+        }
+        return new Page(ecrites, "");
+    }
+
+    private static List<String[]> enregistrements(ChaincodeStub stub, String contratId) {
+        List<String[]> enregistrements = new ArrayList<>();
+        enregistrements.add(new String[]{"entete", LedgerKeys.entete(stub, contratId)});
+        enregistrements.add(new String[]{"corps", LedgerKeys.corps(stub, contratId)});
+        enregistrements.add(new String[]{"agregat", LedgerKeys.agregat(stub, contratId)});
+        if (LedgerKeys.estCleSimple(contratId)) {
+            enregistrements.add(new String[]{"agregat", contratId});
+        }
+        return enregistrements;
+    }
+
+    private void ecrireVersion(JsonGenerator generator, String enregistrement, KeyModification version,
+                               KeyModification precedente, boolean diff) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("enregistrement", enregistrement);
+        generator.writeBooleanField("isDelete", version.isDeleted());
+        if (diff) {
+            generator.writeArrayFieldStart("modifications");
+            comparer(generator, "", arbre(precedente), arbre(version));
+            generator.writeEndArray();
+        }
+        generator.writeObjectField("timestamp", version.getTimestamp());
+        generator.writeStringField("txId", version.getTxId());
+        if (!diff && !version.isDeleted()) {
+            generator.writeFieldName("value");
+            ecrireValeur(generator, version);
+        }
+        generator.writeEndObject();
+    }
+
+    private void ecrireValeur(JsonGenerator generator, KeyModification version) throws IOException {
+        byte[] valeur = version.getValue();
+        // Le corps peut être encodé en CBOR: il est restitué en JSON. Une valeur qui n'est pas un document est écrite en texte.
+        if (EncodageStockage.detecter(valeur) == EncodageStockage.CBOR || (valeur.length > 0 && valeur[0] == '{')) {
+            store.copierJson(generator, valeur);
+        } else {
+            generator.writeString(version.getStringValue());
+        }
+    }
+
+    private JsonNode arbre(KeyModification version) throws IOException {
+        if (version == null || version.isDeleted() || version.getValue().length == 0) {
+            return null;
+        }
+        return store.lireArbre(version.getValue());
+    }
+
+    /**
+     * Écrit {chemin, avant, apres} pour chaque valeur qui diffère; les objets sont comparés champ par champ
+     * (chemins pointés), les tableaux et scalaires en bloc. Une valeur absente est écrite null: un objet
+     * apparu ou supprimé (première version, suppression) donne un chemin par champ.
+     */
+    private static void comparer(JsonGenerator generator, String chemin, JsonNode avant, JsonNode apres)
+            throws IOException {
+        avant = avant == null || avant.isNull() ? null : avant;
+        apres = apres == null || apres.isNull() ? null : apres;
+        if ((avant == null || avant.isObject()) && (apres == null || apres.isObject()) && (avant != null || apres != null)) {
+            Set<String> champs = new TreeSet<>();
+            if (avant != null) {
+                avant.fieldNames().forEachRemaining(champs::add);
+            }
+            if (apres != null) {
+                apres.fieldNames().forEachRemaining(champs::add);
+            }
+            for (String champ : champs) {
+                comparer(generator, chemin.isEmpty() ? champ : chemin + "." + champ,
+                    avant == null ? null : avant.get(champ), apres == null ? null : apres.get(champ));
+            }
+            return;
+        }
+        if (avant == null ? apres == null : avant.equals(apres)) {
+            return;
+        }
+        generator.writeStartObject();
+        generator.writeStringField("chemin", chemin);
+        generator.writeFieldName("avant");
+        ecrireNoeud(generator, avant);
+        generator.writeFieldName("apres");
+        ecrireNoeud(generator, apres);
+        generator.writeEndObject();
+    }
+
+    private static void ecrireNoeud(JsonGenerator generator, JsonNode noeud) throws IOException {
+        if (noeud == null) {
+            generator.writeNull();
+        } else {
+            generator.writeTree(noeud);
+        }
+    }
+}
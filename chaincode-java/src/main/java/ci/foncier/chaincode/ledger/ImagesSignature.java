@@ -0,0 +1,141 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.model.ContractSignatory;
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.model.PartySignature;
+import ci.foncier.chaincode.util.Hashes;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Images de signature stockées une seule fois, sous une clé dérivée de leur contenu (SHA-256).
+ * Le contrat et ses signatures ne portent plus que la référence "sha256:<hex>": le corps, réécrit
+ * par chaque modification, et les signatures restent petits, et une même image n'est stockée qu'une fois.
+ *
+ * L'image est écrite à l'aveugle: sa clé ne dépend que de son contenu, deux transactions concurrentes
+ * écrivent la même valeur et aucune lecture n'entre dans leur read set. Les valeurs courtes (hash,
+ * marqueur) restent en ligne.
+ */
+public final class ImagesSignature {
+
+    public static final String PREFIXE_REFERENCE = "sha256:";
+    /** Taille, en caractères, au-delà de laquelle une signature est stockée à part */
+    public static final int TAILLE_MAX_EN_LIGNE = 256;
+
+    private static final int LONGUEUR_HEX = 64;
+
+    private ImagesSignature() {
+    }
+
+    /**
+     * Stocke les images des signataires du corps et remplace chacune par sa référence.
+     */
+    public static void externaliser(ChaincodeStub stub, ContratAgraire contrat) {
+        if (contrat.getContractSignatory() == null) {
+            return;
+        }
+        for (ContractSignatory signataire : contrat.getContractSignatory()) {
+            if (signataire == null) {
+                continue;
+            }
+            signataire.setOwnerSignature(externaliser(stub, signataire.getOwnerSignature()));
+            signataire.setBeneficiarySignature(externaliser(stub, signataire.getBeneficiarySignature()));
+            signataire.setOwnerWitnessSignature(externaliser(stub, signataire.getOwnerWitnessSignature()));
+            signataire.setBeneficiaryWitnessSignature(externaliser(stub, signataire.getBeneficiaryWitnessSignature()));
+            signataire.setCvgfrPresidentSignature(externaliser(stub, signataire.getCvgfrPresidentSignature()));
+        }
+    }
+
+    /**
+     * Stocke l'image d'une signature de partie et la remplace par sa référence.
+     */
+    public static void externaliser(ChaincodeStub stub, PartySignature signature) {
+        signature.setSignatureData(externaliser(stub, signature.getSignatureData()));
+    }
+
+    /**
+     * Valeur à conserver dans l'enregistrement: la référence de l'image, stockée au passage, ou la valeur
+     * elle-même si elle est courte ou déjà une référence.
+     */
+    public static String externaliser(ChaincodeStub stub, String valeur) {
+        if (valeur == null || valeur.length() <= TAILLE_MAX_EN_LIGNE || estReference(valeur)) {
+            return valeur;
+        }
+        byte[] image = valeur.getBytes(StandardCharsets.UTF_8);
+        String hash = Hashes.sha256Hex(image);
+        stub.putState(LedgerKeys.imageSignature(stub, hash), image);
+        return PREFIXE_REFERENCE + hash;
+    }
+
+    public static boolean estReference(String valeur) {
+        if (valeur == null || valeur.length() != PREFIXE_REFERENCE.length() + LONGUEUR_HEX
+                || !valeur.startsWith(PREFIXE_REFERENCE)) {
+            return false;
+        }
+        for (int i = PREFIXE_REFERENCE.length(); i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Références portées par le corps et les signatures d'un contrat, triées et sans doublon.
+     */
+    public static Set<String> references(ContratAgraire contrat) {
+        Set<String> references = new TreeSet<>();
+        if (contrat.getContractSignatory() != null) {
+            for (ContractSignatory signataire : contrat.getContractSignatory()) {
+                if (signataire == null) {
+                    continue;
+                }
+                ajouterReference(references, signataire.getOwnerSignature());
+                ajouterReference(references, signataire.getBeneficiarySignature());
+                ajouterReference(references, signataire.getOwnerWitnessSignature());
+                ajouterReference(references, signataire.getBeneficiaryWitnessSignature());
+                ajouterReference(references, signataire.getCvgfrPresidentSignature());
+            }
+        }
+        if (contrat.getSignatures() != null) {
+            for (PartySignature signature : contrat.getSignatures()) {
+                ajouterReference(references, signature.getSignatureData());
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Image désignée par une référence, ou null si elle n'est pas stockée.
+     */
+    public static byte[] lire(ChaincodeStub stub, String reference) {
+        byte[] image = stub.getState(LedgerKeys.imageSignature(stub, hash(reference)));
+        return image == null || image.length == 0 ? null : image;
+    }
+
+    public static boolean existe(ChaincodeStub stub, String reference) {
+        return lire(stub, reference) != null;
+    }
+
+    /**
+     * Vrai si l'image est stockée et que son contenu a toujours l'empreinte de sa référence.
+     */
+    public static boolean intacte(ChaincodeStub stub, String reference) {
+        byte[] image = lire(stub, reference);
+        return image != null && Hashes.sha256Hex(image).equals(hash(reference));
+    }
+
+    private static void ajouterReference(Set<String> references, String valeur) {
+        if (estReference(valeur)) {
+            references.add(valeur);
+        }
+    }
+
+    private static String hash(String reference) {
+        return reference.substring(PREFIXE_REFERENCE.length());
+    }
+}
@@ -0,0 +1,173 @@
+package ci.foncier.chaincode.ledger;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+import java.util.Locale;
+
+/**
+ * Espaces de noms des clés du world state.
+ * Chaque famille d'enregistrements vit sous son propre type de clé composite, de sorte qu'un parcours
+ * des contrats ne rencontre jamais les métadonnées, les index (voir {@link ContratIndex}) ou les compteurs.
+ * Un contrat est réparti entre un entête de workflow, un corps et un enregistrement par signature et par action.
+ */
+public final class LedgerKeys {
+
+    /** [contratId] -> entête de workflow (statut, drapeaux, compteurs) */
+    public static final String CONTRAT_ENTETE = "CONTRAT_ENTETE";
+    /** [contratId] -> corps métier du contrat */
+    public static final String CONTRAT_CORPS = "CONTRAT_CORPS";
+    /** [contratId, numéro] -> signature d'une partie */
+    public static final String CONTRAT_SIGNATURE = "CONTRAT_SIGNATURE";
+    /** [contratId, numéro] -> action du workflow */
+    public static final String CONTRAT_ACTION = "CONTRAT_ACTION";
+    /** [contratId, partyType, txId] -> signature déposée, pas encore numérotée (voir ContratStore.deposerSignature) */
+    public static final String CONTRAT_SIGNATURE_ATTENTE = "CONTRAT_SIGNATURE_ATTENTE";
+    /** [contratId] -> approbation CVGFR/Préfet */
+    public static final String CONTRAT_APPROBATION = "CONTRAT_APPROBATION";
+    /** [contratId] -> validation finale */
+    public static final String CONTRAT_VALIDATION = "CONTRAT_VALIDATION";
+    /** [dimension, valeur, fragment] -> fragment d'un compteur agrégé (voir StatistiquesContrats) */
+    public static final String STATISTIQUE = "STATISTIQUE";
+    /** [période, txId, dimension, valeur] -> variation d'un compteur par une transaction, en attente de compaction */
+    public static final String STATISTIQUE_DELTA = "STATISTIQUE_DELTA";
+    /** [codeRégion, fragment] -> dernier numéro de séquence des codes contrat (voir GenerateurCodeContrat) */
+    public static final String SEQUENCE_CODE = "SEQUENCE_CODE";
+    /** [sha256 hex] -> image de signature, référencée par "sha256:<hex>" (voir ImagesSignature) */
+    public static final String SIGNATURE_IMAGE = "SIGNATURE_IMAGE";
+    /** [arbre] -> nombre de feuilles d'un arbre de Merkle des contrats scellés, "région/fragment" (voir ArbreMerkleRegion) */
+    public static final String MERKLE_TAILLE = "MERKLE_TAILLE";
+    /** [arbre, niveau, index] -> nœud d'un sous-arbre complet d'un arbre de Merkle régional */
+    public static final String MERKLE_NOEUD = "MERKLE_NOEUD";
+    /** [nom] -> métadonnées du chaincode */
+    public static final String META = "META";
+
+    /** [contratId] -> agrégat complet, format antérieur à la séparation entête/corps (lecture et migration seulement) */
+    public static final String CONTRAT = "CONTRAT";
+
+    /** Nom de l'entrée de métadonnées, aussi utilisé comme clé simple avant la séparation des espaces de noms. */
+    public static final String CHAINCODE_METADATA = "CHAINCODE_METADATA";
+
+    private LedgerKeys() {
+    }
+
+    public static String entete(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT_ENTETE, contratId).toString();
+    }
+
+    public static String corps(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT_CORPS, contratId).toString();
+    }
+
+    public static String signature(ChaincodeStub stub, String contratId, int numero) {
+        return stub.createCompositeKey(CONTRAT_SIGNATURE, contratId, numero(numero)).toString();
+    }
+
+    public static String action(ChaincodeStub stub, String contratId, int numero) {
+        return stub.createCompositeKey(CONTRAT_ACTION, contratId, numero(numero)).toString();
+    }
+
+    public static String signatureEnAttente(ChaincodeStub stub, String contratId, String partyType, String txId) {
+        return stub.createCompositeKey(CONTRAT_SIGNATURE_ATTENTE, contratId, partyType, txId).toString();
+    }
+
+    public static String approbation(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT_APPROBATION, contratId).toString();
+    }
+
+    public static String validation(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT_VALIDATION, contratId).toString();
+    }
+
+    public static String statistique(ChaincodeStub stub, String dimension, String valeur, String fragment) {
+        return stub.createCompositeKey(STATISTIQUE, dimension, valeur, fragment).toString();
+    }
+
+    public static String deltaStatistique(ChaincodeStub stub, String periode, String txId, String dimension, String valeur) {
+        return stub.createCompositeKey(STATISTIQUE_DELTA, periode, txId, dimension, valeur).toString();
+    }
+
+    public static String sequenceCode(ChaincodeStub stub, String codeRegion, int fragment) {
+        return stub.createCompositeKey(SEQUENCE_CODE, codeRegion, String.format(Locale.ROOT, "%02d", fragment)).toString();
+    }
+
+    public static String imageSignature(ChaincodeStub stub, String hash) {
+        return stub.createCompositeKey(SIGNATURE_IMAGE, hash).toString();
+    }
+
+    public static String tailleMerkle(ChaincodeStub stub, String arbre) {
+        return stub.createCompositeKey(MERKLE_TAILLE, arbre).toString();
+    }
+
+    public static String noeudMerkle(ChaincodeStub stub, String arbre, int niveau, long index) {
+        return stub.createCompositeKey(MERKLE_NOEUD, arbre, String.format(Locale.ROOT, "%02d", niveau),
+            String.format(Locale.ROOT, "%012d", index)).toString();
+    }
+
+    public static String meta(ChaincodeStub stub, String nom) {
+        return stub.createCompositeKey(META, nom).toString();
+    }
+
+    public static String agregat(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT, contratId).toString();
+    }
+
+    /**
+     * Clé partielle couvrant les entêtes de tous les contrats, et seulement eux.
+     */
+    public static CompositeKey entetes(ChaincodeStub stub) {
+        return stub.createCompositeKey(CONTRAT_ENTETE);
+    }
+
+    public static CompositeKey statistiques(ChaincodeStub stub) {
+        return stub.createCompositeKey(STATISTIQUE);
+    }
+
+    public static CompositeKey deltasStatistiques(ChaincodeStub stub) {
+        return stub.createCompositeKey(STATISTIQUE_DELTA);
+    }
+
+    /**
+     * Clé partielle couvrant les variations d'une seule période, et seulement elle.
+     */
+    public static CompositeKey deltasStatistiques(ChaincodeStub stub, String periode) {
+        return stub.createCompositeKey(STATISTIQUE_DELTA, periode);
+    }
+
+    /**
+     * Clé partielle couvrant les signatures en attente de tous les contrats.
+     */
+    public static CompositeKey signaturesEnAttente(ChaincodeStub stub) {
+        return stub.createCompositeKey(CONTRAT_SIGNATURE_ATTENTE);
+    }
+
+    public static CompositeKey signaturesEnAttente(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT_SIGNATURE_ATTENTE, contratId);
+    }
+
+    public static CompositeKey signatures(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT_SIGNATURE, contratId);
+    }
+
+    public static CompositeKey actions(ChaincodeStub stub, String contratId) {
+        return stub.createCompositeKey(CONTRAT_ACTION, contratId);
+    }
+
+    public static CompositeKey agregats(ChaincodeStub stub) {
+        return stub.createCompositeKey(CONTRAT);
+    }
+
+    /**
+     * Une clé simple peut encore contenir un contrat écrit avant la migration (voir migrerEspacesDeCles).
+     */
+    public static boolean estCleSimple(String cle) {
+        return !cle.isEmpty() && !cle.startsWith(CompositeKey.NAMESPACE);
+    }
+
+    /**
+     * Numéro à largeur fixe: l'ordre lexicographique des clés composites suit l'ordre d'ajout.
+     */
+    private static String numero(int numero) {
+        return String.format(Locale.ROOT, "%010d", numero);
+    }
+}
@@ -0,0 +1,154 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.util.DeterministicMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Traduction des filtres de recherche en requêtes Mango (CouchDB) sur les entêtes de contrats.
+ *
+ * Les index correspondants sont livrés avec le chaincode dans META-INF/statedb/couchdb/indexes;
+ * la table INDEX ci-dessous doit rester alignée sur ces fichiers. Chaque index commence par docType,
+ * qui distingue les entêtes des autres documents du world state.
+ */
+public final class RechercheMango {
+
+    /** Filtres d'égalité acceptés -> champ de l'entête */
+    private static final List<String> FILTRES_EGALITE = Arrays.asList("status", "region", "village", "type", "idufci");
+
+    /** Bornes (incluses) de l'intervalle sur creationDate, au format yyyy-MM-dd'T'HH:mm:ss */
+    public static final String CREATION_DEBUT = "creationDateDebut";
+    public static final String CREATION_FIN = "creationDateFin";
+    public static final String CHAMPS = "champs";
+
+    /** Champs de l'entête qui peuvent être projetés dans la réponse */
+    private static final Set<String> CHAMPS_PROJETABLES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "id", "codeContract", "status", "modifiable", "deletable", "deletedAt", "deletedBy", "deletedReason",
+        "signatureCount", "signatureParties", "actionCount", "hasApprobation", "hasValidation", "bodyHash",
+        "region", "village", "type", "creationDate", "idufci", "surface")));
+
+    private static final List<String> CHAMPS_PAR_DEFAUT = Arrays.asList(
+        "id", "codeContract", "status", "region", "village", "type", "creationDate", "idufci");
+
+    /** Index livrés: nom (ddoc et index) -> champs après docType */
+    private static final Map<String, List<String>> INDEX = new LinkedHashMap<>();
+
+    static {
+        INDEX.put("indexStatut", Arrays.asList("status"));
+        INDEX.put("indexRegion", Arrays.asList("region"));
+        INDEX.put("indexRegionVillage", Arrays.asList("region", "village"));
+        INDEX.put("indexType", Arrays.asList("type"));
+        INDEX.put("indexCreationDate", Arrays.asList("creationDate"));
+        INDEX.put("indexIdufci", Arrays.asList("idufci"));
+        INDEX.put("indexStatutRegion", Arrays.asList("status", "region"));
+        INDEX.put("indexStatutCreationDate", Arrays.asList("status", "creationDate"));
+        INDEX.put("indexRegionCreationDate", Arrays.asList("region", "creationDate"));
+    }
+
+    private RechercheMango() {
+    }
+
+    /**
+     * Construit la requête Mango: sélecteur sur docType et les filtres fournis, champs projetés (l'ID
+     * toujours), et index le plus sélectif couvert par les filtres. Les filtres vides sont ignorés.
+     *
+     * @throws IllegalArgumentException filtre inconnu, date invalide ou champ non projetable
+     */
+    public static String requete(JsonNode filtres) {
+        if (filtres == null || filtres.isNull()) {
+            filtres = DeterministicMapper.shared().createObjectNode();
+        }
+        if (!filtres.isObject()) {
+            throw new IllegalArgumentException("Les filtres doivent être un objet JSON");
+        }
+
+        ObjectNode requete = DeterministicMapper.shared().createObjectNode();
+        ObjectNode selecteur = requete.putObject("selector");
+        selecteur.put("docType", ContratEntete.DOC_TYPE);
+        Set<String> criteres = new HashSet<>();
+
+        Iterator<Map.Entry<String, JsonNode>> champs = filtres.fields();
+        while (champs.hasNext()) {
+            Map.Entry<String, JsonNode> filtre = champs.next();
+            String nom = filtre.getKey();
+            if (CHAMPS.equals(nom)) {
+                continue;
+            }
+            String valeur = filtre.getValue().isNull() ? "" : filtre.getValue().asText().trim();
+            if (FILTRES_EGALITE.contains(nom)) {
+                if (!valeur.isEmpty()) {
+                    selecteur.put(nom, valeur);
+                    criteres.add(nom);
+                }
+            } else if (CREATION_DEBUT.equals(nom) || CREATION_FIN.equals(nom)) {
+                if (!valeur.isEmpty()) {
+                    verifierDate(nom, valeur);
+                    ObjectNode intervalle = selecteur.has("creationDate")
+                        ? (ObjectNode) selecteur.get("creationDate") : selecteur.putObject("creationDate");
+                    intervalle.put(CREATION_DEBUT.equals(nom) ? "$gte" : "$lte", valeur);
+                    criteres.add("creationDate");
+                }
+            } else {
+                throw new IllegalArgumentException("Filtre inconnu: " + nom);
+            }
+        }
+
+        ArrayNode projection = requete.putArray("fields");
+        JsonNode demandes = filtres.get(CHAMPS);
+        if (demandes == null || demandes.isNull() || demandes.size() == 0) {
+            CHAMPS_PAR_DEFAUT.forEach(projection::add);
+        } else {
+            projection.add("id");
+            for (JsonNode demande : demandes) {
+                if (!CHAMPS_PROJETABLES.contains(demande.asText())) {
+                    throw new IllegalArgumentException("Champ non disponible: " + demande.asText());
+                }
+                if (!"id".equals(demande.asText())) {
+                    projection.add(demande.asText());
+                }
+            }
+        }
+
+        String index = meilleurIndex(criteres);
+        if (index != null) {
+            requete.putArray("use_index").add(index).add(index);
+        }
+        return requete.toString();
+    }
+
+    /**
+     * Index dont tous les champs sont filtrés, en préférant le plus grand nombre de champs.
+     * Sans index couvert (docType seul), CouchDB choisit lui-même.
+     */
+    private static String meilleurIndex(Set<String> criteres) {
+        String meilleur = null;
+        int taille = 0;
+        for (Map.Entry<String, List<String>> index : INDEX.entrySet()) {
+            if (criteres.containsAll(index.getValue()) && index.getValue().size() > taille) {
+                meilleur = index.getKey();
+                taille = index.getValue().size();
+            }
+        }
+        return meilleur;
+    }
+
+    private static void verifierDate(String nom, String valeur) {
+        try {
+            LocalDateTime.parse(valeur);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(nom + " doit être au format yyyy-MM-ddTHH:mm:ss: " + valeur);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.util.DeterministicMapper;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Compteurs agrégés des contrats pour les tableaux de bord: nombre de contrats et surface totale
+ * des terrains, au total et par région, statut et type.
+ *
+ * Une transaction ne lit aucun compteur: elle écrit à l'aveugle sa propre variation, sous une clé
+ * STATISTIQUE_DELTA qui porte la période (heure UTC de son horodatage) et son txId. Deux transactions
+ * concurrentes ne partagent donc aucune clé et valident dans le même bloc. La compaction reporte dans
+ * NOMBRE_FRAGMENTS fragments par compteur les variations des périodes closes depuis DELAI_COMPACTION;
+ * la lecture additionne fragments et variations restantes, sans parcourir les contrats.
+ */
+public class StatistiquesContrats {
+
+    public static final int NOMBRE_FRAGMENTS = 16;
+
+    public static final String TOTAL = "TOTAL";
+    public static final String REGION = "REGION";
+    public static final String STATUT = "STATUT";
+    public static final String TYPE = "TYPE";
+
+    /** Valeur retenue pour une dimension non renseignée sur le contrat */
+    public static final String NON_RENSEIGNE = "NON_RENSEIGNE";
+
+    /**
+     * Âge minimal de la fin d'une période avant sa compaction: une transaction validée dans le même bloc
+     * qu'une compaction porte un horodatage récent et écrit dans une période que la compaction ne lit pas.
+     */
+    public static final Duration DELAI_COMPACTION = Duration.ofHours(1);
+
+    /** Entrée META: prochaine période à compacter */
+    static final String CLE_CURSEUR = "STATISTIQUES_COMPACTION";
+
+    private static final DateTimeFormatter PERIODE = DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(ZoneOffset.UTC);
+
+    /**
+     * Ce qu'un contrat ajoute aux compteurs: une unité et sa surface dans chacune de ses dimensions.
+     */
+    public static final class Contribution {
+        private final String status;
+        private final String region;
+        private final String type;
+        private final BigDecimal surface;
+
+        public Contribution(String status, String region, String type, double surface) {
+            this.status = valeur(status);
+            this.region = valeur(region);
+            this.type = valeur(type);
+            this.surface = BigDecimal.valueOf(surface);
+        }
+
+        private static String valeur(String valeur) {
+            return valeur == null || valeur.isBlank() ? NON_RENSEIGNE : valeur;
+        }
+
+        /** Compteurs concernés: [dimension, valeur] */
+        private List<List<String>> compteurs() {
+            return Arrays.asList(Arrays.asList(TOTAL, TOTAL), Arrays.asList(REGION, region),
+                Arrays.asList(STATUT, status), Arrays.asList(TYPE, type));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Contribution)) {
+                return false;
+            }
+            Contribution autre = (Contribution) o;
+            return status.equals(autre.status) && region.equals(autre.region) && type.equals(autre.type)
+                && surface.compareTo(autre.surface) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, region, type, surface.stripTrailingZeros());
+        }
+    }
+
+    /**
+     * Résultat d'une compaction: variations reportées, et termine quand toutes les périodes closes sont compactées.
+     */
+    public static final class Compaction {
+        private final int reportees;
+        private final boolean termine;
+
+        Compaction(int reportees, boolean termine) {
+            this.reportees = reportees;
+            this.termine = termine;
+        }
+
+        public int getReportees() { return reportees; }
+
+        public boolean isTermine() { return termine; }
+    }
+
+    /**
+     * Valeur d'un fragment, et des compteurs additionnés en lecture.
+     */
+    public static class Compteur {
+        private long nombre;
+        private BigDecimal surface = BigDecimal.ZERO;
+
+        void ajouter(long nombre, BigDecimal surface) {
+            this.nombre += nombre;
+            this.surface = this.surface.add(surface);
+        }
+
+        boolean estNul() {
+            return nombre == 0 && surface.signum() == 0;
+        }
+
+        public long getNombre() { return nombre; }
+        public void setNombre(long nombre) { this.nombre = nombre; }
+
+        public BigDecimal getSurface() { return surface; }
+        public void setSurface(BigDecimal surface) { this.surface = surface; }
+    }
+
+    public static int fragment(String txId) {
+        return Math.floorMod(txId.hashCode(), NOMBRE_FRAGMENTS);
+    }
+
+    /** Période d'une variation: l'heure UTC de l'horodatage, par exemple 2026080108 */
+    public static String periode(Instant horodatage) {
+        return PERIODE.format(horodatage);
+    }
+
+    private static String periodeSuivante(String periode) {
+        return periode(LocalDateTime.parse(periode, PERIODE).toInstant(ZoneOffset.UTC).plus(Duration.ofHours(1)));
+    }
+
+    /**
+     * Remplace la contribution d'un contrat (null: contrat pas encore compté) par sa nouvelle contribution.
+     * Seuls les compteurs qui changent reçoivent une variation: une transition de statut en écrit deux.
+     * Un lot qui modifie plusieurs fois le même compteur cumule dans la variation déjà écrite par la
+     * transaction, relue dans le CacheTransaction sans lecture au pair: la clé reste écrite à l'aveugle.
+     */
+    public void enregistrer(ChaincodeStub stub, Contribution avant, Contribution apres) throws IOException {
+        if (Objects.equals(avant, apres)) {
+            return;
+        }
+
+        Map<List<String>, Compteur> deltas = new LinkedHashMap<>();
+        if (avant != null) {
+            for (List<String> dimension : avant.compteurs()) {
+                deltas.computeIfAbsent(dimension, d -> new Compteur()).ajouter(-1, avant.surface.negate());
+            }
+        }
+        if (apres != null) {
+            for (List<String> dimension : apres.compteurs()) {
+                deltas.computeIfAbsent(dimension, d -> new Compteur()).ajouter(1, apres.surface);
+            }
+        }
+
+        CacheTransaction transaction = CacheTransaction.de(stub);
+        String periode = periode(stub.getTxTimestamp());
+        for (Map.Entry<List<String>, Compteur> delta : deltas.entrySet()) {
+            if (delta.getValue().estNul()) {
+                continue;
+            }
+            String cle = LedgerKeys.deltaStatistique(stub, periode, stub.getTxId(), delta.getKey().get(0), delta.getKey().get(1));
+            byte[] ecrite = transaction.ecrite(cle);
+            Compteur variation = ecrite == null ? new Compteur() : DeterministicMapper.reader(Compteur.class).readValue(ecrite);
+            variation.ajouter(delta.getValue().nombre, delta.getValue().surface);
+            DeterministicMapper.putState(transaction, cle, variation);
+        }
+    }
+
+    /**
+     * Reporte au plus limite variations dans les fragments choisis par le txId de la compaction, puis les supprime.
+     * Les périodes sont parcourues dans l'ordre depuis le curseur (entrée META), chacune par sa propre clé
+     * partielle, et seulement si elle est close depuis DELAI_COMPACTION: une variation validée dans le même
+     * bloc tombe dans une période plus récente, hors des plages lues, et ne fait échouer ni elle ni la
+     * compaction. Au plus limite périodes sont examinées, vides comprises. Sans curseur, la première
+     * variation situe le début du parcours; ce seul premier appel peut voir une lecture fantôme.
+     *
+     * Deux compactions concurrentes lisent et écrivent le même curseur et les mêmes fragments: la seconde
+     * du bloc échoue en conflit de lecture et doit être relancée. Une variation horodatée avant le curseur
+     * (horloge du client en retard) reste comptée en lecture mais n'est plus compactée.
+     */
+    public Compaction compacter(ChaincodeStub stub, int limite) throws Exception {
+        String fin = periode(stub.getTxTimestamp().minus(DELAI_COMPACTION));
+        String cleCurseur = LedgerKeys.meta(stub, CLE_CURSEUR);
+        byte[] curseur = stub.getState(cleCurseur);
+        boolean sansCurseur = curseur == null || curseur.length == 0;
+        String periode = sansCurseur ? premierePeriode(stub) : new String(curseur, StandardCharsets.UTF_8);
+        if (periode == null) {
+            return new Compaction(0, true);
+        }
+
+        Map<List<String>, Compteur> cumuls = new LinkedHashMap<>();
+        int reportees = 0;
+        int examinees = 0;
+        String debut = periode;
+        while (periode.compareTo(fin) < 0 && reportees < limite && examinees < limite) {
+            boolean epuisee = true;
+            try (QueryResultsIterator<KeyValue> results =
+                     stub.getStateByPartialCompositeKey(LedgerKeys.deltasStatistiques(stub, periode))) {
+                for (KeyValue result : results) {
+                    if (reportees == limite) {
+                        epuisee = false;
+                        break;
+                    }
+                    List<String> attributs = stub.splitCompositeKey(result.getKey()).getAttributes();
+                    Compteur variation = DeterministicMapper.reader(Compteur.class).readValue(result.getValue());
+                    cumuls.computeIfAbsent(attributs.subList(2, 4), d -> new Compteur())
+                        .ajouter(variation.nombre, variation.surface);
+                    stub.delState(result.getKey());
+                    reportees++;
+                }
+            }
+            examinees++;
+            if (!epuisee) {
+                break;
+            }
+            periode = periodeSuivante(periode);
+        }
+        if (sansCurseur || !periode.equals(debut)) {
+            stub.putState(cleCurseur, periode.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String fragment = String.format(Locale.ROOT, "%02d", fragment(stub.getTxId()));
+        for (Map.Entry<List<String>, Compteur> cumul : cumuls.entrySet()) {
+            if (cumul.getValue().estNul()) {
+                continue;
+            }
+            String cle = LedgerKeys.statistique(stub, cumul.getKey().get(0), cumul.getKey().get(1), fragment);
+            byte[] valeur = stub.getState(cle);
+            Compteur compteur = valeur == null || valeur.length == 0
+                ? new Compteur() : DeterministicMapper.reader(Compteur.class).readValue(valeur);
+            compteur.ajouter(cumul.getValue().nombre, cumul.getValue().surface);
+            DeterministicMapper.putState(stub, cle, compteur);
+        }
+        return new Compaction(reportees, periode.compareTo(fin) >= 0);
+    }
+
+    /**
+     * Période de la plus ancienne variation, en ne lisant que sa clé; null s'il n'y en a aucune.
+     */
+    private String premierePeriode(ChaincodeStub stub) throws Exception {
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(LedgerKeys.deltasStatistiques(stub))) {
+            for (KeyValue result : results) {
+                return stub.splitCompositeKey(result.getKey()).getAttributes().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Somme des fragments et des variations: {TOTAL: {nombre, surface}, REGION: {valeur: {nombre, surface}}, STATUT: {...}, TYPE: {...}}.
+     */
+    public Map<String, Object> lire(ChaincodeStub stub) throws Exception {
+        Compteur total = new Compteur();
+        Map<String, Map<String, Compteur>> parDimension = new TreeMap<>();
+        for (String dimension : Arrays.asList(REGION, STATUT, TYPE)) {
+            parDimension.put(dimension, new TreeMap<>());
+        }
+
+        for (CompositeKey partielle : Arrays.asList(LedgerKeys.statistiques(stub), LedgerKeys.deltasStatistiques(stub))) {
+            try (QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(partielle)) {
+                for (KeyValue result : results) {
+                    List<String> attributs = stub.splitCompositeKey(result.getKey()).getAttributes();
+                    if (attributs.size() == 4) {
+                        // Variation: [période, txId, dimension, valeur]
+                        attributs = attributs.subList(2, 4);
+                    }
+                    Compteur valeur = DeterministicMapper.reader(Compteur.class).readValue(result.getValue());
+                    Compteur cible = TOTAL.equals(attributs.get(0)) ? total
+                        : parDimension.computeIfAbsent(attributs.get(0), d -> new TreeMap<>())
+                            .computeIfAbsent(attributs.get(1), v -> new Compteur());
+                    cible.ajouter(valeur.nombre, valeur.surface);
+                }
+            }
+        }
+
+        // Une valeur dont tous les contrats ont changé de dimension n'est plus affichée
+        parDimension.values().forEach(valeurs -> valeurs.values().removeIf(compteur -> compteur.nombre == 0));
+
+        Map<String, Object> statistiques = new TreeMap<>(parDimension);
+        statistiques.put(TOTAL, total);
+        return statistiques;
+    }
+}
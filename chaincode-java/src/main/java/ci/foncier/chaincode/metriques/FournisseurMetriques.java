@@ -0,0 +1,143 @@
+package ci.foncier.chaincode.metriques;
+
+import com.sun.net.httpserver.HttpServer;
+import org.hyperledger.fabric.metrics.MetricsProvider;
+import org.hyperledger.fabric.metrics.TaskMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+
+/**
+ * Fournisseur de métriques du shim Fabric: active MetriquesTransactions et expose, au format texte
+ * Prometheus sur http://0.0.0.0:<port>/metrics, les métriques des transactions et l'occupation du pool
+ * d'exécution du shim.
+ *
+ * Activation dans l'environnement du chaincode:
+ *   CHAINCODE_METRICS_ENABLED=true
+ *   CHAINCODE_METRICS_PROVIDER=ci.foncier.chaincode.metriques.FournisseurMetriques
+ *   FONCIER_METRIQUES_PORT=9464 (défaut; 0 pour ne pas ouvrir de port)
+ */
+public class FournisseurMetriques implements MetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(FournisseurMetriques.class);
+
+    public static final String PORT_PROPRIETE = "foncier.metriques.port";
+    public static final String PORT_ENV = "FONCIER_METRIQUES_PORT";
+    public static final int PORT_DEFAUT = 9464;
+    public static final String CHEMIN = "/metrics";
+
+    private final MetriquesTransactions metriques;
+    private volatile TaskMetricsCollector taches;
+    private HttpServer serveur;
+
+    /**
+     * Constructeur appelé par le shim (Metrics.initialize).
+     */
+    public FournisseurMetriques() {
+        this(MetriquesTransactions.partagees());
+    }
+
+    public FournisseurMetriques(MetriquesTransactions metriques) {
+        this.metriques = metriques;
+    }
+
+    @Override
+    public void initialize(Properties props) {
+        metriques.activer();
+        int port = port(props);
+        if (port > 0) {
+            demarrer(port);
+        }
+        logger.info("Métriques des transactions actives (port: {})", port > 0 ? port : "aucun");
+    }
+
+    @Override
+    public void setTaskMetricsCollector(TaskMetricsCollector taskService) {
+        this.taches = taskService;
+    }
+
+    /**
+     * Métriques des transactions et du pool d'exécution du shim, au format texte Prometheus.
+     */
+    public String exporter() {
+        StringBuilder sortie = new StringBuilder(8192);
+        metriques.exporter(sortie);
+        TaskMetricsCollector collecteur = taches;
+        if (collecteur != null) {
+            jauge(sortie, "foncier_shim_taches_en_cours", "Transactions en cours d'exécution", collecteur.getCurrentTaskCount());
+            jauge(sortie, "foncier_shim_taches_en_attente", "Transactions en attente d'un thread", collecteur.getCurrentQueueCount());
+            jauge(sortie, "foncier_shim_threads_actifs", "Threads du pool occupés", collecteur.getActiveCount());
+            jauge(sortie, "foncier_shim_threads", "Threads du pool", collecteur.getPoolSize());
+            jauge(sortie, "foncier_shim_threads_max", "Taille maximale du pool", collecteur.getMaximumPoolSize());
+        }
+        return sortie.toString();
+    }
+
+    /**
+     * Arrête le serveur HTTP, s'il a été démarré.
+     */
+    public synchronized void arreter() {
+        if (serveur != null) {
+            serveur.stop(0);
+            serveur = null;
+        }
+    }
+
+    private synchronized void demarrer(int port) {
+        if (serveur != null) {
+            return;
+        }
+        try {
+            serveur = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir le port des métriques " + port, e);
+        }
+        serveur.createContext(CHEMIN, echange -> {
+            byte[] corps = exporter().getBytes(StandardCharsets.UTF_8);
+            echange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            echange.sendResponseHeaders(200, corps.length);
+            try (OutputStream out = echange.getResponseBody()) {
+                out.write(corps);
+            }
+        });
+        serveur.setExecutor(Executors.newSingleThreadExecutor(tache -> {
+            Thread thread = new Thread(tache, "foncier-metriques");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        serveur.start();
+    }
+
+    private static void jauge(StringBuilder sortie, String nom, String aide, long valeur) {
+        MetriquesTransactions.entete(sortie, nom, "gauge", aide);
+        MetriquesTransactions.ligne(sortie, nom, "", valeur);
+    }
+
+    /**
+     * Port d'écoute: propriétés du shim, puis propriété système, puis variable d'environnement.
+     */
+    static int port(Properties props) {
+        String valeur = props == null ? null : props.getProperty(PORT_ENV);
+        if (valeur == null) {
+            valeur = System.getProperty(PORT_PROPRIETE);
+        }
+        if (valeur == null) {
+            valeur = System.getenv(PORT_ENV);
+        }
+        if (valeur == null || valeur.trim().isEmpty()) {
+            return PORT_DEFAUT;
+        }
+        try {
+            return Integer.parseInt(valeur.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Port des métriques invalide: " + valeur, e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ci.foncier.chaincode.metriques;
+
+import ci.foncier.chaincode.ledger.CacheTransaction;
+import ci.foncier.chaincode.util.DeterministicMapper;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Mesures d'une transaction en cours, portées par son StubInstrumente: durée, octets reçus et retournés,
+ * clés lues et écrites, lignes parcourues par les itérateurs et temps passé à (dé)sérialiser du JSON.
+ *
+ * Une transaction Fabric s'exécute sur un seul thread: les compteurs ne sont pas synchronisés.
+ * La mesure est close une seule fois, par afterTransaction en cas de succès ou par echec() sinon,
+ * puis versée dans MetriquesTransactions.
+ */
+public final class MesureTransaction {
+
+    /** Code retenu pour un échec dont l'exception ne porte pas de code */
+    static final String ERREUR_SANS_CODE = "ERREUR";
+
+    private final String transaction;
+    private final MetriquesTransactions metriques;
+
+    private long debut;
+    private long duree;
+    private long octetsEntree;
+    private long octetsSortie;
+    private long clesLues;
+    private long clesEcrites;
+    private long lignesParcourues;
+    private long nanosJson;
+    private String codeErreur;
+    private boolean close;
+
+    MesureTransaction(String transaction, MetriquesTransactions metriques) {
+        this.transaction = transaction;
+        this.metriques = metriques;
+        this.debut = System.nanoTime();
+    }
+
+    /**
+     * Opération de (dé)sérialisation chronométrée par json().
+     */
+    public interface OperationJson<T> {
+        T executer() throws IOException;
+    }
+
+    /**
+     * Mesure de la transaction portée par ce stub, ou null si les métriques ne sont pas actives.
+     */
+    public static MesureTransaction de(ChaincodeStub stub) {
+        if (stub instanceof CacheTransaction) {
+            stub = ((CacheTransaction) stub).pair();
+        }
+        return stub instanceof StubInstrumente ? ((StubInstrumente) stub).mesure() : null;
+    }
+
+    /**
+     * Exécute une opération JSON et ajoute sa durée à la transaction du stub.
+     */
+    public static <T> T json(ChaincodeStub stub, OperationJson<T> operation) throws IOException {
+        MesureTransaction mesure = de(stub);
+        if (mesure == null) {
+            return operation.executer();
+        }
+        long debutJson = System.nanoTime();
+        try {
+            return operation.executer();
+        } finally {
+            mesure.nanosJson += System.nanoTime() - debutJson;
+        }
+    }
+
+    /**
+     * Clôt la mesure en échec avec le code de l'exception et la retourne, pour {@code throw echec(stub, e)}:
+     * afterTransaction n'est pas appelé quand une transaction lève.
+     */
+    public static ChaincodeException echec(ChaincodeStub stub, ChaincodeException e) {
+        MesureTransaction mesure = de(stub);
+        if (mesure != null) {
+            byte[] code = e.getPayload();
+            mesure.clore(code == null || code.length == 0 ? ERREUR_SANS_CODE : new String(code, StandardCharsets.UTF_8));
+        }
+        return e;
+    }
+
+    /**
+     * Début de l'exécution du contrat (beforeTransaction), avec la taille des arguments reçus.
+     */
+    public void demarrer(List<byte[]> arguments) {
+        debut = System.nanoTime();
+        for (byte[] argument : arguments) {
+            octetsEntree += argument.length;
+        }
+    }
+
+    /**
+     * Fin de l'exécution du contrat (afterTransaction). La taille du résultat est celle de sa forme JSON;
+     * pour un objet, sa sérialisation est comptée dans le temps JSON, comme celle que fera le shim.
+     */
+    public void terminer(Object resultat) {
+        if (close) {
+            return;
+        }
+        duree = System.nanoTime() - debut;
+        if (resultat instanceof String) {
+            octetsSortie = longueurUtf8((String) resultat);
+        } else if (resultat instanceof byte[]) {
+            octetsSortie = ((byte[]) resultat).length;
+        } else if (resultat != null) {
+            long debutJson = System.nanoTime();
+            Compteur compteur = new Compteur();
+            try {
+                DeterministicMapper.writer(resultat.getClass()).writeValue(compteur, resultat);
+                octetsSortie = compteur.octets;
+            } catch (IOException e) {
+                octetsSortie = 0;
+            }
+            nanosJson += System.nanoTime() - debutJson;
+        }
+        close = true;
+        metriques.enregistrer(this);
+    }
+
+    private void clore(String code) {
+        if (close) {
+            return;
+        }
+        duree = System.nanoTime() - debut;
+        codeErreur = code;
+        close = true;
+        metriques.enregistrer(this);
+    }
+
+    void cleLue() {
+        clesLues++;
+    }
+
+    void cleEcrite() {
+        clesEcrites++;
+    }
+
+    void ligneParcourue() {
+        lignesParcourues++;
+    }
+
+    String transaction() {
+        return transaction;
+    }
+
+    long duree() {
+        return duree;
+    }
+
+    long octetsEntree() {
+        return octetsEntree;
+    }
+
+    long octetsSortie() {
+        return octetsSortie;
+    }
+
+    long clesLues() {
+        return clesLues;
+    }
+
+    long clesEcrites() {
+        return clesEcrites;
+    }
+
+    long lignesParcourues() {
+        return lignesParcourues;
+    }
+
+    long nanosJson() {
+        return nanosJson;
+    }
+
+    /**
+     * Code d'erreur de la transaction, ou null si elle a réussi.
+     */
+    String codeErreur() {
+        return codeErreur;
+    }
+
+    private static long longueurUtf8(String texte) {
+        long octets = 0;
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c < 0x80) {
+                octets++;
+            } else if (c < 0x800) {
+                octets += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texte.length() && Character.isLowSurrogate(texte.charAt(i + 1))) {
+                octets += 4;
+                i++;
+            } else {
+                octets += 3;
+            }
+        }
+        return octets;
+    }
+
+    /**
+     * Flux qui ne garde que le nombre d'octets écrits.
+     */
+    private static final class Compteur extends OutputStream {
+        private long octets;
+
+        @Override
+        public void write(int b) {
+            octets++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            octets += len;
+        }
+    }
+}
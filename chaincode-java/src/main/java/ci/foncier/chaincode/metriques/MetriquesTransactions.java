@@ -0,0 +1,188 @@
+package ci.foncier.chaincode.metriques;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métriques cumulées par transaction du contrat depuis le démarrage du chaincode: histogramme des latences,
+ * octets reçus et retournés, clés lues et écrites, lignes parcourues, temps JSON et erreurs par code.
+ * Exportées au format texte Prometheus par FournisseurMetriques.
+ *
+ * Inactives par défaut: aucun stub n'est instrumenté. Elles s'activent quand le shim charge
+ * FournisseurMetriques (CHAINCODE_METRICS_ENABLED, CHAINCODE_METRICS_PROVIDER), ou par la propriété
+ * système foncier.metriques / la variable d'environnement FONCIER_METRIQUES.
+ */
+public final class MetriquesTransactions {
+
+    public static final String PROPRIETE = "foncier.metriques";
+    public static final String ENV = "FONCIER_METRIQUES";
+
+    /** Bornes supérieures des seaux de l'histogramme des latences, en secondes */
+    static final double[] BORNES_LATENCE = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final MetriquesTransactions PARTAGEES = new MetriquesTransactions(activeParConfiguration());
+
+    private final Map<String, Statistiques> parTransaction = new ConcurrentSkipListMap<>();
+    private volatile boolean active;
+
+    public MetriquesTransactions(boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * Métriques du chaincode, partagées entre le contrat et le fournisseur instancié par le shim.
+     */
+    public static MetriquesTransactions partagees() {
+        return PARTAGEES;
+    }
+
+    public boolean active() {
+        return active;
+    }
+
+    public void activer() {
+        active = true;
+    }
+
+    /**
+     * Stub instrumenté pour une nouvelle transaction. Le nom retenu est celui de la fonction appelée,
+     * sans le préfixe du contrat.
+     */
+    public ChaincodeStub instrumenter(ChaincodeStub stub) {
+        String fonction = stub.getFunction();
+        String transaction = fonction == null ? "" : fonction.substring(fonction.lastIndexOf(':') + 1);
+        return new StubInstrumente(stub, new MesureTransaction(transaction, this));
+    }
+
+    void enregistrer(MesureTransaction mesure) {
+        parTransaction.computeIfAbsent(mesure.transaction(), cle -> new Statistiques()).ajouter(mesure);
+    }
+
+    /**
+     * Métriques au format texte Prometheus (version 0.0.4), une série par transaction.
+     */
+    public void exporter(StringBuilder sortie) {
+        entete(sortie, "foncier_transaction_duree_secondes", "histogram",
+            "Durée d'exécution des transactions du contrat");
+        for (Map.Entry<String, Statistiques> entree : parTransaction.entrySet()) {
+            String etiquette = "transaction=\"" + echapper(entree.getKey()) + "\"";
+            Statistiques statistiques = entree.getValue();
+            // Le cumul des seaux lus une fois sert aussi de +Inf et de _count: l'histogramme exporté reste cohérent
+            long cumul = 0;
+            for (int i = 0; i < BORNES_LATENCE.length; i++) {
+                cumul += statistiques.seaux.get(i);
+                ligne(sortie, "foncier_transaction_duree_secondes_bucket",
+                    etiquette + ",le=\"" + BORNES_LATENCE[i] + "\"", cumul);
+            }
+            cumul += statistiques.seaux.get(BORNES_LATENCE.length);
+            ligne(sortie, "foncier_transaction_duree_secondes_bucket", etiquette + ",le=\"+Inf\"", cumul);
+            ligne(sortie, "foncier_transaction_duree_secondes_sum", etiquette, secondes(statistiques.nanos.sum()));
+            ligne(sortie, "foncier_transaction_duree_secondes_count", etiquette, cumul);
+        }
+
+        compteur(sortie, "foncier_transaction_octets_entree_total", "Octets des arguments reçus", s -> s.octetsEntree.sum());
+        compteur(sortie, "foncier_transaction_octets_sortie_total", "Octets des résultats retournés (forme JSON)",
+            s -> s.octetsSortie.sum());
+        compteur(sortie, "foncier_transaction_cles_lues_total", "Clés lues par getState", s -> s.clesLues.sum());
+        compteur(sortie, "foncier_transaction_cles_ecrites_total", "Clés écrites ou supprimées", s -> s.clesEcrites.sum());
+        compteur(sortie, "foncier_transaction_lignes_parcourues_total",
+            "Lignes parcourues par les itérateurs de parcours, de requête et d'historique", s -> s.lignesParcourues.sum());
+        compteur(sortie, "foncier_transaction_json_secondes_total", "Temps passé à (dé)sérialiser du JSON",
+            s -> secondes(s.nanosJson.sum()));
+
+        entete(sortie, "foncier_transaction_erreurs_total", "counter", "Transactions en échec, par code d'erreur");
+        for (Map.Entry<String, Statistiques> entree : parTransaction.entrySet()) {
+            for (Map.Entry<String, LongAdder> erreur : entree.getValue().erreurs.entrySet()) {
+                ligne(sortie, "foncier_transaction_erreurs_total", "transaction=\"" + echapper(entree.getKey())
+                    + "\",code=\"" + echapper(erreur.getKey()) + "\"", erreur.getValue().sum());
+            }
+        }
+    }
+
+    /**
+     * Remet toutes les métriques à zéro.
+     */
+    public void reinitialiser() {
+        parTransaction.clear();
+    }
+
+    private interface Valeur {
+        Number lire(Statistiques statistiques);
+    }
+
+    private void compteur(StringBuilder sortie, String nom, String aide, Valeur valeur) {
+        entete(sortie, nom, "counter", aide);
+        for (Map.Entry<String, Statistiques> entree : parTransaction.entrySet()) {
+            ligne(sortie, nom, "transaction=\"" + echapper(entree.getKey()) + "\"", valeur.lire(entree.getValue()));
+        }
+    }
+
+    static void entete(StringBuilder sortie, String nom, String type, String aide) {
+        sortie.append("# HELP ").append(nom).append(' ').append(aide).append('\n');
+        sortie.append("# TYPE ").append(nom).append(' ').append(type).append('\n');
+    }
+
+    static void ligne(StringBuilder sortie, String nom, String etiquettes, Number valeur) {
+        sortie.append(nom);
+        if (!etiquettes.isEmpty()) {
+            sortie.append('{').append(etiquettes).append('}');
+        }
+        sortie.append(' ').append(valeur).append('\n');
+    }
+
+    private static String echapper(String valeur) {
+        return valeur.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double secondes(long nanos) {
+        return nanos / 1e9;
+    }
+
+    static boolean activeParConfiguration() {
+        String valeur = System.getProperty(PROPRIETE);
+        if (valeur == null) {
+            valeur = System.getenv(ENV);
+        }
+        return Boolean.parseBoolean(valeur);
+    }
+
+    /**
+     * Cumuls d'une transaction, mis à jour sans verrou par les transactions concurrentes.
+     */
+    private static final class Statistiques {
+        private final LongAdder nanos = new LongAdder();
+        /** Un seau par borne, plus un dernier pour les durées au-delà de la plus grande */
+        private final AtomicLongArray seaux = new AtomicLongArray(BORNES_LATENCE.length + 1);
+        private final LongAdder octetsEntree = new LongAdder();
+        private final LongAdder octetsSortie = new LongAdder();
+        private final LongAdder clesLues = new LongAdder();
+        private final LongAdder clesEcrites = new LongAdder();
+        private final LongAdder lignesParcourues = new LongAdder();
+        private final LongAdder nanosJson = new LongAdder();
+        private final Map<String, LongAdder> erreurs = new ConcurrentSkipListMap<>();
+
+        void ajouter(MesureTransaction mesure) {
+            double duree = secondes(mesure.duree());
+            int seau = 0;
+            while (seau < BORNES_LATENCE.length && duree > BORNES_LATENCE[seau]) {
+                seau++;
+            }
+            seaux.incrementAndGet(seau);
+            nanos.add(mesure.duree());
+            octetsEntree.add(mesure.octetsEntree());
+            octetsSortie.add(mesure.octetsSortie());
+            clesLues.add(mesure.clesLues());
+            clesEcrites.add(mesure.clesEcrites());
+            lignesParcourues.add(mesure.lignesParcourues());
+            nanosJson.add(mesure.nanosJson());
+            if (mesure.codeErreur() != null) {
+                erreurs.computeIfAbsent(mesure.codeErreur(), code -> new LongAdder()).increment();
+            }
+        }
+    }
+}
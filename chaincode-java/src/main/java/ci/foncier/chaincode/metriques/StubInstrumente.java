@@ -0,0 +1,316 @@
+package ci.foncier.chaincode.metriques;
+
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stub de la transaction qui délègue au stub du pair et compte, dans sa MesureTransaction, les clés lues
+ * (getState) et écrites (putState, delState) et les lignes effectivement parcourues par les itérateurs
+ * de parcours, de requête et d'historique.
+ *
+ * Il s'intercale, dans le Context créé par FoncierChaincode.createContext, entre le CacheTransaction et
+ * le stub du pair: seules les lectures qui atteignent le pair sont comptées.
+ */
+public class StubInstrumente implements ChaincodeStub {
+
+    private final ChaincodeStub stub;
+    private final MesureTransaction mesure;
+
+    StubInstrumente(ChaincodeStub stub, MesureTransaction mesure) {
+        this.stub = stub;
+        this.mesure = mesure;
+    }
+
+    MesureTransaction mesure() {
+        return mesure;
+    }
+
+    // Lectures et écritures comptées
+
+    @Override
+    public byte[] getState(String key) {
+        mesure.cleLue();
+        return stub.getState(key);
+    }
+
+    @Override
+    public void putState(String key, byte[] value) {
+        mesure.cleEcrite();
+        stub.putState(key, value);
+    }
+
+    @Override
+    public void delState(String key) {
+        mesure.cleEcrite();
+        stub.delState(key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(String startKey, String endKey) {
+        return new Resultats<>(stub.getStateByRange(startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(String startKey, String endKey,
+                                                                                   int pageSize, String bookmark) {
+        return new Page(stub.getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String compositeKey) {
+        return new Resultats<>(stub.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String objectType, String... attributes) {
+        return new Resultats<>(stub.getStateByPartialCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(CompositeKey compositeKey) {
+        return new Resultats<>(stub.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(CompositeKey compositeKey,
+                                                                                                 int pageSize, String bookmark) {
+        return new Page(stub.getStateByPartialCompositeKeyWithPagination(compositeKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(String query) {
+        return new Resultats<>(stub.getQueryResult(query));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(String query, int pageSize, String bookmark) {
+        return new Page(stub.getQueryResultWithPagination(query, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(String key) {
+        return new Resultats<>(stub.getHistoryForKey(key));
+    }
+
+    private class Resultats<T> implements QueryResultsIterator<T> {
+        private final Iterable<T> resultats;
+        private final AutoCloseable fermeture;
+
+        Resultats(QueryResultsIterator<T> resultats) {
+            this(resultats, resultats);
+        }
+
+        Resultats(Iterable<T> resultats, AutoCloseable fermeture) {
+            this.resultats = resultats;
+            this.fermeture = fermeture;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            Iterator<T> source = resultats.iterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return source.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    T element = source.next();
+                    mesure.ligneParcourue();
+                    return element;
+                }
+            };
+        }
+
+        @Override
+        public void close() throws Exception {
+            fermeture.close();
+        }
+    }
+
+    private final class Page extends Resultats<KeyValue> implements QueryResultsIteratorWithMetadata<KeyValue> {
+        private final QueryResultsIteratorWithMetadata<KeyValue> page;
+
+        Page(QueryResultsIteratorWithMetadata<KeyValue> page) {
+            super(page, page);
+            this.page = page;
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return page.getMetadata();
+        }
+    }
+
+    // Délégation simple
+
+    @Override
+    public List<byte[]> getArgs() {
+        return stub.getArgs();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return stub.getStringArgs();
+    }
+
+    @Override
+    public String getFunction() {
+        return stub.getFunction();
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return stub.getParameters();
+    }
+
+    @Override
+    public String getTxId() {
+        return stub.getTxId();
+    }
+
+    @Override
+    public String getChannelId() {
+        return stub.getChannelId();
+    }
+
+    @Override
+    public Chaincode.Response invokeChaincode(String chaincodeName, List<byte[]> args, String channel) {
+        return stub.invokeChaincode(chaincodeName, args, channel);
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(String key) {
+        return stub.getStateValidationParameter(key);
+    }
+
+    @Override
+    public void setStateValidationParameter(String key, byte[] value) {
+        stub.setStateValidationParameter(key, value);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(String objectType, String... attributes) {
+        return stub.createCompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(String compositeKey) {
+        return stub.splitCompositeKey(compositeKey);
+    }
+
+    @Override
+    public byte[] getPrivateData(String collection, String key) {
+        return stub.getPrivateData(collection, key);
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(String collection, String key) {
+        return stub.getPrivateDataHash(collection, key);
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(String collection, String key) {
+        return stub.getPrivateDataValidationParameter(collection, key);
+    }
+
+    @Override
+    public void putPrivateData(String collection, String key, byte[] value) {
+        stub.putPrivateData(collection, key, value);
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(String collection, String key, byte[] value) {
+        stub.setPrivateDataValidationParameter(collection, key, value);
+    }
+
+    @Override
+    public void delPrivateData(String collection, String key) {
+        stub.delPrivateData(collection, key);
+    }
+
+    @Override
+    public void purgePrivateData(String collection, String key) {
+        stub.purgePrivateData(collection, key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(String collection, String startKey, String endKey) {
+        return stub.getPrivateDataByRange(collection, startKey, endKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, String compositeKey) {
+        return stub.getPrivateDataByPartialCompositeKey(collection, compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, CompositeKey compositeKey) {
+        return stub.getPrivateDataByPartialCompositeKey(collection, compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, String objectType,
+                                                                              String... attributes) {
+        return stub.getPrivateDataByPartialCompositeKey(collection, objectType, attributes);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(String collection, String query) {
+        return stub.getPrivateDataQueryResult(collection, query);
+    }
+
+    @Override
+    public void setEvent(String name, byte[] payload) {
+        stub.setEvent(name, payload);
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return stub.getEvent();
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return stub.getSignedProposal();
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return stub.getTxTimestamp();
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return stub.getCreator();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return stub.getTransient();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return stub.getBinding();
+    }
+
+    @Override
+    public String getMspId() {
+        return stub.getMspId();
+    }
+}
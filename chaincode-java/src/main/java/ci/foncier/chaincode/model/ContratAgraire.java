@@ -307,8 +307,11 @@ public class ContratAgraire {
         this.type = type;
         this.region = region;
         this.village = village;
-        this.creationDate = LocalDateTime.now();
+        // Pas de date par défaut: creationDate doit venir du client (voir FoncierChaincode.verifierNouveauContrat)
         this.contractSignatory = new ArrayList<>();
+        // Jackson utilise ce constructeur: les listes du workflow doivent exister comme avec le constructeur par défaut
+        this.actions = new ArrayList<>();
+        this.signatures = new ArrayList<>();
     }
 
     // Getters et Setters (tous les champs)
@@ -1,24 +1,94 @@
 package ci.foncier.chaincode.util;
 
+import ci.foncier.chaincode.model.Actor;
+import ci.foncier.chaincode.model.ContractApprobation;
+import ci.foncier.chaincode.model.ContractValidation;
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.model.PartySignature;
+import ci.foncier.chaincode.model.WorkflowAction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class to create a deterministic JSON mapper
  * Ensures consistent JSON serialization across different JVMs/peers
+ *
+ * Le mapper partagé expose des ObjectReader/ObjectWriter immuables, construits une fois par type:
+ * les transactions n'ont plus à résoudre les (dé)sérialiseurs à chaque appel, et les écritures
+ * passent directement en octets UTF-8, sans String intermédiaire.
  */
 public class DeterministicMapper {
     
     // Format ISO 8601 strict: yyyy-MM-dd'T'HH:mm:ss
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
     
+    /**
+     * Active le module Blackbird (accesseurs générés par LambdaMetafactory au lieu de la réflexion).
+     * Il ne change ni l'ordre ni le format des propriétés: la sortie reste identique octet pour octet.
+     * Propriété système prioritaire sur la variable d'environnement; désactivé par défaut.
+     */
+    public static final String BLACKBIRD_PROPERTY = "foncier.jackson.blackbird";
+    public static final String BLACKBIRD_ENV = "FONCIER_JACKSON_BLACKBIRD";
+    
+    // Types lus et écrits par le chaincode: leurs lecteurs et rédacteurs sont préparés au chargement
+    private static final List<Class<?>> MODEL_TYPES = Arrays.asList(
+        ContratAgraire.class, PartySignature.class, WorkflowAction.class,
+        ContractApprobation.class, ContractValidation.class, Actor.class, Map.class);
+    
+    private static final ObjectMapper SHARED = create();
+    private static final ObjectMapper SHARED_CBOR = createCbor();
+    private static final ObjectWriter WRITER = SHARED.writer();
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectReader> CBOR_READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> CBOR_WRITERS = new ConcurrentHashMap<>();
+    
+    static {
+        for (Class<?> type : MODEL_TYPES) {
+            READERS.put(type, SHARED.readerFor(type));
+            WRITERS.put(type, SHARED.writerFor(type));
+            CBOR_READERS.put(type, SHARED_CBOR.readerFor(type));
+            CBOR_WRITERS.put(type, SHARED_CBOR.writerFor(type));
+        }
+    }
+    
     public static ObjectMapper create() {
-        ObjectMapper mapper = new ObjectMapper();
-        
+        return configurer(new ObjectMapper());
+    }
+    
+    /**
+     * Mapper CBOR pour l'encodage binaire des enregistrements: mêmes modules et formats de date que le JSON,
+     * propriétés triées par nom et entiers écrits à largeur fixe selon leur type Java, pour un encodage
+     * identique sur tous les pairs.
+     */
+    public static ObjectMapper createCbor() {
+        CBORFactory factory = CBORFactory.builder()
+            .disable(CBORGenerator.Feature.WRITE_MINIMAL_INTS)
+            .build();
+        return configurer(CBORMapper.builder(factory)
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build());
+    }
+    
+    private static ObjectMapper configurer(ObjectMapper mapper) {
         // Configure JavaTimeModule avec format strict
         JavaTimeModule javaTimeModule = new JavaTimeModule();
         javaTimeModule.addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(FORMATTER));
@@ -31,6 +101,67 @@ public class DeterministicMapper {
         // Déterminisme: tri des clés JSON
         mapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
         
+        if (blackbirdActive()) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        
         return mapper;
     }
+    
+    /**
+     * Mapper partagé, configuré par create(). Ne pas le reconfigurer: les lecteurs et rédacteurs en dérivent.
+     */
+    public static ObjectMapper shared() {
+        return SHARED;
+    }
+    
+    public static ObjectReader reader(Class<?> type) {
+        return READERS.computeIfAbsent(type, SHARED::readerFor);
+    }
+    
+    /**
+     * Rédacteur pour un type donné: le sérialiseur racine est résolu une seule fois.
+     */
+    public static ObjectWriter writer(Class<?> type) {
+        return WRITERS.computeIfAbsent(type, SHARED::writerFor);
+    }
+    
+    public static ObjectMapper sharedCbor() {
+        return SHARED_CBOR;
+    }
+    
+    public static ObjectReader cborReader(Class<?> type) {
+        return CBOR_READERS.computeIfAbsent(type, SHARED_CBOR::readerFor);
+    }
+    
+    public static ObjectWriter cborWriter(Class<?> type) {
+        return CBOR_WRITERS.computeIfAbsent(type, SHARED_CBOR::writerFor);
+    }
+    
+    public static ObjectWriter writer() {
+        return WRITER;
+    }
+    
+    public static byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+        return writer(value.getClass()).writeValueAsBytes(value);
+    }
+    
+    public static String writeValueAsString(Object value) throws JsonProcessingException {
+        return writer(value.getClass()).writeValueAsString(value);
+    }
+    
+    /**
+     * Sérialise directement en octets UTF-8 pour le world state (au lieu de putStringState).
+     */
+    public static void putState(ChaincodeStub stub, String key, Object value) throws JsonProcessingException {
+        stub.putState(key, writeValueAsBytes(value));
+    }
+    
+    static boolean blackbirdActive() {
+        String valeur = System.getProperty(BLACKBIRD_PROPERTY);
+        if (valeur == null) {
+            valeur = System.getenv(BLACKBIRD_ENV);
+        }
+        return Boolean.parseBoolean(valeur);
+    }
 }
@@ -0,0 +1,36 @@
+package ci.foncier.chaincode.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Empreintes SHA-256 des enregistrements stockés
+ */
+public final class Hashes {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Hashes() {
+    }
+
+    public static byte[] sha256(byte[] donnees) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(donnees);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    public static String sha256Hex(byte[] donnees) {
+        return hex(sha256(donnees));
+    }
+
+    public static String hex(byte[] octets) {
+        char[] resultat = new char[octets.length * 2];
+        for (int i = 0; i < octets.length; i++) {
+            resultat[2 * i] = HEX[(octets[i] >> 4) & 0x0f];
+            resultat[2 * i + 1] = HEX[octets[i] & 0x0f];
+        }
+        return new String(resultat);
+    }
+}
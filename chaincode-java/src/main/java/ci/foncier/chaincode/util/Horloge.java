@@ -0,0 +1,15 @@
+package ci.foncier.chaincode.util;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.time.LocalDateTime;
+
+/**
+ * Source de la date et de l'heure inscrites dans les enregistrements (actions du workflow, suppression).
+ * Tous les pairs endosseurs doivent obtenir la même valeur pour une même transaction: l'horloge
+ * du pair ne doit jamais être utilisée sur un chemin d'endossement.
+ */
+public interface Horloge {
+
+    LocalDateTime maintenant(ChaincodeStub stub);
+}
@@ -0,0 +1,20 @@
+package ci.foncier.chaincode.util;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Horloge de production: l'horodatage de la transaction, fixé par le client dans la proposition
+ * et identique sur tous les pairs. Exprimé en UTC et tronqué à la seconde, comme il est sérialisé
+ * (voir DeterministicMapper): la vue retournée est celle qui est stockée.
+ */
+public class HorlogeTransaction implements Horloge {
+
+    @Override
+    public LocalDateTime maintenant(ChaincodeStub stub) {
+        return LocalDateTime.ofInstant(stub.getTxTimestamp(), ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+    }
+}
@@ -0,0 +1,121 @@
+package ci.foncier.chaincode.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture partielle d'un document JSON avec le parser en flux de Jackson: seuls les champs demandés
+ * sont extraits, tout le reste est sauté sans construire d'objet.
+ *
+ * Un chemin désigne un champ de premier niveau ("status") ou un champ d'un objet imbriqué ("owner.name").
+ * À travers un tableau d'objets ("signatures.partyType"), la valeur est la liste des valeurs trouvées dans
+ * chaque élément. Les scalaires sont retournés en String, Boolean ou Number; une valeur structurée
+ * demandée explicitement ("validation") est retournée sous forme d'arbre (JsonNode).
+ */
+public final class JsonProjection {
+
+    private JsonProjection() {
+    }
+
+    /**
+     * Extrait les chemins demandés. Un chemin absent du document est absent du résultat;
+     * un chemin à travers un tableau présent mais vide donne une liste vide.
+     * La factory doit être celle d'un ObjectMapper pour les valeurs structurées.
+     */
+    public static Map<String, Object> projeter(JsonFactory factory, byte[] json, Collection<String> chemins)
+            throws IOException {
+        try (JsonParser parser = factory.createParser(json)) {
+            return projeter(parser, chemins);
+        }
+    }
+
+    /**
+     * Même extraction sur un parser déjà ouvert (JSON ou CBOR), positionné avant le document.
+     * Le parser n'est pas fermé.
+     */
+    public static Map<String, Object> projeter(JsonParser parser, Collection<String> chemins) throws IOException {
+        Map<String, Object> valeurs = new HashMap<>();
+        boolean imbrique = chemins.stream().anyMatch(chemin -> chemin.indexOf('.') >= 0);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return valeurs;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            lireChamp(parser, "", chemins, valeurs, false);
+            // Champs de premier niveau seulement: inutile de lire la suite une fois tous trouvés
+            if (!imbrique && valeurs.size() == chemins.size()) {
+                break;
+            }
+        }
+        return valeurs;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void lireChamp(JsonParser parser, String prefixe, Collection<String> chemins,
+                                  Map<String, Object> valeurs, boolean liste) throws IOException {
+        String chemin = prefixe + parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+
+        if (chemins.contains(chemin)) {
+            Object valeur = token.isStructStart() ? parser.readValueAsTree() : scalaire(parser, token);
+            if (liste) {
+                ((List<Object>) valeurs.computeIfAbsent(chemin, k -> new ArrayList<>())).add(valeur);
+            } else {
+                valeurs.put(chemin, valeur);
+            }
+        } else if (token == JsonToken.START_OBJECT && estPrefixe(chemins, chemin)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                lireChamp(parser, chemin + ".", chemins, valeurs, liste);
+            }
+        } else if (token == JsonToken.START_ARRAY && estPrefixe(chemins, chemin)) {
+            for (String demande : chemins) {
+                if (demande.startsWith(chemin + ".")) {
+                    valeurs.computeIfAbsent(demande, k -> new ArrayList<>());
+                }
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        lireChamp(parser, chemin + ".", chemins, valeurs, true);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private static boolean estPrefixe(Collection<String> chemins, String chemin) {
+        for (String demande : chemins) {
+            if (demande.startsWith(chemin + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object scalaire(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
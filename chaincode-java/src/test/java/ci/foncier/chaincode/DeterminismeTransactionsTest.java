@@ -0,0 +1,124 @@
+package ci.foncier.chaincode;
+
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.StubMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Les transactions du chaincode rejouées par deux pairs endosseurs (VerificateurDeterminisme): mêmes
+ * écritures, même événement et même réponse pour chacune, sur tout le cycle de vie d'un contrat.
+ */
+class DeterminismeTransactionsTest {
+
+    private static final Instant DEBUT = Instant.parse("2026-07-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private RegistreMemoire registre;
+    private int numero;
+
+    @BeforeEach
+    void initialiser() throws Exception {
+        registre = new RegistreMemoire();
+        soumettre(ctx -> {
+            chaincode.initLedger(ctx);
+            return null;
+        });
+    }
+
+    @Test
+    void cycleDeVieUnitaire() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("D-1", "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(ctx -> chaincode.modifierContrat(ctx, "D-1",
+            ContratsExemple.contrat("D-1", "Kouassi Yao", "Konan Aya", "Gbêkê", "4.0")));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, "D-1", ContratsExemple.signature("OWNER")));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, "D-1", ContratsExemple.signature("BENEFICIARY")));
+        soumettre(ctx -> chaincode.compacterContrat(ctx, "D-1"));
+        soumettre(ctx -> chaincode.approuverContrat(ctx, "D-1", ContratsExemple.approbation()));
+        soumettre(ctx -> chaincode.validerContrat(ctx, "D-1", ContratsExemple.validation()));
+        StubMemoire rejet = soumettre(ctx -> chaincode.rejeterContrat(ctx, "D-1", ContratsExemple.rejecteur(), "Pièce manquante"));
+
+        assertThat(rejet.getEcritures()).isNotEmpty();
+        assertThat(statut("D-1")).isEqualTo("REJECTED");
+    }
+
+    @Test
+    void lotsDeTransitions() throws Exception {
+        StubMemoire creation = soumettre(ctx -> chaincode.creerContratsBatch(ctx, "["
+            + ContratsExemple.contrat("L-1", "Kouassi Yao", "Konan Aya", "Gbêkê") + ","
+            + ContratsExemple.contrat("L-2", "Bamba Awa", "Koné Ibrahim", "Poro") + ","
+            + ContratsExemple.contrat("L-1", "Doublon", "Doublon", "Poro") + "]", "SKIP_INVALID"));
+        assertThat(creation.getNomEvenement()).isNotNull();
+        for (String id : new String[] {"L-1", "L-2"}) {
+            soumettre(ctx -> chaincode.ajouterSignature(ctx, id, ContratsExemple.signature("OWNER")));
+            soumettre(ctx -> chaincode.ajouterSignature(ctx, id, ContratsExemple.signature("BENEFICIARY")));
+        }
+        soumettre(ctx -> chaincode.approuverContratsBatch(ctx, "["
+            + element("L-1", "approbation", ContratsExemple.approbation()) + ","
+            + element("L-2", "approbation", ContratsExemple.approbation()) + "]", "ALL_OR_NOTHING"));
+        soumettre(ctx -> chaincode.validerContratsBatch(ctx, "["
+            + element("L-1", "validation", ContratsExemple.validation()) + ","
+            + element("L-3", "validation", ContratsExemple.validation()) + "]", "SKIP_INVALID"));
+
+        assertThat(statut("L-1")).isEqualTo("VALIDATED");
+        assertThat(statut("L-2")).isEqualTo("APPROVED");
+    }
+
+    @Test
+    void maintenanceEtEncodageCbor() throws Exception {
+        soumettre(ctx -> chaincode.definirEncodageStockage(ctx, "CBOR"));
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("M-1", "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("M-2", "Bamba Awa", "Koné Ibrahim", "Poro")));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, "M-1", ContratsExemple.signature("OWNER")));
+        soumettre(ctx -> {
+            chaincode.supprimerContrat(ctx, "M-2", ContratsExemple.rejecteur(), "Doublon");
+            return null;
+        });
+        soumettre(ctx -> chaincode.compacterStatistiques(ctx, 100));
+        soumettre(ctx -> chaincode.migrerEspacesDeCles(ctx, 100));
+        soumettre(ctx -> chaincode.comptabiliserContrats(ctx, 100));
+
+        assertThat(statut("M-1")).isEqualTo("DRAFT");
+        assertThat(statut("M-2")).isEqualTo("DELETED");
+    }
+
+    @Test
+    void ecritureDependantDuPairEstDetectee() {
+        assertThatThrownBy(() -> VerificateurDeterminisme.verifier(chaincode, registre, "tx-divergent", DEBUT,
+            ctx -> {
+                ctx.getStub().putState("horloge", Long.toString(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+                return null;
+            }))
+            .isInstanceOf(AssertionError.class)
+            .hasMessageContaining("valeur différente: horloge");
+    }
+
+    private static String element(String contratId, String champ, String donnees) {
+        return "{\"contratId\":\"" + contratId + "\",\"" + champ + "\":" + donnees + "}";
+    }
+
+    private String statut(String contratId) throws Exception {
+        JsonNode statut = JSON.readTree((String) VerificateurDeterminisme.executer(chaincode,
+            registre.endosser("lecture", DEBUT), ctx -> chaincode.lireStatutContrat(ctx, contratId)));
+        return statut.path("status").asText();
+    }
+
+    private StubMemoire soumettre(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        numero++;
+        StubMemoire stub = VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+            DEBUT.plusSeconds(numero), transaction);
+        assertThat(registre.valider(stub)).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+        return stub;
+    }
+}
@@ -0,0 +1,105 @@
+package ci.foncier.chaincode;
+
+import ci.foncier.chaincode.ledger.EncodageStockage;
+import ci.foncier.chaincode.ledger.LedgerKeys;
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.StubMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import ci.foncier.chaincode.util.DeterministicMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enregistrements froids en CBOR: un contrat écrit en CBOR se relit comme le même contrat écrit en JSON,
+ * et un contrat dont les enregistrements mêlent les deux formats reste lisible et vérifiable.
+ */
+class EncodageStockageTest {
+
+    private static final String ID = "E-1";
+    private static final Instant DEBUT = Instant.parse("2026-09-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+
+    @Test
+    void contratEnCborSeRelitCommeEnJson() throws Exception {
+        RegistreMemoire json = cycleDeVie("JSON");
+        RegistreMemoire cbor = cycleDeVie("CBOR");
+
+        assertThat(premierOctet(cbor, LedgerKeys.corps(new StubMemoire(), ID))).isEqualTo(EncodageStockage.VERSION_CBOR);
+        assertThat(premierOctet(cbor, LedgerKeys.approbation(new StubMemoire(), ID))).isEqualTo(EncodageStockage.VERSION_CBOR);
+        assertThat(premierOctet(json, LedgerKeys.corps(new StubMemoire(), ID))).isEqualTo((byte) '{');
+        // L'entête reste en JSON pour les requêtes CouchDB
+        assertThat(premierOctet(cbor, LedgerKeys.entete(new StubMemoire(), ID))).isEqualTo((byte) '{');
+
+        // Mêmes documents; l'ordre des champs recopiés depuis le CBOR peut différer
+        assertThat(JSON.readTree(lireContrat(cbor))).isEqualTo(JSON.readTree(lireContrat(json)));
+        assertThat(JSON.readTree(evaluer(cbor, ctx -> chaincode.lireActionsContrat(ctx, ID, 10, ""))))
+            .isEqualTo(JSON.readTree(evaluer(json, ctx -> chaincode.lireActionsContrat(ctx, ID, 10, ""))));
+        assertThat(JSON.readTree(evaluer(cbor, ctx -> chaincode.verifierContrat(ctx, ID))).path("integrite").asText())
+            .isEqualTo("OK");
+    }
+
+    @Test
+    void formatsMelangesRestentLisibles() throws Exception {
+        RegistreMemoire registre = new RegistreMemoire();
+        soumettre(registre, 1, ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(registre, 2, ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("OWNER")));
+        soumettre(registre, 3, ctx -> chaincode.definirEncodageStockage(ctx, "CBOR"));
+        soumettre(registre, 4, ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("BENEFICIARY")));
+        soumettre(registre, 5, ctx -> chaincode.approuverContrat(ctx, ID, ContratsExemple.approbation()));
+
+        // Corps écrit avant le changement, en JSON; signatures compactées et approbation écrites après, en CBOR
+        assertThat(premierOctet(registre, LedgerKeys.corps(new StubMemoire(), ID))).isEqualTo((byte) '{');
+        assertThat(premierOctet(registre, LedgerKeys.signature(new StubMemoire(), ID, 0))).isEqualTo(EncodageStockage.VERSION_CBOR);
+        assertThat(premierOctet(registre, LedgerKeys.approbation(new StubMemoire(), ID))).isEqualTo(EncodageStockage.VERSION_CBOR);
+
+        JsonNode contrat = JSON.readTree(lireContrat(registre));
+        assertThat(contrat.path("status").asText()).isEqualTo("APPROVED");
+        assertThat(contrat.path("terrain").path("surface").decimalValue()).isEqualByComparingTo("2.5");
+        assertThat(contrat.path("signatures")).extracting(signature -> signature.path("partyType").asText())
+            .containsExactlyInAnyOrder("OWNER", "BENEFICIARY");
+        assertThat(contrat.path("approbation").path("approvedBy").asText()).isEqualTo("prefet");
+        assertThat(JSON.readTree(evaluer(registre, ctx -> chaincode.verifierContrat(ctx, ID))).path("integrite").asText())
+            .isEqualTo("OK");
+
+        JsonNode export = JSON.readTree(evaluer(registre, ctx -> chaincode.exporterContrats(ctx, "", "NDJSON", 10, "")));
+        assertThat(JSON.readTree(export.path("donnees").asText()).path("terrain.surface").decimalValue()).isEqualByComparingTo("2.5");
+    }
+
+    private RegistreMemoire cycleDeVie(String encodage) throws Exception {
+        RegistreMemoire registre = new RegistreMemoire();
+        soumettre(registre, 1, ctx -> chaincode.definirEncodageStockage(ctx, encodage));
+        soumettre(registre, 2, ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(registre, 3, ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("OWNER")));
+        soumettre(registre, 4, ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("BENEFICIARY")));
+        soumettre(registre, 5, ctx -> chaincode.approuverContrat(ctx, ID, ContratsExemple.approbation()));
+        soumettre(registre, 6, ctx -> chaincode.validerContrat(ctx, ID, ContratsExemple.validation()));
+        return registre;
+    }
+
+    private static byte premierOctet(RegistreMemoire registre, String cle) {
+        return registre.getEtat().get(cle)[0];
+    }
+
+    private String lireContrat(RegistreMemoire registre) throws Exception {
+        return DeterministicMapper.writeValueAsString(VerificateurDeterminisme.executer(chaincode,
+            registre.endosser("lecture", DEBUT), ctx -> chaincode.lireContrat(ctx, ID)));
+    }
+
+    private String evaluer(RegistreMemoire registre, VerificateurDeterminisme.Transaction requete) throws Exception {
+        return (String) VerificateurDeterminisme.executer(chaincode, registre.endosser("lecture", DEBUT), requete);
+    }
+
+    private void soumettre(RegistreMemoire registre, int numero, VerificateurDeterminisme.Transaction transaction)
+            throws Exception {
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+            DEBUT.plusSeconds(numero), transaction))).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+    }
+}
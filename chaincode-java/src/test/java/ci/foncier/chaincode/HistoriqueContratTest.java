@@ -0,0 +1,115 @@
+package ci.foncier.chaincode;
+
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Historique paginé: reprendre au marque-page de chaque page restitue exactement l'historique non paginé,
+ * en mode complet comme en mode diff, et un txId nu fait reprendre à la première version de cette transaction.
+ */
+class HistoriqueContratTest {
+
+    private static final String ID = "H-1";
+    private static final Instant DEBUT = Instant.parse("2026-09-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private final RegistreMemoire registre = new RegistreMemoire();
+
+    @BeforeEach
+    void cycleDeVie() throws Exception {
+        soumettre(1, ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(2, ctx -> chaincode.modifierContrat(ctx, ID, ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê", "3.0")));
+        soumettre(3, ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("OWNER")));
+        soumettre(4, ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("BENEFICIARY")));
+        soumettre(5, ctx -> chaincode.approuverContrat(ctx, ID, ContratsExemple.approbation()));
+    }
+
+    @Test
+    void pagesSuccessivesRestituentLHistoriqueComplet() throws Exception {
+        for (String mode : new String[]{"COMPLET", "DIFF"}) {
+            List<JsonNode> complet = versions(page(100, "", mode));
+            assertThat(complet).as(mode).hasSizeGreaterThan(3);
+            for (int taille = 1; taille <= 3; taille++) {
+                assertThat(parPages(taille, mode)).as(mode + " par " + taille).isEqualTo(complet);
+            }
+        }
+    }
+
+    @Test
+    void modeDiffNEcritQueLesChampsModifies() throws Exception {
+        List<JsonNode> versions = versions(page(100, "", "DIFF"));
+
+        JsonNode modification = versions.stream()
+            .filter(version -> "corps".equals(version.path("enregistrement").asText()) && "tx-2".equals(version.path("txId").asText()))
+            .findFirst().orElseThrow();
+        assertThat(modification.has("value")).isFalse();
+        assertThat(modification.path("modifications")).hasSize(1);
+        assertThat(modification.path("modifications").get(0).path("chemin").asText()).isEqualTo("terrain.surface");
+        assertThat(modification.path("modifications").get(0).path("avant").decimalValue()).isEqualByComparingTo("2.5");
+        assertThat(modification.path("modifications").get(0).path("apres").decimalValue()).isEqualByComparingTo("3.0");
+
+        // Version la plus ancienne du corps: tous ses champs apparaissent, sans valeur précédente
+        JsonNode creation = versions.stream()
+            .filter(version -> "corps".equals(version.path("enregistrement").asText()) && "tx-1".equals(version.path("txId").asText()))
+            .findFirst().orElseThrow();
+        assertThat(creation.path("modifications")).isNotEmpty()
+            .allSatisfy(champ -> assertThat(champ.path("avant").isNull()).isTrue());
+    }
+
+    @Test
+    void txIdNuFaitReprendreASaPremiereVersion() throws Exception {
+        List<JsonNode> complet = versions(page(100, "", "COMPLET"));
+        int premiere = 0;
+        while (!"tx-2".equals(complet.get(premiere).path("txId").asText())) {
+            premiere++;
+        }
+
+        JsonNode page = page(100, "tx-2", "COMPLET");
+        assertThat(versions(page)).isEqualTo(complet.subList(premiere, complet.size()));
+        assertThat(page.path("bookmark").asText()).isEmpty();
+    }
+
+    private List<JsonNode> parPages(int taille, String mode) throws Exception {
+        List<JsonNode> versions = new ArrayList<>();
+        String marquePage = "";
+        for (int appels = 0; appels < 100; appels++) {
+            JsonNode page = page(taille, marquePage, mode);
+            assertThat(page.path("records").size()).isLessThanOrEqualTo(taille);
+            assertThat(page.path("fetchedCount").asInt()).isEqualTo(page.path("records").size());
+            versions.addAll(versions(page));
+            marquePage = page.path("bookmark").asText();
+            if (marquePage.isEmpty()) {
+                return versions;
+            }
+        }
+        throw new AssertionError("Historique sans fin en pages de " + taille);
+    }
+
+    private static List<JsonNode> versions(JsonNode page) {
+        List<JsonNode> versions = new ArrayList<>();
+        page.path("records").forEach(versions::add);
+        return versions;
+    }
+
+    private JsonNode page(int taille, String depuis, String mode) throws Exception {
+        return JSON.readTree((String) VerificateurDeterminisme.executer(chaincode, registre.endosser("lecture", DEBUT),
+            ctx -> chaincode.lireHistoriquePagine(ctx, ID, taille, depuis, mode)));
+    }
+
+    private void soumettre(int numero, VerificateurDeterminisme.Transaction transaction) throws Exception {
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+            DEBUT.plusSeconds(numero), transaction))).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+    }
+}
@@ -0,0 +1,88 @@
+package ci.foncier.chaincode;
+
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recherche par nom de personne: chaque mot de la recherche doit commencer un mot du nom, comme la recherche
+ * par sous-chaîne d'origine le permettait pour un début de nom ("kouas" trouve "Kouassi").
+ */
+class RechercheParPersonneTest {
+
+    private static final Instant DEBUT = Instant.parse("2026-03-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private RegistreMemoire registre;
+    private int numero;
+
+    @BeforeEach
+    void creerContrats() throws Exception {
+        registre = new RegistreMemoire();
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("P-1", "Kouassi N'Guessan", "Yao Konan", "Gbêkê")));
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("P-2", "Koné Ibrahim", "Yao Konan", "Poro")));
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("P-3", "Kouamé Aya", "Bamba Awa", "Poro")));
+    }
+
+    @Test
+    void debutDeMotTrouveLeNom() throws Exception {
+        assertThat(proprietaire("kouas")).containsExactly("P-1");
+        assertThat(proprietaire("KOUA")).containsExactlyInAnyOrder("P-1", "P-3");
+        assertThat(proprietaire("Kouassi")).containsExactly("P-1");
+    }
+
+    @Test
+    void motsDansNImporteQuelOrdreSansAccents() throws Exception {
+        assertThat(proprietaire("n'guessan kouas")).containsExactly("P-1");
+        assertThat(proprietaire("kone")).containsExactly("P-2");
+        assertThat(proprietaire("kouame ibra")).isEmpty();
+    }
+
+    @Test
+    void motCourtParcourtToutLIndex() throws Exception {
+        assertThat(proprietaire("ko")).containsExactlyInAnyOrder("P-1", "P-2", "P-3");
+        assertThat(proprietaire("n")).containsExactly("P-1");
+    }
+
+    @Test
+    void fragmentAuMilieuDUnMotNeTrouveRien() throws Exception {
+        assertThat(proprietaire("ouass")).isEmpty();
+    }
+
+    @Test
+    void rechercheParBeneficiaire() throws Exception {
+        assertThat(rechercher(ctx -> chaincode.rechercherParBeneficiaire(ctx, "kon")))
+            .containsExactlyInAnyOrder("P-1", "P-2");
+        assertThat(rechercher(ctx -> chaincode.rechercherParBeneficiaire(ctx, "awa bam"))).containsExactly("P-3");
+    }
+
+    private List<String> proprietaire(String nom) throws Exception {
+        return rechercher(ctx -> chaincode.rechercherParProprietaire(ctx, nom));
+    }
+
+    private List<String> rechercher(VerificateurDeterminisme.Transaction recherche) throws Exception {
+        List<String> ids = new ArrayList<>();
+        String resultat = (String) VerificateurDeterminisme.executer(chaincode, registre.endosser("recherche", DEBUT), recherche);
+        for (JsonNode resume : JSON.readTree(resultat)) {
+            ids.add(resume.path("id").asText());
+        }
+        return ids;
+    }
+
+    private void soumettre(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        numero++;
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+            DEBUT.plusSeconds(numero), transaction))).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+    }
+}
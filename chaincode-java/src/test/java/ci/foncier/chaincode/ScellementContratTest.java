@@ -0,0 +1,105 @@
+package ci.foncier.chaincode;
+
+import ci.foncier.chaincode.ledger.ArbreMerkleRegion;
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Scellement dans les arbres de Merkle de la région: un contrat validé puis rejeté, ou modifié après son
+ * rejet, doit rester vérifiable. Chaque scellement va dans l'arbre du fragment de sa transaction.
+ */
+class ScellementContratTest {
+
+    private static final String ID = "SC-1";
+    private static final Instant DEBUT = Instant.parse("2026-04-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private RegistreMemoire registre;
+    private int numero;
+
+    @BeforeEach
+    void creerEtValider() throws Exception {
+        registre = new RegistreMemoire();
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("OWNER")));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("BENEFICIARY")));
+        soumettre(ctx -> chaincode.approuverContrat(ctx, ID, ContratsExemple.approbation()));
+        soumettre(ctx -> chaincode.validerContrat(ctx, ID, ContratsExemple.validation()));
+    }
+
+    @Test
+    void contratValideEstScelle() throws Exception {
+        JsonNode verification = verifier();
+
+        assertThat(verification.path("integrite").asText()).isEqualTo("OK");
+        assertThat(verification.path("preuveMerkle").path("arbre").asText()).isEqualTo(ArbreMerkleRegion.arbre("Gbêkê", "tx-5"));
+        assertThat(verification.path("preuveMerkle").path("index").asLong()).isZero();
+        assertThat(verification.path("preuveMerkle").path("valide").asBoolean()).isTrue();
+    }
+
+    @Test
+    void rejetApresValidationEstScelleDansUneNouvelleFeuille() throws Exception {
+        soumettre(ctx -> chaincode.rejeterContrat(ctx, ID, ContratsExemple.rejecteur(), "Pièce manquante"));
+
+        JsonNode verification = verifier();
+        assertThat(verification.path("status").asText()).isEqualTo("REJECTED");
+        assertThat(verification.path("integrite").asText()).isEqualTo("OK");
+        assertThat(verification.path("preuveMerkle").path("arbre").asText()).isEqualTo(ArbreMerkleRegion.arbre("Gbêkê", "tx-6"));
+        assertThat(verification.path("preuveMerkle").path("index").asLong()).isZero();
+        assertThat(verification.path("preuveMerkle").path("valide").asBoolean()).isTrue();
+
+        // La feuille de la validation reste dans l'arbre de son fragment; la région publie les deux racines
+        JsonNode racines = JSON.readTree((String) VerificateurDeterminisme.executer(chaincode,
+            registre.endosser("racine", DEBUT), ctx -> chaincode.racineMerkle(ctx, "GBEKE")));
+        assertThat(racines.path("region").asText()).isEqualTo("gbeke");
+        assertThat(racines.path("arbres")).hasSize(ArbreMerkleRegion.NOMBRE_FRAGMENTS);
+        Map<String, Long> tailles = new TreeMap<>();
+        for (JsonNode arbre : racines.path("arbres")) {
+            if (arbre.path("taille").asLong() > 0) {
+                tailles.put(arbre.path("arbre").asText(), arbre.path("taille").asLong());
+            }
+        }
+        assertThat(tailles).containsOnly(entry(ArbreMerkleRegion.arbre("Gbêkê", "tx-5"), 1L),
+            entry(ArbreMerkleRegion.arbre("Gbêkê", "tx-6"), 1L));
+    }
+
+    @Test
+    void modificationApresRejetResteVerifiable() throws Exception {
+        soumettre(ctx -> chaincode.rejeterContrat(ctx, ID, ContratsExemple.rejecteur(), "Pièce manquante"));
+        soumettre(ctx -> chaincode.modifierContrat(ctx, ID,
+            ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê", "3.0")));
+
+        JsonNode verification = verifier();
+        assertThat(verification.path("integrite").asText()).isEqualTo("OK");
+        assertThat(verification.path("preuveMerkle").path("arbre").asText()).isEqualTo(ArbreMerkleRegion.arbre("Gbêkê", "tx-7"));
+        assertThat(verification.path("preuveMerkle").path("valide").asBoolean()).isTrue();
+
+        JsonNode preuve = JSON.readTree((String) VerificateurDeterminisme.executer(chaincode,
+            registre.endosser("preuve", DEBUT), ctx -> chaincode.preuveContrat(ctx, ID)));
+        assertThat(preuve.path("valide").asBoolean()).isTrue();
+    }
+
+    private JsonNode verifier() throws Exception {
+        return JSON.readTree((String) VerificateurDeterminisme.executer(chaincode,
+            registre.endosser("verification", DEBUT), ctx -> chaincode.verifierContrat(ctx, ID)));
+    }
+
+    private void soumettre(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        numero++;
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+            DEBUT.plusSeconds(numero), transaction))).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+    }
+}
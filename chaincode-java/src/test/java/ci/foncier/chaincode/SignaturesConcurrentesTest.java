@@ -0,0 +1,139 @@
+package ci.foncier.chaincode;
+
+import ci.foncier.chaincode.ledger.RechercheMango;
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.StubMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Signatures déposées dans le même bloc: les deux valident, et le contrat est lu comme SIGNED avant même
+ * la compaction de ses signatures; les filtres par statut et les statistiques suivent le statut compacté.
+ */
+class SignaturesConcurrentesTest {
+
+    private static final String ID = "SG-1";
+    private static final Instant DEBUT = Instant.parse("2026-06-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private RegistreMemoire registre;
+    private int numero;
+
+    @BeforeEach
+    void signerDansLeMemeBloc() throws Exception {
+        registre = new RegistreMemoire();
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("SG-2", "Bamba Awa", "Koné Ibrahim", "Poro")));
+
+        // Deux endossements sur le même état, validés dans un seul bloc
+        StubMemoire proprietaire = endosser(ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("OWNER")));
+        StubMemoire beneficiaire = endosser(ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("BENEFICIARY")));
+        assertThat(registre.validerBloc(Arrays.asList(proprietaire, beneficiaire)))
+            .containsExactly(RegistreMemoire.CodeValidation.VALID, RegistreMemoire.CodeValidation.VALID);
+    }
+
+    @Test
+    void contratSigneAvantCompactionEstLuCommeSigned() throws Exception {
+        assertThat(JSON.readTree(evaluer(ctx -> chaincode.lireStatutContrat(ctx, ID))).path("status").asText())
+            .isEqualTo("SIGNED");
+        assertThat(statuts(evaluer(ctx -> chaincode.listerContrats(ctx))))
+            .containsExactlyInAnyOrder(ID + "=SIGNED", "SG-2=DRAFT");
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParProprietaire(ctx, "kouassi"))))
+            .containsExactly(ID + "=SIGNED");
+
+        JsonNode export = JSON.readTree(evaluer(ctx -> chaincode.exporterContrats(ctx, "Gbêkê", "NDJSON", 10, "")));
+        assertThat(JSON.readTree(export.path("donnees").asText()).path("status").asText()).isEqualTo("SIGNED");
+
+        // Filtre et statistiques sur le statut compacté: encore DRAFT dans l'index, résumé SIGNED
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParStatut(ctx, "SIGNED")))).isEmpty();
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParStatut(ctx, "DRAFT"))))
+            .containsExactly(ID + "=SIGNED", "SG-2=DRAFT");
+        JsonNode parStatut = JSON.readTree(evaluer(ctx -> chaincode.statistiques(ctx))).path("STATUT");
+        assertThat(parStatut.has("SIGNED")).isFalse();
+        assertThat(parStatut.path("DRAFT").path("nombre").asLong()).isEqualTo(2);
+    }
+
+    @Test
+    void balayageRejointLeStatutLu() throws Exception {
+        assertThat(JSON.readTree(soumettre(ctx -> chaincode.compacterSignaturesEnAttente(ctx, 1))))
+            .isEqualTo(JSON.readTree("{\"compactes\":1,\"termine\":true}"));
+
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParStatut(ctx, "SIGNED")))).containsExactly(ID + "=SIGNED");
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParStatut(ctx, "DRAFT")))).containsExactly("SG-2=DRAFT");
+        JsonNode parStatut = JSON.readTree(evaluer(ctx -> chaincode.statistiques(ctx))).path("STATUT");
+        assertThat(parStatut.path("SIGNED").path("nombre").asLong()).isEqualTo(1);
+        assertThat(parStatut.path("DRAFT").path("nombre").asLong()).isEqualTo(1);
+        assertThat(parStatut.path("SIGNED").path("surface").decimalValue()).isEqualByComparingTo("2.5");
+        assertThat(JSON.readTree(soumettre(ctx -> chaincode.compacterSignaturesEnAttente(ctx, 1))))
+            .isEqualTo(JSON.readTree("{\"compactes\":0,\"termine\":true}"));
+    }
+
+    @Test
+    void balayageBorneParLeLot() throws Exception {
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, "SG-2", ContratsExemple.signature("OWNER")));
+
+        assertThat(JSON.readTree(soumettre(ctx -> chaincode.compacterSignaturesEnAttente(ctx, 1))))
+            .isEqualTo(JSON.readTree("{\"compactes\":1,\"termine\":false}"));
+        assertThat(JSON.readTree(soumettre(ctx -> chaincode.compacterSignaturesEnAttente(ctx, 1))))
+            .isEqualTo(JSON.readTree("{\"compactes\":1,\"termine\":true}"));
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParStatut(ctx, "DRAFT")))).containsExactly("SG-2=DRAFT");
+    }
+
+    @Test
+    void compactionLaisseLesMemesResultats() throws Exception {
+        soumettre(ctx -> chaincode.approuverContrat(ctx, ID, ContratsExemple.approbation()));
+
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParStatut(ctx, "SIGNED")))).isEmpty();
+        assertThat(statuts(evaluer(ctx -> chaincode.rechercherParStatut(ctx, "APPROVED")))).containsExactly(ID + "=APPROVED");
+        JsonNode parStatut = JSON.readTree(evaluer(ctx -> chaincode.statistiques(ctx))).path("STATUT");
+        assertThat(parStatut.has("SIGNED")).isFalse();
+        assertThat(parStatut.path("APPROVED").path("nombre").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    void requeteMangoResteSurLIndexDuStatut() throws Exception {
+        JsonNode requete = JSON.readTree(RechercheMango.requete(JSON.readTree("{\"status\":\"DRAFT\",\"champs\":[\"status\"]}")));
+        assertThat(requete.path("selector").path("status").asText()).isEqualTo("DRAFT");
+        assertThat(requete.path("selector").has("$or")).isFalse();
+        assertThat(requete.path("selector").has("id")).isFalse();
+        assertThat(requete.path("use_index").get(1).asText()).isEqualTo("indexStatut");
+        assertThat(requete.path("fields")).extracting(JsonNode::asText).containsExactly("id", "status");
+    }
+
+    private static List<String> statuts(String resumes) throws Exception {
+        List<String> statuts = new ArrayList<>();
+        for (JsonNode resume : JSON.readTree(resumes)) {
+            statuts.add(resume.path("id").asText() + "=" + resume.path("status").asText());
+        }
+        return statuts;
+    }
+
+    private String evaluer(VerificateurDeterminisme.Transaction requete) throws Exception {
+        return (String) VerificateurDeterminisme.executer(chaincode, registre.endosser("lecture", DEBUT), requete);
+    }
+
+    private StubMemoire endosser(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        numero++;
+        return VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero, DEBUT.plusSeconds(numero), transaction);
+    }
+
+    /** Valide la transaction seule dans son bloc et retourne sa réponse */
+    private String soumettre(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        Object[] reponse = new Object[1];
+        assertThat(registre.valider(endosser(ctx -> reponse[0] = transaction.executer(ctx))))
+            .isEqualTo(RegistreMemoire.CodeValidation.VALID);
+        return reponse[0] instanceof String ? (String) reponse[0] : null;
+    }
+}
@@ -0,0 +1,231 @@
+package ci.foncier.chaincode;
+
+import ci.foncier.chaincode.ledger.ArbreMerkleRegion;
+import ci.foncier.chaincode.ledger.EncodageStockage;
+import ci.foncier.chaincode.ledger.LedgerKeys;
+import ci.foncier.chaincode.ledger.StatistiquesContrats;
+import ci.foncier.chaincode.model.ContratAgraire;
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.RegistreMemoire.CodeValidation;
+import ci.foncier.chaincode.support.StubMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Transactions concurrentes endossées sur le même état puis validées dans un seul bloc: les clés écrites
+ * à l'aveugle (dépôts de signature, variations des statistiques) et la séquence fragmentée des codes
+ * ne font échouer que les transactions qui lisent réellement la même clé.
+ */
+class ValidationBlocTest {
+
+    private static final Instant DEBUT = Instant.parse("2026-08-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private RegistreMemoire registre;
+    private int numero;
+
+    @BeforeEach
+    void creerRegistre() {
+        registre = new RegistreMemoire();
+    }
+
+    @Test
+    void depotsDeSignatureDesDeuxPartiesValidentEnsemble() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("B-1", "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        registre.reinitialiserCompteurs();
+
+        List<CodeValidation> codes = registre.validerBloc(Arrays.asList(
+            endosser("tx-proprietaire", ctx -> chaincode.ajouterSignature(ctx, "B-1", ContratsExemple.signature("OWNER"))),
+            endosser("tx-beneficiaire", ctx -> chaincode.ajouterSignature(ctx, "B-1", ContratsExemple.signature("BENEFICIARY"))),
+            endosser("tx-temoin", ctx -> chaincode.ajouterSignature(ctx, "B-1", ContratsExemple.signature("WITNESS")))));
+
+        assertThat(codes).containsOnly(CodeValidation.VALID);
+        assertThat(registre.getConflits()).isZero();
+        assertThat(registre.getConflitsParCle()).isEmpty();
+    }
+
+    @Test
+    void changementDEncodageNeFaitPasEchouerLesDepots() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("B-1", "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        registre.reinitialiserCompteurs();
+
+        StubMemoire encodage = endosser("tx-encodage", ctx -> chaincode.definirEncodageStockage(ctx, "CBOR"));
+        List<CodeValidation> codes = registre.validerBloc(Arrays.asList(encodage,
+            endosser("tx-signature", ctx -> chaincode.ajouterSignature(ctx, "B-1", ContratsExemple.signature("OWNER"))),
+            // Une transition lit l'encodage pour écrire son action: elle a lu l'ancien
+            endosser("tx-modification", ctx -> chaincode.modifierContrat(ctx, "B-1",
+                ContratsExemple.contrat("B-1", "Kouassi Yao", "Konan Aya", "Gbêkê", "3.0")))));
+
+        assertThat(codes).containsExactly(CodeValidation.VALID, CodeValidation.VALID, CodeValidation.MVCC_READ_CONFLICT);
+        assertThat(registre.getConflitsParCle())
+            .containsOnlyKeys(LedgerKeys.meta(encodage, EncodageStockage.CLE_META));
+    }
+
+    @Test
+    void transitionApresDesDepotsDuMemeBlocEstUnConflitFantome() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("B-1", "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        registre.reinitialiserCompteurs();
+
+        // La modification compacte les dépôts: son parcours des signatures en attente voit un dépôt validé avant elle
+        StubMemoire signature = endosser("tx-signature",
+            ctx -> chaincode.ajouterSignature(ctx, "B-1", ContratsExemple.signature("OWNER")));
+        StubMemoire modification = endosser("tx-modification", ctx -> chaincode.modifierContrat(ctx, "B-1",
+            ContratsExemple.contrat("B-1", "Kouassi Yao", "Konan Aya", "Gbêkê", "3.0")));
+        String depots = LedgerKeys.signaturesEnAttente(signature, "B-1").toString();
+
+        assertThat(registre.validerBloc(Arrays.asList(signature, modification)))
+            .containsExactly(CodeValidation.VALID, CodeValidation.PHANTOM_READ_CONFLICT);
+        assertThat(registre.getConflitsFantomes()).isEqualTo(1);
+        assertThat(registre.getConflitsParCle()).containsExactly(entry(depots, 1L));
+    }
+
+    @Test
+    void creationsSurDesFragmentsDifferentsNeSeGenentPas() throws Exception {
+        String premier = txIdDuFragment("tx-a", 3);
+        String second = txIdDuFragment("tx-b", 11);
+
+        List<CodeValidation> codes = registre.validerBloc(Arrays.asList(
+            endosser(premier, ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("S-1", "Kouassi Yao", "Konan Aya", "Poro"))),
+            endosser(second, ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("S-2", "Bamba Awa", "Koné Ibrahim", "Poro")))));
+
+        assertThat(codes).containsExactly(CodeValidation.VALID, CodeValidation.VALID);
+        assertThat(registre.getConflitsParCle()).isEmpty();
+        assertThat(codeContrat("S-1")).isEqualTo("CA-20260801080000-POR-03-000001");
+        assertThat(codeContrat("S-2")).isEqualTo("CA-20260801080000-POR-11-000001");
+    }
+
+    @Test
+    void creationsSurLeMemeFragmentSeDisputentLaSequence() throws Exception {
+        String premier = txIdDuFragment("tx-a", 5);
+        String second = txIdDuFragment("tx-b", 5);
+
+        StubMemoire creation = endosser(premier,
+            ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("S-1", "Kouassi Yao", "Konan Aya", "Poro")));
+        List<CodeValidation> codes = registre.validerBloc(Arrays.asList(creation,
+            endosser(second, ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("S-2", "Bamba Awa", "Koné Ibrahim", "Poro"))),
+            // Même fragment dans une autre région: une autre séquence
+            endosser(txIdDuFragment("tx-c", 5),
+                ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("S-3", "Yao Konan", "Aya Kouamé", "Gbêkê")))));
+
+        assertThat(codes).containsExactly(CodeValidation.VALID, CodeValidation.MVCC_READ_CONFLICT, CodeValidation.VALID);
+        assertThat(registre.getConflitsLecture()).isEqualTo(1);
+        assertThat(registre.getConflitsParCle())
+            .containsExactly(entry(LedgerKeys.sequenceCode(creation, "POR", 5), 1L));
+    }
+
+    @Test
+    void variationsDesStatistiquesNeProvoquentAucunConflit() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("T-1", "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("T-2", "Bamba Awa", "Koné Ibrahim", "Poro")));
+        registre.reinitialiserCompteurs();
+
+        // Compaction en tête de bloc, puis des transactions qui changent toutes les mêmes compteurs
+        Object[] compaction = new Object[1];
+        List<StubMemoire> bloc = new ArrayList<>();
+        bloc.add(endosser("tx-compaction", ctx -> compaction[0] = chaincode.compacterStatistiques(ctx, 100)));
+        bloc.add(endosser(txIdDuFragment("tx-c", 1),
+            ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("T-3", "Yao Konan", "Aya Kouamé", "Gbêkê"))));
+        bloc.add(endosser(txIdDuFragment("tx-d", 2),
+            ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("T-4", "Koné Awa", "Bamba Yao", "Gbêkê"))));
+        bloc.add(endosser("tx-suppression", ctx -> {
+            chaincode.supprimerContrat(ctx, "T-1", ContratsExemple.rejecteur(), "Doublon");
+            return null;
+        }));
+        bloc.add(endosser("tx-modification", ctx -> chaincode.modifierContrat(ctx, "T-2",
+            ContratsExemple.contrat("T-2", "Bamba Awa", "Koné Ibrahim", "Poro", "7.5"))));
+
+        assertThat(registre.validerBloc(bloc)).containsOnly(CodeValidation.VALID);
+        assertThat(registre.getConflitsParCle()).isEmpty();
+        assertThat(JSON.readTree((String) compaction[0]).path("reportees").asInt()).isEqualTo(8);
+
+        JsonNode statistiques = JSON.readTree(evaluer(ctx -> chaincode.statistiques(ctx)));
+        assertThat(statistiques.path("TOTAL").path("nombre").asLong()).isEqualTo(4);
+        assertThat(statistiques.path("TOTAL").path("surface").decimalValue()).isEqualByComparingTo("15.0");
+        assertThat(statistiques.path("STATUT").path("DRAFT").path("nombre").asLong()).isEqualTo(3);
+        assertThat(statistiques.path("STATUT").path("DELETED").path("nombre").asLong()).isEqualTo(1);
+        assertThat(statistiques.path("REGION").path("Gbêkê").path("nombre").asLong()).isEqualTo(3);
+    }
+
+    @Test
+    void deuxCompactionsDuMemeBlocSeDisputentLeCurseur() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("T-1", "Kouassi Yao", "Konan Aya", "Gbêkê")));
+        soumettre(ctx -> chaincode.compacterStatistiques(ctx, 1));
+        soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat("T-2", "Bamba Awa", "Koné Ibrahim", "Poro")));
+        registre.reinitialiserCompteurs();
+
+        StubMemoire premiere = endosser("tx-compaction-1", ctx -> chaincode.compacterStatistiques(ctx, 100));
+        assertThat(registre.validerBloc(Arrays.asList(premiere,
+            endosser("tx-compaction-2", ctx -> chaincode.compacterStatistiques(ctx, 100)))))
+            .containsExactly(CodeValidation.VALID, CodeValidation.MVCC_READ_CONFLICT);
+        assertThat(registre.getConflitsParCle())
+            .containsOnlyKeys(LedgerKeys.meta(premiere, "STATISTIQUES_COMPACTION"));
+    }
+
+    @Test
+    void scellementsDeLaMemeRegionSurDesFragmentsDifferents() throws Exception {
+        for (String id : Arrays.asList("M-1", "M-2", "M-3")) {
+            soumettre(ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat(id, "Kouassi Yao", "Konan Aya", "Gbêkê")));
+            soumettre(ctx -> chaincode.ajouterSignature(ctx, id, ContratsExemple.signature("OWNER")));
+            soumettre(ctx -> chaincode.ajouterSignature(ctx, id, ContratsExemple.signature("BENEFICIARY")));
+            soumettre(ctx -> chaincode.approuverContrat(ctx, id, ContratsExemple.approbation()));
+        }
+        registre.reinitialiserCompteurs();
+
+        // Deux fragments différents valident ensemble; le troisième scellement retombe sur le premier arbre
+        StubMemoire premier = endosser(txIdDuFragment("tx-a", 4),
+            ctx -> chaincode.validerContrat(ctx, "M-1", ContratsExemple.validation()));
+        List<CodeValidation> codes = registre.validerBloc(Arrays.asList(premier,
+            endosser(txIdDuFragment("tx-b", 9), ctx -> chaincode.validerContrat(ctx, "M-2", ContratsExemple.validation())),
+            endosser(txIdDuFragment("tx-c", 4), ctx -> chaincode.validerContrat(ctx, "M-3", ContratsExemple.validation()))));
+
+        assertThat(codes).containsExactly(CodeValidation.VALID, CodeValidation.VALID, CodeValidation.MVCC_READ_CONFLICT);
+        assertThat(registre.getConflitsParCle())
+            .containsOnlyKeys(LedgerKeys.tailleMerkle(premier, ArbreMerkleRegion.arbre("Gbêkê", 4)));
+    }
+
+    /** Premier txId "prefixe-n" dont le fragment (séquence des codes, compaction) est celui demandé */
+    private static String txIdDuFragment(String prefixe, int fragment) {
+        for (int n = 0; ; n++) {
+            String txId = prefixe + "-" + n;
+            if (StatistiquesContrats.fragment(txId) == fragment) {
+                return txId;
+            }
+        }
+    }
+
+    private String codeContrat(String contratId) throws Exception {
+        ContratAgraire contrat = (ContratAgraire) VerificateurDeterminisme.executer(chaincode,
+            registre.endosser("lecture", DEBUT), ctx -> chaincode.lireContrat(ctx, contratId));
+        return contrat.getCodeContract();
+    }
+
+    private String evaluer(VerificateurDeterminisme.Transaction requete) throws Exception {
+        return (String) VerificateurDeterminisme.executer(chaincode, registre.endosser("lecture", DEBUT), requete);
+    }
+
+    /** Endossement sur l'état validé courant, non validé */
+    private StubMemoire endosser(String txId, VerificateurDeterminisme.Transaction transaction) throws Exception {
+        return VerificateurDeterminisme.verifier(chaincode, registre, txId, DEBUT, transaction);
+    }
+
+    private void soumettre(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        numero++;
+        // Deux heures avant le bloc: les variations de ces transactions sont dans une période compactable
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+            DEBUT.minus(Duration.ofHours(2)).plusSeconds(numero), transaction))).isEqualTo(CodeValidation.VALID);
+    }
+}
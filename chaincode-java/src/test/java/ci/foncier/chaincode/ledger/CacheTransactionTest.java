@@ -0,0 +1,184 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.FoncierChaincode;
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.StubMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Écritures envoyées par afterTransaction, comparées pour la même transaction à celles d'une exécution
+ * sans tampon d'écriture: mêmes valeurs, sauf les écritures qui redonnent à une clé sa valeur validée,
+ * une seule écriture par clé, dans l'ordre des clés, et le même état une fois la transaction validée.
+ */
+class CacheTransactionTest {
+
+    private static final String ID = "CT-1";
+    private static final Instant DEBUT = Instant.parse("2026-05-01T08:00:00Z");
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private RegistreMemoire registre;
+    private int numero;
+
+    /**
+     * Chaque écriture part au stub dès l'appel, comme sans CacheTransaction; les lectures gardent la
+     * visibilité des écritures de la transaction, dont dépendent séquences, arbres et statistiques.
+     */
+    private static final class SansTampon extends CacheTransaction {
+        SansTampon(ChaincodeStub stub) {
+            super(stub);
+        }
+
+        @Override
+        public void putState(String key, byte[] value) {
+            super.putState(key, value);
+            pair().putState(key, value);
+        }
+
+        @Override
+        public void delState(String key) {
+            super.delState(key);
+            pair().delState(key);
+        }
+
+        @Override
+        public int ecrire() {
+            return 0;
+        }
+    }
+
+    /** Écritures d'une même transaction, avec et sans tampon */
+    private static final class Endossements {
+        final StubMemoire avecCache;
+        final StubMemoire sansCache;
+
+        Endossements(StubMemoire avecCache, StubMemoire sansCache) {
+            this.avecCache = avecCache;
+            this.sansCache = sansCache;
+        }
+
+        Set<String> omises() {
+            Set<String> omises = new TreeSet<>(sansCache.getEcritures().keySet());
+            omises.removeAll(avecCache.getEcritures().keySet());
+            return omises;
+        }
+    }
+
+    @BeforeEach
+    void creerRegistre() {
+        registre = new RegistreMemoire();
+    }
+
+    @Test
+    void creationEnvoieToutesSesEcrituresUneFoisDansLOrdreDesCles() throws Exception {
+        Endossements endossements = comparer(ctx -> chaincode.creerContrat(ctx, contrat()));
+
+        assertThat(endossements.omises()).isEmpty();
+        assertThat(endossements.avecCache.getEcritures().keySet())
+            .isEqualTo(endossements.sansCache.getEcritures().keySet());
+    }
+
+    @Test
+    void modificationIdentiqueOmetLesEcrituresInchangees() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, contrat()));
+
+        Endossements endossements = comparer(ctx -> chaincode.modifierContrat(ctx, ID, contrat()));
+
+        assertThat(endossements.omises()).isNotEmpty()
+            .anyMatch(cle -> cle.contains(LedgerKeys.CONTRAT_CORPS));
+        assertThat(endossements.avecCache.getEcritures()).hasSizeLessThan(endossements.sansCache.getEcritures().size());
+    }
+
+    @Test
+    void approbationSupprimeLesDepotsEtCumuleLesVariationsDansUneEcriture() throws Exception {
+        soumettre(ctx -> chaincode.creerContrat(ctx, contrat()));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("OWNER")));
+        soumettre(ctx -> chaincode.ajouterSignature(ctx, ID, ContratsExemple.signature("BENEFICIARY")));
+
+        Endossements endossements = comparer(ctx -> chaincode.approuverContrat(ctx, ID, ContratsExemple.approbation()));
+
+        // Compaction des dépôts, puis DRAFT -> SIGNED -> APPROVED: deux variations du compteur SIGNED
+        StubMemoire stub = endossements.avecCache;
+        assertThat(stub.getEcritures())
+            .containsEntry(LedgerKeys.signatureEnAttente(stub, ID, "OWNER", "tx-2"), null)
+            .containsEntry(LedgerKeys.signatureEnAttente(stub, ID, "BENEFICIARY", "tx-3"), null);
+        String signed = LedgerKeys.deltaStatistique(stub, StatistiquesContrats.periode(stub.getTxTimestamp()),
+            stub.getTxId(), StatistiquesContrats.STATUT, "SIGNED");
+        assertThat(endossements.sansCache.getOrdreEcritures()).filteredOn(signed::equals).hasSize(2);
+        assertThat(stub.getOrdreEcritures()).filteredOn(signed::equals).hasSize(1);
+    }
+
+    @Test
+    void transactionEnEchecNEnvoieRien() {
+        StubMemoire stub = registre.endosser("echec", DEBUT);
+
+        assertThatThrownBy(() -> VerificateurDeterminisme.executer(chaincode, stub,
+            ctx -> chaincode.approuverContrat(ctx, "INCONNU", ContratsExemple.approbation())))
+            .isInstanceOf(ChaincodeException.class);
+        assertThat(stub.getOrdreEcritures()).isEmpty();
+    }
+
+    private static String contrat() {
+        return ContratsExemple.contrat(ID, "Kouassi Yao", "Konan Aya", "Gbêkê");
+    }
+
+    /**
+     * Exécute la transaction avec le chemin du pair et sans tampon, vérifie les propriétés communes
+     * aux deux ensembles d'écriture, puis les retourne.
+     */
+    private Endossements comparer(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        String txId = "tx-" + (++numero);
+        Instant horodatage = DEBUT.plusSeconds(numero);
+        StubMemoire avecCache = registre.copie().endosser(txId, horodatage);
+        VerificateurDeterminisme.executer(chaincode, avecCache, transaction);
+        StubMemoire sansCache = registre.copie().endosser(txId, horodatage);
+        transaction.executer(new Context(new SansTampon(sansCache)));
+        Endossements endossements = new Endossements(avecCache, sansCache);
+
+        // Une écriture par clé, dans l'ordre croissant des clés
+        assertThat(avecCache.getOrdreEcritures()).isSorted().doesNotHaveDuplicates();
+        // Chaque écriture envoyée l'est aussi sans tampon, avec la même dernière valeur (null: suppression)
+        for (Map.Entry<String, byte[]> ecriture : avecCache.getEcritures().entrySet()) {
+            assertThat(sansCache.getEcritures()).containsKey(ecriture.getKey());
+            assertThat(sansCache.getEcritures().get(ecriture.getKey())).isEqualTo(ecriture.getValue());
+        }
+        // Une écriture omise redonnait à la clé sa valeur validée
+        for (String cle : endossements.omises()) {
+            assertThat(sansCache.getEcritures().get(cle)).as(cle).isEqualTo(registre.getEtat().get(cle));
+        }
+        // Même état une fois validée
+        RegistreMemoire avec = registre.copie();
+        RegistreMemoire sans = registre.copie();
+        assertThat(avec.valider(avecCache)).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+        assertThat(sans.valider(sansCache)).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+        assertThat(etat(avec)).isEqualTo(etat(sans));
+        return endossements;
+    }
+
+    private void soumettre(VerificateurDeterminisme.Transaction transaction) throws Exception {
+        StubMemoire stub = registre.endosser("tx-" + (++numero), DEBUT.plusSeconds(numero));
+        VerificateurDeterminisme.executer(chaincode, stub, transaction);
+        assertThat(stub.valider()).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+    }
+
+    private static Map<String, String> etat(RegistreMemoire registre) {
+        Map<String, String> etat = new TreeMap<>();
+        registre.getEtat().forEach((cle, valeur) -> etat.put(cle, Base64.getEncoder().encodeToString(valeur)));
+        return etat;
+    }
+}
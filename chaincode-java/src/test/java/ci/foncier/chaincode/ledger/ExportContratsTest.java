@@ -0,0 +1,159 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.FoncierChaincode;
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Export à plat: cellules CSV échappées selon la RFC 4180, entête CSV sur la seule première page,
+ * et lignes NDJSON dont les clés suivent COLONNES, null compris.
+ */
+class ExportContratsTest {
+
+    private static final Instant DEBUT = Instant.parse("2026-09-01T08:00:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Test
+    void cellulesCsvEchappees() throws Exception {
+        Map<String, Object> ligne = new HashMap<>();
+        ligne.put("id", "A-1");
+        ligne.put("codeContract", "GBE,2026");
+        ligne.put("status", "dit \"provisoire\"");
+        ligne.put("village", "Kondé\r\nBrobo");
+        ligne.put("signatureCount", 2);
+        ligne.put("terrain.surface", JSON.readTree("2.50"));
+
+        StringWriter sortie = new StringWriter();
+        ExportContrats.ecrireLigneCsv(sortie, ligne);
+
+        List<String> cellules = cellulesCsv(sortie.toString());
+        assertThat(cellules).hasSize(ExportContrats.COLONNES.size());
+        assertThat(sortie.toString()).startsWith("A-1,\"GBE,2026\",\"dit \"\"provisoire\"\"\",").endsWith("\r\n");
+        for (int i = 0; i < cellules.size(); i++) {
+            Object attendue = ligne.get(ExportContrats.COLONNES.get(i));
+            assertThat(cellules.get(i)).as(ExportContrats.COLONNES.get(i))
+                .isEqualTo(attendue == null ? "" : attendue instanceof JsonNode ? ((JsonNode) attendue).asText() : attendue.toString());
+        }
+    }
+
+    @Test
+    void enteteCsvSuitLesColonnes() throws Exception {
+        StringWriter sortie = new StringWriter();
+        ExportContrats.ecrireEnteteCsv(sortie);
+        assertThat(sortie.toString()).isEqualTo(String.join(",", ExportContrats.COLONNES) + "\r\n");
+    }
+
+    @Test
+    void ligneNdjsonDansLOrdreDesColonnes() throws Exception {
+        Map<String, Object> ligne = new HashMap<>();
+        ligne.put("terrain.surface", JSON.readTree("2.5"));
+        ligne.put("village", "Kondé\nBrobo");
+        ligne.put("id", "A-1");
+
+        StringWriter sortie = new StringWriter();
+        ExportContrats.ecrireLigneNdjson(JSON.getFactory(), sortie, ligne);
+
+        assertThat(sortie.toString()).endsWith("\n").containsOnlyOnce("\n");
+        JsonNode objet = JSON.readTree(sortie.toString());
+        List<String> cles = new ArrayList<>();
+        objet.fieldNames().forEachRemaining(cles::add);
+        assertThat(cles).isEqualTo(ExportContrats.COLONNES);
+        assertThat(objet.path("id").asText()).isEqualTo("A-1");
+        assertThat(objet.path("village").asText()).isEqualTo("Kondé\nBrobo");
+        assertThat(objet.path("terrain.surface").decimalValue()).isEqualByComparingTo("2.5");
+        assertThat(objet.get("owner.name").isNull()).isTrue();
+    }
+
+    @Test
+    void formatParDefautEtFormatInconnu() {
+        assertThat(ExportContrats.format(null)).isEqualTo(ExportContrats.Format.NDJSON);
+        assertThat(ExportContrats.format(" csv ")).isEqualTo(ExportContrats.Format.CSV);
+        assertThatThrownBy(() -> ExportContrats.format("XLSX"))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("XLSX");
+    }
+
+    @Test
+    void pagesCsvSeConcatenentSousUneSeuleEntete() throws Exception {
+        FoncierChaincode chaincode = new FoncierChaincode();
+        RegistreMemoire registre = new RegistreMemoire();
+        for (int numero = 1; numero <= 3; numero++) {
+            String id = "X-" + numero;
+            assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+                DEBUT.plusSeconds(numero), ctx -> chaincode.creerContrat(ctx,
+                    ContratsExemple.contrat(id, "Kouassi, Yao", "Konan \\\"Aya\\\"", "Gbêkê")))))
+                .isEqualTo(RegistreMemoire.CodeValidation.VALID);
+        }
+
+        StringBuilder donnees = new StringBuilder();
+        String marquePage = "";
+        int pages = 0;
+        do {
+            String debut = marquePage;
+            JsonNode page = JSON.readTree((String) VerificateurDeterminisme.executer(chaincode,
+                registre.endosser("lecture", DEBUT), ctx -> chaincode.exporterContrats(ctx, "gbeke", "CSV", 2, debut)));
+            assertThat(page.path("donnees").asText().startsWith("id,")).isEqualTo(pages == 0);
+            donnees.append(page.path("donnees").asText());
+            marquePage = page.path("bookmark").asText();
+            pages++;
+        } while (!marquePage.isEmpty() && pages < 10);
+
+        assertThat(pages).isEqualTo(2);
+        String[] lignes = donnees.toString().split("\r\n");
+        assertThat(lignes).hasSize(4);
+        assertThat(lignes[0]).isEqualTo(String.join(",", ExportContrats.COLONNES));
+        for (int i = 1; i < lignes.length; i++) {
+            List<String> cellules = cellulesCsv(lignes[i] + "\r\n");
+            assertThat(cellules).hasSize(ExportContrats.COLONNES.size());
+            assertThat(cellules.get(0)).isEqualTo("X-" + i);
+            assertThat(cellules.get(ExportContrats.COLONNES.indexOf("owner.name"))).isEqualTo("Kouassi, Yao");
+            assertThat(cellules.get(ExportContrats.COLONNES.indexOf("beneficiary.name"))).isEqualTo("Konan \"Aya\"");
+        }
+    }
+
+    /**
+     * Cellules d'une ligne CSV terminée par CRLF, guillemets RFC 4180 compris.
+     */
+    private static List<String> cellulesCsv(String ligne) {
+        List<String> cellules = new ArrayList<>();
+        StringBuilder cellule = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"' && i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                    cellule.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreGuillemets = false;
+                } else {
+                    cellule.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == ',') {
+                cellules.add(cellule.toString());
+                cellule.setLength(0);
+            } else if (c == '\r' && ligne.startsWith("\r\n", i) && i + 2 == ligne.length()) {
+                cellules.add(cellule.toString());
+                return cellules;
+            } else {
+                cellule.append(c);
+            }
+        }
+        throw new AssertionError("Ligne CSV non terminée: " + ligne);
+    }
+}
@@ -0,0 +1,100 @@
+package ci.foncier.chaincode.ledger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Requêtes Mango de rechercherContrats: sélecteur, projection, et index choisi parmi ceux livrés
+ * avec le chaincode (META-INF/statedb/couchdb/indexes).
+ */
+class RechercheMangoTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Path INDEX_LIVRES = Paths.get("META-INF", "statedb", "couchdb", "indexes");
+
+    @Test
+    void selecteurSurDocTypeEtFiltresRenseignes() throws Exception {
+        JsonNode requete = requete("{\"status\":\"APPROVED\",\"region\":\" Poro \",\"village\":\"\","
+            + "\"creationDateDebut\":\"2026-01-01T00:00:00\",\"creationDateFin\":\"2026-06-30T23:59:59\"}");
+
+        assertThat(requete.path("selector")).isEqualTo(JSON.readTree("{\"docType\":\"" + ContratEntete.DOC_TYPE + "\","
+            + "\"status\":\"APPROVED\",\"region\":\"Poro\","
+            + "\"creationDate\":{\"$gte\":\"2026-01-01T00:00:00\",\"$lte\":\"2026-06-30T23:59:59\"}}"));
+        assertThat(requete.path("fields")).extracting(JsonNode::asText)
+            .containsExactly("id", "codeContract", "status", "region", "village", "type", "creationDate", "idufci");
+    }
+
+    @Test
+    void indexLePlusSelectifCouvertParLesFiltres() throws Exception {
+        assertThat(index("{\"status\":\"DRAFT\"}")).isEqualTo("indexStatut");
+        assertThat(index("{\"status\":\"DRAFT\",\"region\":\"Poro\"}")).isEqualTo("indexStatutRegion");
+        assertThat(index("{\"region\":\"Poro\",\"village\":\"Kondé\",\"type\":\"LOCATION\"}")).isEqualTo("indexRegionVillage");
+        assertThat(index("{\"region\":\"Poro\",\"creationDateFin\":\"2026-06-30T23:59:59\"}")).isEqualTo("indexRegionCreationDate");
+        // Filtres vides ignorés: docType seul, CouchDB choisit
+        assertThat(requete("{\"status\":\"\"}").has("use_index")).isFalse();
+        assertThat(requete(null).has("use_index")).isFalse();
+    }
+
+    @Test
+    void chaqueIndexLivreEstChoisiPourSesChamps() throws IOException {
+        int livres = 0;
+        try (DirectoryStream<Path> fichiers = Files.newDirectoryStream(INDEX_LIVRES, "*.json")) {
+            for (Path fichier : fichiers) {
+                JsonNode definition = JSON.readTree(fichier.toFile());
+                JsonNode champs = definition.path("index").path("fields");
+                assertThat(champs.get(0).asText()).isEqualTo("docType");
+
+                ObjectNode filtres = JSON.createObjectNode();
+                for (int i = 1; i < champs.size(); i++) {
+                    String champ = champs.get(i).asText();
+                    filtres.put("creationDate".equals(champ) ? RechercheMango.CREATION_DEBUT : champ,
+                        "creationDate".equals(champ) ? "2026-01-01T00:00:00" : "x");
+                }
+                JsonNode index = JSON.readTree(RechercheMango.requete(filtres)).path("use_index");
+                assertThat(index.get(0).asText()).as(fichier.toString()).isEqualTo(definition.path("ddoc").asText());
+                assertThat(index.get(1).asText()).as(fichier.toString()).isEqualTo(definition.path("name").asText());
+                livres++;
+            }
+        }
+        assertThat(livres).isEqualTo(9);
+    }
+
+    @Test
+    void projectionDemandeeGardeToujoursLId() throws Exception {
+        assertThat(requete("{\"champs\":[\"status\",\"id\",\"surface\"]}").path("fields")).extracting(JsonNode::asText)
+            .containsExactly("id", "status", "surface");
+    }
+
+    @Test
+    void filtresInvalidesSontRefuses() {
+        assertThatThrownBy(() -> requete("{\"owner\":\"Kouassi\"}"))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Filtre inconnu: owner");
+        assertThatThrownBy(() -> requete("{\"creationDateDebut\":\"01/01/2026\"}"))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("creationDateDebut");
+        assertThatThrownBy(() -> requete("{\"champs\":[\"owner\"]}"))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Champ non disponible: owner");
+        assertThatThrownBy(() -> requete("[]"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String index(String filtres) throws IOException {
+        JsonNode index = requete(filtres).path("use_index");
+        assertThat(index.get(0).asText()).isEqualTo(index.get(1).asText());
+        return index.get(0).asText();
+    }
+
+    private static JsonNode requete(String filtres) throws IOException {
+        return JSON.readTree(RechercheMango.requete(filtres == null ? null : JSON.readTree(filtres)));
+    }
+}
@@ -0,0 +1,136 @@
+package ci.foncier.chaincode.ledger;
+
+import ci.foncier.chaincode.FoncierChaincode;
+import ci.foncier.chaincode.support.ContratsExemple;
+import ci.foncier.chaincode.support.RegistreMemoire;
+import ci.foncier.chaincode.support.StubMemoire;
+import ci.foncier.chaincode.support.VerificateurDeterminisme;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compaction des variations de statistiques: seules les périodes closes depuis DELAI_COMPACTION sont
+ * reportées, par lots bornés, depuis le curseur; les totaux lus ne changent pas.
+ */
+class StatistiquesContratsTest {
+
+    private static final Instant MAINTENANT = Instant.parse("2026-08-01T10:30:00Z");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FoncierChaincode chaincode = new FoncierChaincode();
+    private final RegistreMemoire registre = new RegistreMemoire();
+    private int numero;
+
+    @BeforeEach
+    void alimenter() throws Exception {
+        // Trois contrats à 07h, deux à 08h, aucun à 09h, un à 10h: seule 10h n'est pas close depuis une heure
+        creer("S-1", "Gbêkê", Instant.parse("2026-08-01T07:05:00Z"));
+        creer("S-2", "Poro", Instant.parse("2026-08-01T07:10:00Z"));
+        creer("S-3", "Gbêkê", Instant.parse("2026-08-01T07:50:00Z"));
+        creer("S-4", "Poro", Instant.parse("2026-08-01T08:15:00Z"));
+        creer("S-5", "Bélier", Instant.parse("2026-08-01T08:45:00Z"));
+        creer("S-6", "Gbêkê", MAINTENANT.minus(Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void compactionBorneeReprendAuCurseur() throws Exception {
+        int aCompacter = variations("2026080107") + variations("2026080108");
+        int recentes = variations("2026080110");
+        assertThat(aCompacter).isEqualTo(5 * recentes);
+        String avant = statistiques();
+
+        JsonNode premiere = compacter(2);
+        assertThat(premiere.path("reportees").asInt()).isEqualTo(2);
+        assertThat(premiere.path("termine").asBoolean()).isFalse();
+        assertThat(curseur()).isEqualTo("2026080107");
+        assertThat(variations("2026080107") + variations("2026080108")).isEqualTo(aCompacter - 2);
+        assertThat(JSON.readTree(statistiques())).isEqualTo(JSON.readTree(avant));
+
+        int reportees = 2;
+        int appels = 1;
+        JsonNode compaction = premiere;
+        while (!compaction.path("termine").asBoolean()) {
+            compaction = compacter(2);
+            assertThat(compaction.path("reportees").asInt()).isLessThanOrEqualTo(2);
+            reportees += compaction.path("reportees").asInt();
+            assertThat(++appels).isLessThan(100);
+        }
+
+        assertThat(reportees).isEqualTo(aCompacter);
+        assertThat(variations("2026080107") + variations("2026080108")).isZero();
+        assertThat(variations("2026080110")).isEqualTo(recentes);
+        assertThat(curseur()).isEqualTo("2026080109");
+        assertThat(JSON.readTree(statistiques())).isEqualTo(JSON.readTree(avant));
+    }
+
+    @Test
+    void periodeRecenteNEstPasCompactee() throws Exception {
+        String avant = statistiques();
+
+        JsonNode compaction = compacter(1000);
+        assertThat(compaction.path("termine").asBoolean()).isTrue();
+        assertThat(variations("2026080110")).isPositive();
+
+        // 10h est close depuis une heure à 12h, plus tôt elle reste hors compaction
+        numero++;
+        Object[] reponse = new Object[1];
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero,
+            MAINTENANT.plus(Duration.ofHours(2)), ctx -> reponse[0] = chaincode.compacterStatistiques(ctx, 1000))))
+            .isEqualTo(RegistreMemoire.CodeValidation.VALID);
+        assertThat(JSON.readTree((String) reponse[0]).path("termine").asBoolean()).isTrue();
+        assertThat(variations("2026080110")).isZero();
+        assertThat(curseur()).isEqualTo("2026080111");
+        assertThat(JSON.readTree(statistiques())).isEqualTo(JSON.readTree(avant));
+    }
+
+    @Test
+    void sansVariationLaCompactionEstTermineeSansCurseur() throws Exception {
+        RegistreMemoire vide = new RegistreMemoire();
+        Object[] reponse = new Object[1];
+        assertThat(vide.valider(VerificateurDeterminisme.verifier(chaincode, vide, "tx-vide", MAINTENANT,
+            ctx -> reponse[0] = chaincode.compacterStatistiques(ctx, 10)))).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+
+        JsonNode compaction = JSON.readTree((String) reponse[0]);
+        assertThat(compaction.path("reportees").asInt()).isZero();
+        assertThat(compaction.path("termine").asBoolean()).isTrue();
+        assertThat(vide.getEtat()).doesNotContainKey(LedgerKeys.meta(new StubMemoire(), StatistiquesContrats.CLE_CURSEUR));
+    }
+
+    private void creer(String id, String region, Instant horodatage) throws Exception {
+        numero++;
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero, horodatage,
+            ctx -> chaincode.creerContrat(ctx, ContratsExemple.contrat(id, "Kouassi Yao", "Konan Aya", region)))))
+            .isEqualTo(RegistreMemoire.CodeValidation.VALID);
+    }
+
+    private JsonNode compacter(int limite) throws Exception {
+        numero++;
+        Object[] reponse = new Object[1];
+        assertThat(registre.valider(VerificateurDeterminisme.verifier(chaincode, registre, "tx-" + numero, MAINTENANT,
+            ctx -> reponse[0] = chaincode.compacterStatistiques(ctx, limite)))).isEqualTo(RegistreMemoire.CodeValidation.VALID);
+        return JSON.readTree((String) reponse[0]);
+    }
+
+    private String statistiques() throws Exception {
+        return (String) VerificateurDeterminisme.executer(chaincode, registre.endosser("lecture", MAINTENANT),
+            ctx -> chaincode.statistiques(ctx));
+    }
+
+    private String curseur() {
+        byte[] curseur = registre.getEtat().get(LedgerKeys.meta(new StubMemoire(), StatistiquesContrats.CLE_CURSEUR));
+        return curseur == null ? null : new String(curseur, StandardCharsets.UTF_8);
+    }
+
+    private int variations(String periode) {
+        String prefixe = LedgerKeys.deltasStatistiques(new StubMemoire(), periode).toString();
+        return registre.getEtat().subMap(prefixe, prefixe + Character.MAX_VALUE).size();
+    }
+}
@@ -0,0 +1,39 @@
+package ci.foncier.chaincode.support;
+
+/**
+ * Documents JSON minimaux acceptés par les transactions du chaincode, pour les tests.
+ */
+public final class ContratsExemple {
+
+    private ContratsExemple() {
+    }
+
+    public static String contrat(String id, String proprietaire, String beneficiaire, String region) {
+        return contrat(id, proprietaire, beneficiaire, region, "2.5");
+    }
+
+    public static String contrat(String id, String proprietaire, String beneficiaire, String region, String surface) {
+        return "{\"id\":\"" + id + "\",\"uuid\":\"u-" + id + "\",\"creationDate\":\"2026-01-01T10:00:00\","
+            + "\"type\":\"LOCATION\",\"region\":\"" + region + "\",\"department\":\"Bouaké\","
+            + "\"sousPrefecture\":\"Brobo\",\"village\":\"Kondé\","
+            + "\"owner\":{\"id\":7,\"name\":\"" + proprietaire + "\"},"
+            + "\"beneficiary\":{\"id\":9,\"name\":\"" + beneficiaire + "\"},"
+            + "\"terrain\":{\"id\":1,\"surface\":" + surface + ",\"idufci\":\"U-" + id + "\"}}";
+    }
+
+    public static String signature(String partie) {
+        return "{\"partyType\":\"" + partie + "\",\"signatureData\":\"AAAA\"}";
+    }
+
+    public static String approbation() {
+        return "{\"approvedBy\":\"prefet\",\"approverName\":\"Préfet de région\"}";
+    }
+
+    public static String validation() {
+        return "{\"validatedBy\":\"afor\",\"validatorName\":\"AFOR\",\"documentHash\":\"h1\",\"digitalSignature\":\"sig\"}";
+    }
+
+    public static String rejecteur() {
+        return "{\"userId\":\"agent\",\"userName\":\"Agent foncier\",\"role\":\"VALIDATOR\"}";
+    }
+}
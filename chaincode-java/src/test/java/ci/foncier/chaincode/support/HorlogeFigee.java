@@ -0,0 +1,27 @@
+package ci.foncier.chaincode.support;
+
+import ci.foncier.chaincode.util.Horloge;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import java.time.LocalDateTime;
+
+/**
+ * Horloge de test: retourne toujours la même date, quelle que soit la transaction.
+ */
+public class HorlogeFigee implements Horloge {
+
+    private LocalDateTime maintenant;
+
+    public HorlogeFigee(LocalDateTime maintenant) {
+        this.maintenant = maintenant;
+    }
+
+    @Override
+    public LocalDateTime maintenant(ChaincodeStub stub) {
+        return maintenant;
+    }
+
+    public void avancerDe(long secondes) {
+        maintenant = maintenant.plusSeconds(secondes);
+    }
+}
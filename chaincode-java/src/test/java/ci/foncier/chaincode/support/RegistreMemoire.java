@@ -0,0 +1,263 @@
+package ci.foncier.chaincode.support;
+
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Registre en mémoire partagé par les StubMemoire: world state validé, version de chaque clé,
+ * historique des clés et événements des transactions validées.
+ *
+ * La validation reprend celle du pair: une transaction n'est appliquée que si chaque clé lue a encore
+ * la version lue (sinon MVCC_READ_CONFLICT) et si chaque parcours de clés, rejoué, retourne les mêmes clés
+ * dans les mêmes versions (sinon PHANTOM_READ_CONFLICT). Des transactions endossées sur le même état puis
+ * validées l'une après l'autre simulent donc des endossements concurrents d'un même bloc; les conflits
+ * sont comptés, au total et par clé.
+ *
+ * Non thread-safe: la concurrence est simulée, pas exécutée.
+ */
+public class RegistreMemoire {
+
+    /** Codes de validation du pair retenus par la simulation */
+    public enum CodeValidation {
+        VALID,
+        MVCC_READ_CONFLICT,
+        PHANTOM_READ_CONFLICT
+    }
+
+    /** txId des valeurs posées par amorcer() */
+    public static final String TX_AMORCE = "amorce";
+
+    private final TreeMap<String, byte[]> etat = new TreeMap<>();
+    /** Version d'une clé: numéro de la transaction validée qui l'a écrite en dernier */
+    private final Map<String, Long> versions = new HashMap<>();
+    /** Versions successives de chaque clé, de la plus ancienne à la plus récente */
+    private final Map<String, List<Modification>> historique = new HashMap<>();
+    private final List<Evenement> evenements = new ArrayList<>();
+    private long hauteur;
+
+    private long validees;
+    private long conflitsLecture;
+    private long conflitsFantomes;
+    private final TreeMap<String, Long> conflitsParCle = new TreeMap<>();
+
+    /**
+     * Nouvelle transaction sur ce registre, endossée sur l'état validé à cet instant.
+     */
+    public StubMemoire endosser(String txId, Instant horodatage) {
+        return new StubMemoire(this).commencer(txId, horodatage);
+    }
+
+    /**
+     * Pose une valeur validée sans passer par une transaction (données initiales, formats hérités).
+     */
+    public void amorcer(String cle, byte[] valeur) {
+        appliquer(cle, valeur, TX_AMORCE, Instant.EPOCH, ++hauteur);
+    }
+
+    /**
+     * Copie indépendante de l'état, des versions et de l'historique; les compteurs repartent de zéro.
+     */
+    public RegistreMemoire copie() {
+        RegistreMemoire copie = new RegistreMemoire();
+        copie.etat.putAll(etat);
+        copie.versions.putAll(versions);
+        historique.forEach((cle, modifications) -> copie.historique.put(cle, new ArrayList<>(modifications)));
+        copie.evenements.addAll(evenements);
+        copie.hauteur = hauteur;
+        return copie;
+    }
+
+    /**
+     * Valide une transaction endossée: contrôle de son ensemble de lecture, puis application de son ensemble
+     * d'écriture et de son événement si elle est valide.
+     */
+    public CodeValidation valider(StubMemoire transaction) {
+        for (Map.Entry<String, Long> lecture : transaction.getLectures().entrySet()) {
+            if (!Objects.equals(versions.get(lecture.getKey()), lecture.getValue())) {
+                conflitsLecture++;
+                conflitsParCle.merge(lecture.getKey(), 1L, Long::sum);
+                return CodeValidation.MVCC_READ_CONFLICT;
+            }
+        }
+        for (StubMemoire.LectureIntervalle intervalle : transaction.getLecturesIntervalles()) {
+            if (!parcourir(intervalle).equals(intervalle.getCles())) {
+                conflitsFantomes++;
+                conflitsParCle.merge(intervalle.getDebut(), 1L, Long::sum);
+                return CodeValidation.PHANTOM_READ_CONFLICT;
+            }
+        }
+
+        long version = ++hauteur;
+        for (Map.Entry<String, byte[]> ecriture : transaction.getEcritures().entrySet()) {
+            appliquer(ecriture.getKey(), ecriture.getValue(), transaction.getTxId(), transaction.getTxTimestamp(), version);
+        }
+        if (transaction.getNomEvenement() != null) {
+            evenements.add(new Evenement(transaction.getTxId(), transaction.getNomEvenement(),
+                transaction.getContenuEvenement()));
+        }
+        validees++;
+        return CodeValidation.VALID;
+    }
+
+    /**
+     * Valide dans l'ordre des transactions endossées sur le même état, comme les transactions d'un bloc.
+     */
+    public List<CodeValidation> validerBloc(List<StubMemoire> transactions) {
+        List<CodeValidation> codes = new ArrayList<>(transactions.size());
+        for (StubMemoire transaction : transactions) {
+            codes.add(valider(transaction));
+        }
+        return codes;
+    }
+
+    private void appliquer(String cle, byte[] valeur, String txId, Instant horodatage, long version) {
+        if (valeur == null) {
+            etat.remove(cle);
+            versions.remove(cle);
+        } else {
+            etat.put(cle, valeur);
+            versions.put(cle, version);
+        }
+        historique.computeIfAbsent(cle, c -> new ArrayList<>()).add(new Modification(txId, horodatage, valeur));
+    }
+
+    /**
+     * Rejoue un parcours: jusqu'à sa fin s'il a été épuisé, sinon jusqu'à la dernière clé lue.
+     */
+    private Map<String, Long> parcourir(StubMemoire.LectureIntervalle intervalle) {
+        Map<String, Long> cles = new LinkedHashMap<>();
+        NavigableMap<String, byte[]> plage;
+        if (intervalle.isEpuise()) {
+            plage = etat.subMap(intervalle.getDebut(), true, intervalle.getFin(), false);
+        } else if (intervalle.getCles().isEmpty()) {
+            return cles;
+        } else {
+            plage = etat.subMap(intervalle.getDebut(), true, intervalle.derniereCle(), true);
+        }
+        for (String cle : plage.keySet()) {
+            cles.put(cle, versions.get(cle));
+        }
+        return cles;
+    }
+
+    NavigableMap<String, byte[]> etat() {
+        return etat;
+    }
+
+    Long version(String cle) {
+        return versions.get(cle);
+    }
+
+    public NavigableMap<String, byte[]> getEtat() {
+        return Collections.unmodifiableNavigableMap(etat);
+    }
+
+    /** Versions d'une clé, de la plus récente à la plus ancienne comme getHistoryForKey */
+    public List<KeyModification> historique(String cle) {
+        List<KeyModification> versionsCle = new ArrayList<>(historique.getOrDefault(cle, Collections.emptyList()));
+        Collections.reverse(versionsCle);
+        return versionsCle;
+    }
+
+    public List<Evenement> getEvenements() {
+        return Collections.unmodifiableList(evenements);
+    }
+
+    public long getValidees() {
+        return validees;
+    }
+
+    public long getConflitsLecture() {
+        return conflitsLecture;
+    }
+
+    public long getConflitsFantomes() {
+        return conflitsFantomes;
+    }
+
+    public long getConflits() {
+        return conflitsLecture + conflitsFantomes;
+    }
+
+    /** Clé (ou début de parcours) qui a invalidé chaque transaction rejetée, et nombre de rejets */
+    public NavigableMap<String, Long> getConflitsParCle() {
+        return Collections.unmodifiableNavigableMap(conflitsParCle);
+    }
+
+    public void reinitialiserCompteurs() {
+        validees = 0;
+        conflitsLecture = 0;
+        conflitsFantomes = 0;
+        conflitsParCle.clear();
+    }
+
+    /**
+     * Version d'une clé dans l'historique.
+     */
+    static final class Modification implements KeyModification {
+        private final String txId;
+        private final Instant horodatage;
+        private final byte[] valeur;
+
+        Modification(String txId, Instant horodatage, byte[] valeur) {
+            this.txId = txId;
+            this.horodatage = horodatage;
+            this.valeur = valeur;
+        }
+
+        @Override
+        public String getTxId() {
+            return txId;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return valeur == null ? new byte[0] : valeur;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(getValue(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Instant getTimestamp() {
+            return horodatage;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return valeur == null;
+        }
+    }
+
+    /**
+     * Événement émis par une transaction validée.
+     */
+    public static final class Evenement {
+        private final String txId;
+        private final String nom;
+        private final byte[] contenu;
+
+        Evenement(String txId, String nom, byte[] contenu) {
+            this.txId = txId;
+            this.nom = nom;
+            this.contenu = contenu;
+        }
+
+        public String getTxId() { return txId; }
+        public String getNom() { return nom; }
+        public byte[] getContenu() { return contenu; }
+    }
+}
@@ -0,0 +1,561 @@
+package ci.foncier.chaincode.support;
+
+import com.google.protobuf.ByteString;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * ChaincodeStub en mémoire pour exécuter FoncierChaincode hors d'un réseau Fabric: une transaction
+ * endossée sur un RegistreMemoire.
+ *
+ * Comme sur un pair, une transaction lit l'état validé et ses écritures restent dans son ensemble
+ * d'écriture jusqu'à valider(): une lecture ne voit jamais les écritures de la transaction en cours.
+ * Les lectures sont enregistrées avec la version lue, les parcours avec les clés effectivement itérées,
+ * pour que le registre puisse détecter les conflits MVCC et les lectures fantômes à la validation.
+ * Les requêtes paginées ne sont pas revalidées par le pair: elles sont réservées aux transactions
+ * sans écriture, et une écriture qui en suit une est refusée.
+ *
+ * Une instance par transaction (RegistreMemoire.endosser), comme sur le pair. Le chaincode l'enveloppe dans
+ * le CacheTransaction de createContext: les écritures n'arrivent ici qu'à afterTransaction, dans l'ordre
+ * des clés (voir getOrdreEcritures).
+ */
+public class StubMemoire implements ChaincodeStub {
+
+    /** Borne haute d'une clé composite partielle (plus grand point de code Unicode), comme dans le pair */
+    static final String MAX_UNICODE_RUNE = "\uDBFF\uDFFF";
+    /** Début d'un parcours de clés simples: les clés composites, qui commencent par U+0000, en sont exclues */
+    static final String DEBUT_CLES_SIMPLES = "\u0001";
+
+    /** Certificat auto-signé du client simulé, lu par Context pour construire la ClientIdentity */
+    private static final String CERTIFICAT = "-----BEGIN CERTIFICATE-----\n"
+        + "MIIB6DCCAY2gAwIBAgIUYsmvINrwsNMwdIYFGcmH8rp6kFcwCgYIKoZIzj0EAwIw\n"
+        + "SDELMAkGA1UEBhMCQ0kxDTALBgNVBAoMBEFGT1IxDzANBgNVBAsMBmNsaWVudDEZ\n"
+        + "MBcGA1UEAwwQYWdlbnQuc2ltdWxhdGlvbjAgFw0yNjEwMTgxNzQ0MTJaGA8yMTI2\n"
+        + "MDkyNDE3NDQxMlowSDELMAkGA1UEBhMCQ0kxDTALBgNVBAoMBEFGT1IxDzANBgNV\n"
+        + "BAsMBmNsaWVudDEZMBcGA1UEAwwQYWdlbnQuc2ltdWxhdGlvbjBZMBMGByqGSM49\n"
+        + "AgEGCCqGSM49AwEHA0IABPAIU2dtAljVW96XCBfFp9Q67Y+zrLgAplzQXVMUne6Y\n"
+        + "iqEJTXa8VDY4ywR1EIJnlsdBWxkmEIjZN9NDE5Dn+1GjUzBRMB0GA1UdDgQWBBS9\n"
+        + "ftT+fAJVZveij+ugKYFb4UTbZDAfBgNVHSMEGDAWgBS9ftT+fAJVZveij+ugKYFb\n"
+        + "4UTbZDAPBgNVHRMBAf8EBTADAQH/MAoGCCqGSM49BAMCA0kAMEYCIQDw9QX6iPIQ\n"
+        + "PrHtYrEJMSSrB7QUml3tH/JTQljIkWfSOAIhAIO9yocUIPllOw/ke4R+Tu8Tncge\n"
+        + "Hlz7WJWWtziyO6se\n"
+        + "-----END CERTIFICATE-----\n";
+
+    private final RegistreMemoire registre;
+
+    /** Ensemble de lecture: version lue de chaque clé (null: clé absente) */
+    private final TreeMap<String, Long> lectures = new TreeMap<>();
+    private final List<LectureIntervalle> intervalles = new ArrayList<>();
+    /** Ensemble d'écriture de la transaction en cours; null pour une suppression */
+    private final TreeMap<String, byte[]> ecritures = new TreeMap<>();
+    /** Clés écrites ou supprimées, dans l'ordre des appels */
+    private final List<String> ordreEcritures = new ArrayList<>();
+    private boolean requetePaginee;
+    private boolean validee;
+
+    private String txId = "tx-0";
+    private Instant horodatage = Instant.parse("2026-01-01T00:00:00Z");
+    private String mspId = "AFORMSP";
+    private String nomEvenement;
+    private byte[] contenuEvenement;
+
+    public StubMemoire() {
+        this(new RegistreMemoire());
+    }
+
+    public StubMemoire(RegistreMemoire registre) {
+        this.registre = registre;
+    }
+
+    /**
+     * Ouvre une transaction: ensembles de lecture et d'écriture et événement sont remis à zéro.
+     */
+    StubMemoire commencer(String txId, Instant horodatage) {
+        this.txId = txId;
+        this.horodatage = horodatage;
+        lectures.clear();
+        intervalles.clear();
+        ecritures.clear();
+        ordreEcritures.clear();
+        requetePaginee = false;
+        validee = false;
+        nomEvenement = null;
+        contenuEvenement = null;
+        return this;
+    }
+
+    /**
+     * Soumet la transaction au registre. Valide ou non, elle est ensuite close: toute nouvelle écriture est refusée.
+     */
+    public RegistreMemoire.CodeValidation valider() {
+        if (validee) {
+            throw new IllegalStateException("Transaction " + txId + " déjà soumise");
+        }
+        validee = true;
+        return registre.valider(this);
+    }
+
+    public RegistreMemoire getRegistre() {
+        return registre;
+    }
+
+    public NavigableMap<String, Long> getLectures() {
+        return Collections.unmodifiableNavigableMap(lectures);
+    }
+
+    public List<LectureIntervalle> getLecturesIntervalles() {
+        return Collections.unmodifiableList(intervalles);
+    }
+
+    /** Ensemble d'écriture de la transaction en cours, trié par clé (null: suppression) */
+    public NavigableMap<String, byte[]> getEcritures() {
+        return Collections.unmodifiableNavigableMap(ecritures);
+    }
+
+    /** Clés de putState et delState dans l'ordre des appels, une entrée par appel */
+    public List<String> getOrdreEcritures() {
+        return Collections.unmodifiableList(ordreEcritures);
+    }
+
+    public NavigableMap<String, byte[]> getEtat() {
+        return registre.getEtat();
+    }
+
+    public String getNomEvenement() {
+        return nomEvenement;
+    }
+
+    public byte[] getContenuEvenement() {
+        return contenuEvenement;
+    }
+
+    public void setMspId(String mspId) {
+        this.mspId = mspId;
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return horodatage;
+    }
+
+    @Override
+    public String getMspId() {
+        return mspId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return "contrat-agraire";
+    }
+
+    @Override
+    public byte[] getState(String key) {
+        lectures.put(key, registre.version(key));
+        byte[] valeur = registre.etat().get(key);
+        return valeur == null ? new byte[0] : valeur;
+    }
+
+    @Override
+    public void putState(String key, byte[] value) {
+        verifierEcriture();
+        ecritures.put(key, value);
+        ordreEcritures.add(key);
+    }
+
+    @Override
+    public void delState(String key) {
+        verifierEcriture();
+        ecritures.put(key, null);
+        ordreEcritures.add(key);
+    }
+
+    private void verifierEcriture() {
+        if (validee) {
+            throw new IllegalStateException("Transaction " + txId + " déjà soumise");
+        }
+        if (requetePaginee) {
+            throw new IllegalStateException("Écriture interdite après une requête paginée (transaction " + txId + ")");
+        }
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(String startKey, String endKey) {
+        return parcourir(bornerDebut(startKey), bornerFin(endKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String compositeKey) {
+        return parcourir(compositeKey, compositeKey + MAX_UNICODE_RUNE);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(String objectType, String... attributes) {
+        return getStateByPartialCompositeKey(createCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(CompositeKey compositeKey) {
+        return getStateByPartialCompositeKey(compositeKey.toString());
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(String startKey, String endKey,
+                                                                                  int pageSize, String bookmark) {
+        return paginer(bornerDebut(startKey), bornerFin(endKey), pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            CompositeKey compositeKey, int pageSize, String bookmark) {
+        String partielle = compositeKey.toString();
+        return paginer(partielle, partielle + MAX_UNICODE_RUNE, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(String key) {
+        return new Resultats<>(registre.historique(key));
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(String objectType, String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public void setEvent(String name, byte[] payload) {
+        // Comme dans le pair, seul le dernier événement de la transaction est conservé
+        this.nomEvenement = name;
+        this.contenuEvenement = payload;
+    }
+
+    protected static String bornerDebut(String startKey) {
+        return startKey == null || startKey.isEmpty() ? DEBUT_CLES_SIMPLES : startKey;
+    }
+
+    protected static String bornerFin(String endKey) {
+        return endKey == null || endKey.isEmpty() ? MAX_UNICODE_RUNE : endKey;
+    }
+
+    /**
+     * Parcours [debut, fin) de l'état validé, figé à l'appel; les clés sont ajoutées à l'ensemble de lecture
+     * au fil de l'itération.
+     */
+    private QueryResultsIterator<KeyValue> parcourir(String debut, String fin) {
+        LectureIntervalle intervalle = new LectureIntervalle(debut, fin);
+        intervalles.add(intervalle);
+        List<KeyValue> resultats = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entree : registre.etat().subMap(debut, true, fin, false).entrySet()) {
+            resultats.add(new Entree(entree.getKey(), entree.getValue()));
+        }
+        return new Resultats<>(resultats, intervalle);
+    }
+
+    /**
+     * Page de [debut, fin): le marque-page est la première clé de la page suivante, "" après la dernière.
+     * pageSize <= 0 retourne tout l'intervalle.
+     */
+    private QueryResultsIteratorWithMetadata<KeyValue> paginer(String debut, String fin, int pageSize, String bookmark) {
+        requetePaginee = true;
+        String depart = bookmark == null || bookmark.isEmpty() ? debut : bookmark;
+        List<KeyValue> resultats = new ArrayList<>();
+        String suivante = "";
+        for (Map.Entry<String, byte[]> entree : registre.etat().subMap(depart, true, fin, false).entrySet()) {
+            if (pageSize > 0 && resultats.size() == pageSize) {
+                suivante = entree.getKey();
+                break;
+            }
+            resultats.add(new Entree(entree.getKey(), entree.getValue()));
+        }
+        return new Page(resultats, suivante);
+    }
+
+    /**
+     * Parcours enregistré dans l'ensemble de lecture: intervalle demandé, clés itérées avec leur version,
+     * et s'il a été itéré jusqu'au bout.
+     */
+    public static final class LectureIntervalle {
+        private final String debut;
+        private final String fin;
+        private final Map<String, Long> cles = new LinkedHashMap<>();
+        private String derniereCle;
+        private boolean epuise;
+
+        LectureIntervalle(String debut, String fin) {
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        public String getDebut() { return debut; }
+        public String getFin() { return fin; }
+        public Map<String, Long> getCles() { return Collections.unmodifiableMap(cles); }
+        public boolean isEpuise() { return epuise; }
+
+        String derniereCle() {
+            return derniereCle;
+        }
+    }
+
+    /**
+     * Couple clé/valeur retourné par les parcours.
+     */
+    static final class Entree implements KeyValue {
+        private final String key;
+        private final byte[] value;
+
+        Entree(String key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private class Resultats<T> implements QueryResultsIterator<T> {
+        private final List<T> elements;
+        private final LectureIntervalle intervalle;
+
+        Resultats(List<T> elements) {
+            this(elements, null);
+        }
+
+        Resultats(List<T> elements, LectureIntervalle intervalle) {
+            this.elements = elements;
+            this.intervalle = intervalle;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            Iterator<T> source = elements.iterator();
+            if (intervalle == null) {
+                return source;
+            }
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    boolean suivant = source.hasNext();
+                    if (!suivant) {
+                        intervalle.epuise = true;
+                    }
+                    return suivant;
+                }
+
+                @Override
+                public T next() {
+                    if (!source.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    T element = source.next();
+                    String cle = ((KeyValue) element).getKey();
+                    intervalle.cles.put(cle, registre.version(cle));
+                    intervalle.derniereCle = cle;
+                    return element;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final class Page extends Resultats<KeyValue> implements QueryResultsIteratorWithMetadata<KeyValue> {
+        private final QueryResponseMetadata metadata;
+
+        Page(List<KeyValue> elements, String bookmark) {
+            super(elements);
+            this.metadata = QueryResponseMetadata.newBuilder()
+                .setFetchedRecordsCount(elements.size())
+                .setBookmark(bookmark)
+                .build();
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return metadata;
+        }
+    }
+
+    // Fonctions du pair non simulées
+
+    @Override
+    public List<byte[]> getArgs() {
+        throw new UnsupportedOperationException("getArgs");
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        throw new UnsupportedOperationException("getStringArgs");
+    }
+
+    @Override
+    public String getFunction() {
+        throw new UnsupportedOperationException("getFunction");
+    }
+
+    @Override
+    public List<String> getParameters() {
+        throw new UnsupportedOperationException("getParameters");
+    }
+
+    @Override
+    public Chaincode.Response invokeChaincode(String chaincodeName, List<byte[]> args, String channel) {
+        throw new UnsupportedOperationException("invokeChaincode");
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(String key) {
+        throw new UnsupportedOperationException("getStateValidationParameter");
+    }
+
+    @Override
+    public void setStateValidationParameter(String key, byte[] value) {
+        throw new UnsupportedOperationException("setStateValidationParameter");
+    }
+
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(String query) {
+        throw new UnsupportedOperationException("getQueryResult (CouchDB)");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(String query, int pageSize,
+                                                                                 String bookmark) {
+        throw new UnsupportedOperationException("getQueryResultWithPagination (CouchDB)");
+    }
+
+    @Override
+    public byte[] getPrivateData(String collection, String key) {
+        throw new UnsupportedOperationException("getPrivateData");
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(String collection, String key) {
+        throw new UnsupportedOperationException("getPrivateDataHash");
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(String collection, String key) {
+        throw new UnsupportedOperationException("getPrivateDataValidationParameter");
+    }
+
+    @Override
+    public void putPrivateData(String collection, String key, byte[] value) {
+        throw new UnsupportedOperationException("putPrivateData");
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(String collection, String key, byte[] value) {
+        throw new UnsupportedOperationException("setPrivateDataValidationParameter");
+    }
+
+    @Override
+    public void delPrivateData(String collection, String key) {
+        throw new UnsupportedOperationException("delPrivateData");
+    }
+
+    @Override
+    public void purgePrivateData(String collection, String key) {
+        throw new UnsupportedOperationException("purgePrivateData");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(String collection, String startKey, String endKey) {
+        throw new UnsupportedOperationException("getPrivateDataByRange");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, String compositeKey) {
+        throw new UnsupportedOperationException("getPrivateDataByPartialCompositeKey");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection,
+                                                                              CompositeKey compositeKey) {
+        throw new UnsupportedOperationException("getPrivateDataByPartialCompositeKey");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(String collection, String objectType,
+                                                                              String... attributes) {
+        throw new UnsupportedOperationException("getPrivateDataByPartialCompositeKey");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(String collection, String query) {
+        throw new UnsupportedOperationException("getPrivateDataQueryResult");
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        throw new UnsupportedOperationException("getEvent");
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        throw new UnsupportedOperationException("getSignedProposal");
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return SerializedIdentity.newBuilder()
+            .setMspid(mspId)
+            .setIdBytes(ByteString.copyFromUtf8(CERTIFICAT))
+            .build()
+            .toByteArray();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        throw new UnsupportedOperationException("getBinding");
+    }
+}
@@ -0,0 +1,119 @@
+package ci.foncier.chaincode.support;
+
+import ci.foncier.chaincode.FoncierChaincode;
+import ci.foncier.chaincode.util.DeterministicMapper;
+import org.hyperledger.fabric.contract.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Rejoue une transaction comme deux pairs endosseurs: deux copies du même état, même txId, même horodatage.
+ * Ensembles d'écriture, événement et réponse doivent être identiques octet pour octet, sans quoi le client
+ * recevrait des endossements divergents (ENDORSEMENT_MISMATCH).
+ *
+ * Chaque exécution passe par le même chemin que sur le pair (voir executer): ce sont les écritures
+ * envoyées par afterTransaction qui sont comparées.
+ */
+public final class VerificateurDeterminisme {
+
+    /**
+     * Transaction à rejouer, par exemple ctx -> chaincode.creerContrat(ctx, json).
+     */
+    @FunctionalInterface
+    public interface Transaction {
+        Object executer(Context ctx) throws Exception;
+    }
+
+    private VerificateurDeterminisme() {
+    }
+
+    /**
+     * Exécute la transaction comme le routeur du shim: createContext (CacheTransaction sur le stub),
+     * beforeTransaction, la transaction, puis afterTransaction, qui envoie les écritures retenues au stub.
+     * Une transaction qui lève n'atteint pas afterTransaction et n'écrit rien.
+     */
+    public static Object executer(FoncierChaincode chaincode, StubMemoire stub, Transaction transaction)
+            throws Exception {
+        Context contexte = chaincode.createContext(stub);
+        chaincode.beforeTransaction(contexte);
+        Object reponse = transaction.executer(contexte);
+        chaincode.afterTransaction(contexte, reponse);
+        return reponse;
+    }
+
+    /**
+     * Exécute la transaction sur deux copies du registre et lève une AssertionError listant les écarts.
+     * Le registre n'est pas modifié. Retourne le stub du premier endossement, transaction non validée.
+     */
+    public static StubMemoire verifier(FoncierChaincode chaincode, RegistreMemoire registre, String txId,
+                                       Instant horodatage, Transaction transaction) throws Exception {
+        StubMemoire premier = registre.copie().endosser(txId, horodatage);
+        StubMemoire second = registre.copie().endosser(txId, horodatage);
+        byte[] reponse1 = reponse(executer(chaincode, premier, transaction));
+        byte[] reponse2 = reponse(executer(chaincode, second, transaction));
+
+        List<String> ecarts = new ArrayList<>();
+        comparer(premier.getEcritures(), second.getEcritures(), ecarts);
+        if (!Objects.equals(premier.getNomEvenement(), second.getNomEvenement())
+                || !Arrays.equals(premier.getContenuEvenement(), second.getContenuEvenement())) {
+            ecarts.add("événement: " + premier.getNomEvenement() + " / " + second.getNomEvenement());
+        }
+        if (!Arrays.equals(reponse1, reponse2)) {
+            ecarts.add("réponse: " + texte(reponse1) + " / " + texte(reponse2));
+        }
+        if (!ecarts.isEmpty()) {
+            throw new AssertionError("Endossements divergents pour " + txId + ":\n  " + String.join("\n  ", ecarts));
+        }
+        return premier;
+    }
+
+    private static void comparer(NavigableMap<String, byte[]> premieres, NavigableMap<String, byte[]> secondes,
+                                 List<String> ecarts) {
+        TreeSet<String> cles = new TreeSet<>(premieres.keySet());
+        cles.addAll(secondes.keySet());
+        for (String cle : cles) {
+            if (!premieres.containsKey(cle) || !secondes.containsKey(cle)) {
+                ecarts.add("clé écrite par un seul endossement: " + lisible(cle));
+            } else if (!Arrays.equals(premieres.get(cle), secondes.get(cle))) {
+                ecarts.add("valeur différente: " + lisible(cle) + "\n    " + texte(premieres.get(cle))
+                    + "\n    " + texte(secondes.get(cle)));
+            }
+        }
+    }
+
+    private static byte[] reponse(Object reponse) throws Exception {
+        if (reponse == null) {
+            return new byte[0];
+        }
+        if (reponse instanceof String) {
+            return ((String) reponse).getBytes(StandardCharsets.UTF_8);
+        }
+        return DeterministicMapper.writeValueAsBytes(reponse);
+    }
+
+    private static String texte(byte[] valeur) {
+        return valeur == null ? "<supprimée>" : new String(valeur, StandardCharsets.UTF_8);
+    }
+
+    /** Clé composite avec ses séparateurs U+0000 rendus visibles */
+    private static String lisible(String cle) {
+        return cle.replace('\u0000', '|');
+    }
+
+    /** Ensemble d'écriture d'un endossement, pour un message d'assertion */
+    public static String decrire(StubMemoire stub) {
+        StringBuilder description = new StringBuilder();
+        for (Map.Entry<String, byte[]> ecriture : stub.getEcritures().entrySet()) {
+            description.append(lisible(ecriture.getKey())).append(" = ").append(texte(ecriture.getValue())).append('\n');
+        }
+        return description.toString();
+    }
+}
@@ -42,6 +42,12 @@ mkdir -p tmp-code/src
 cp "${JAR_FILE}" tmp-code/src/chaincode.jar
 echo -e "${GREEN}✓${NC} JAR copié vers tmp-code/src/chaincode.jar"
 
+# Copier les index CouchDB (META-INF/statedb/couchdb/indexes), installés par le pair avec le chaincode
+if [ -d "${CHAINCODE_DIR}/META-INF" ]; then
+    cp -r "${CHAINCODE_DIR}/META-INF" tmp-code/META-INF
+    echo -e "${GREEN}✓${NC} Index CouchDB copiés: $(ls ${CHAINCODE_DIR}/META-INF/statedb/couchdb/indexes | wc -l) fichier(s)"
+fi
+
 # Créer code.tar.gz
 cd tmp-code
 tar czf ../code.tar.gz .